@@ -0,0 +1,82 @@
+package solver;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// ComplexKernels against their scalar loops on one row of interleaved terms; the fork adds
+// the vector module, so the dispatching methods take the vector path
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+public class ComplexKernelBenchmark {
+    @Param({"100", "1000"})
+    public int terms;
+
+    private double[] x;
+    private double[] y;
+    private final double[] result = new double[2];
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        x = new double[2 * terms];
+        y = new double[2 * terms];
+        for (int i = 0; i < x.length; i++) {
+            x[i] = random.nextDouble() * 20 - 10;
+            y[i] = random.nextDouble() * 20 - 10;
+        }
+    }
+
+    // factors small enough that y stays bounded over the run
+    @Benchmark
+    public double[] axpy() {
+        ComplexKernels.axpy(1e-9, -1e-9, x, 0, y, 0, y.length);
+        return y;
+    }
+
+    @Benchmark
+    public double[] scalarAxpy() {
+        ComplexKernels.scalarAxpy(1e-9, -1e-9, x, 0, y, 0, y.length);
+        return y;
+    }
+
+    // |factor| = 1, so repeated scaling neither overflows nor underflows
+    @Benchmark
+    public double[] scale() {
+        ComplexKernels.scale(0.6, 0.8, y, 0, y.length);
+        return y;
+    }
+
+    @Benchmark
+    public double[] scalarScale() {
+        ComplexKernels.scalarScale(0.6, 0.8, y, 0, y.length);
+        return y;
+    }
+
+    @Benchmark
+    public double[] dot() {
+        ComplexKernels.dot(x, 0, y, 0, x.length, result, 0);
+        return result;
+    }
+
+    @Benchmark
+    public double[] scalarDot() {
+        ComplexKernels.scalarDot(x, 0, y, 0, x.length, result, 0);
+        return result;
+    }
+}
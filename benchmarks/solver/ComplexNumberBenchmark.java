@@ -0,0 +1,78 @@
+package solver;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// ComplexNumber arithmetic and parsing, per operation
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ComplexNumberBenchmark {
+    private static final int NUM_OF_TERMS = 1024; // power of two, for the index mask
+
+    private ComplexNumber a;
+    private ComplexNumber b;
+    private String[] terms;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        a = new ComplexNumber(random.nextDouble() * 20 - 10, random.nextDouble() * 20 - 10);
+        b = new ComplexNumber(random.nextDouble() * 20 - 10, random.nextDouble() * 20 - 10);
+
+        // the shapes the input files use: real, imaginary, complex, integer
+        terms = new String[NUM_OF_TERMS];
+        for (int i = 0; i < NUM_OF_TERMS; i++) {
+            double re = random.nextDouble() * 20 - 10;
+            double im = random.nextDouble() * 20 - 10;
+            switch (i % 4) {
+                case 0:
+                    terms[i] = String.valueOf(re);
+                    break;
+                case 1:
+                    terms[i] = im + "i";
+                    break;
+                case 2:
+                    terms[i] = new ComplexNumber(re, im).toString();
+                    break;
+                default:
+                    terms[i] = String.valueOf((int) re);
+            }
+        }
+    }
+
+    @Benchmark
+    public ComplexNumber add() {
+        return a.add(b);
+    }
+
+    @Benchmark
+    public ComplexNumber multiply() {
+        return a.multiplyBy(b);
+    }
+
+    @Benchmark
+    public ComplexNumber divide() {
+        return a.divideBy(b);
+    }
+
+    @Benchmark
+    public ComplexNumber parse() {
+        return new ComplexNumber(terms[next++ & (NUM_OF_TERMS - 1)]);
+    }
+}
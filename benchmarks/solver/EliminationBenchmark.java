@@ -0,0 +1,93 @@
+package solver;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// The per-row Gaussian loop Main used to run against LU on random n x n complex systems;
+// blockSize 1 is the unblocked kernel. LUDecomposition.flops(size) over the score gives GFLOP/s.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+public class EliminationBenchmark {
+
+    @Param({"500", "1000"})
+    public int size;
+
+    private double[] data;
+    private Matrix system;
+
+    // terms uniform in [-1, 1), constants included
+    static double[] randomSystem(int size, Random random) {
+        double[] data = new double[2 * (size + 1) * size];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = random.nextDouble() * 2 - 1;
+        }
+        return data;
+    }
+
+    @Setup(Level.Trial)
+    public void setUpTrial() {
+        data = randomSystem(size, new Random(42));
+    }
+
+    @Setup(Level.Invocation)
+    public void copySystem() {
+        system = new Matrix(size, size, data.clone());
+    }
+
+    @Benchmark
+    public LUDecomposition lu(Blocking blocking) {
+        return new LUDecomposition(system, blocking.blockSize);
+    }
+
+    // forward pass of the old Main: whole rows, one row operation at a time
+    @Benchmark
+    public Matrix perRowLoop() {
+        for (int pivot = 1; pivot <= size; pivot++) {
+            int newRow = system.findPivotRowInCol(pivot);
+            if (newRow == -1) {
+                continue;
+            }
+            if (newRow != pivot) {
+                system.swapRows(pivot, newRow);
+            }
+
+            LinearEquation pivotRow = system.getRow(pivot);
+            double pivotRe = pivotRow.getReal(pivot);
+            double pivotIm = pivotRow.getImaginary(pivot);
+            double pivotModulusSquared = pivotRe*pivotRe + pivotIm*pivotIm;
+            for (int currentRow = pivot + 1; currentRow <= size; currentRow++) {
+                LinearEquation row = system.getRow(currentRow);
+                double termRe = row.getReal(pivot);
+                double termIm = row.getImaginary(pivot);
+                double factorRe = -((termRe*pivotRe + termIm*pivotIm) / pivotModulusSquared);
+                double factorIm = -((termIm*pivotRe - termRe*pivotIm) / pivotModulusSquared);
+                row.addMultipleOfRow(pivotRow, factorRe, factorIm);
+            }
+        }
+        return system;
+    }
+
+    // only lu takes a block size, so perRowLoop runs once per size
+    @State(Scope.Thread)
+    public static class Blocking {
+        @Param({"1", "32", "64", "128"})
+        public int blockSize;
+    }
+}
@@ -0,0 +1,105 @@
+package solver;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.Random;
+import java.util.Scanner;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Matrix(File) on a random complex n x n system written once per trial, against the old
+// Scanner + per-term regex loader it replaced; the file size over the score gives MB/s
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MatrixLoadBenchmark {
+
+    @Param({"100", "500", "2000"})
+    public int size;
+
+    private File inputFile;
+
+    @Setup
+    public void setUp() throws IOException {
+        inputFile = File.createTempFile("matrix", ".txt");
+        writeRandomSystem(inputFile, size, new Random(42));
+    }
+
+    @TearDown
+    public void tearDown() {
+        inputFile.delete();
+    }
+
+    @Benchmark
+    public Matrix load() {
+        return new Matrix(inputFile);
+    }
+
+    @Benchmark
+    public double[] loadWithScanner() throws FileNotFoundException {
+        try (Scanner scanner = new Scanner(inputFile)) {
+            String[] firstLine = scanner.nextLine().split(" ");
+            int numOfVariables = Integer.parseInt(firstLine[0]);
+            int numOfEquations = firstLine.length == 2 ? Integer.parseInt(firstLine[1]) : numOfVariables;
+
+            double[] data = new double[2 * (numOfVariables + 1) * numOfEquations];
+            for (int i = 0; i < data.length && scanner.hasNext(); i += 2) {
+                parseWithRegex(scanner.next(), data, i);
+            }
+            return data;
+        }
+    }
+
+    static void writeRandomSystem(File file, int size, Random random) throws FileNotFoundException {
+        try (PrintWriter printWriter = new PrintWriter(file)) {
+            printWriter.println(size);
+            for (int row = 0; row < size; row++) {
+                for (int column = 0; column <= size; column++) {
+                    printWriter.print(new ComplexNumber(random.nextDouble() * 20 - 10, random.nextDouble() * 20 - 10));
+                    printWriter.print(' ');
+                }
+                printWriter.println();
+            }
+        }
+    }
+
+    // the term parser as it was before ComplexNumberParser, pattern compiled per term
+    private static void parseWithRegex(String input, double[] destination, int index) {
+        String pattern = "^(?=[iI.\\d+-\\\\(])[\\(]?([+]?([-]?\\d*\\.?\\d*))??(([+])?([-]?\\d*\\.?\\d*)([i]))??[\\)]?$";
+
+        Pattern cn = Pattern.compile(pattern);
+        Matcher matcher  = cn.matcher(input);
+
+        if (matcher.find()) {
+            destination[index] = matcher.group(2) == null ? 0 : Double.parseDouble(matcher.group(2));
+            if (matcher.group(6) == null) {
+                destination[index + 1] = 0;
+            } else if ("".equals(matcher.group(5))) {
+                destination[index + 1] = 1;
+            } else if ("-".equals(matcher.group(5))) {
+                destination[index + 1] = -1;
+            } else {
+                destination[index + 1] = Double.parseDouble(matcher.group(5));
+            }
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package solver;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+// The whole solve Main runs for a loaded complex system on one thread, silent by default;
+// -p verbosity=trace adds formatting the step log (sent nowhere). Elimination works in
+// place, so every invocation gets a fresh copy; solveEmbedded copies the data into its own
+// workspace and reuses one result.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+public class SolveBenchmark {
+
+    @Param({"10", "100", "500", "2000"})
+    public int size;
+
+    // random: general complex; dominant: diagonally dominant; singular: last row a sum of two others
+    @Param({"random", "dominant", "singular"})
+    public String input;
+
+    @Param({"silent"})
+    public String verbosity;
+
+    private double[] data;
+    private Matrix system;
+    private ParallelEliminator eliminator;
+    private SolveLog log;
+    private final LinearSystemSolver embeddedSolver = new LinearSystemSolver();
+    private final LinearSystemResult embeddedResult = new LinearSystemResult();
+
+    @Setup(Level.Trial)
+    public void setUpTrial() {
+        Random random = new Random(42);
+        data = EliminationBenchmark.randomSystem(size, random);
+        int rowStride = 2 * (size + 1);
+        switch (input) {
+            case "dominant":
+                for (int row = 0; row < size; row++) {
+                    data[row * rowStride + 2 * row] += 2 * size;
+                }
+                break;
+            case "singular":
+                if (size > 2) {
+                    int last = (size - 1) * rowStride;
+                    for (int i = 0; i < rowStride; i++) {
+                        data[last + i] = data[i] + data[rowStride + i];
+                    }
+                }
+                break;
+            case "random":
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown input: " + input);
+        }
+        eliminator = new ParallelEliminator(1);
+        log = new SolveLog(SolveLog.Verbosity.valueOf(verbosity), new PrintStream(OutputStream.nullOutputStream()));
+    }
+
+    @Setup(Level.Invocation)
+    public void copySystem() {
+        system = new Matrix(size, size, data.clone());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        eliminator.shutdown();
+    }
+
+    @Benchmark
+    public SystemSolution solve() {
+        return new SystemSolver(eliminator, 0, "direct", null, log).solve(system);
+    }
+
+    @Benchmark
+    public LinearSystemResult solveEmbedded() {
+        return embeddedSolver.solve(size, size, data, embeddedResult);
+    }
+}
@@ -0,0 +1,124 @@
+package solver;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+// OutputStream that collects writes into chunks and hands full chunks to a background
+// thread, which does the actual writing. The solving thread only copies bytes, unless it
+// gets MAX_PENDING_CHUNKS ahead of the destination: then it waits, so memory stays bounded.
+// close() drains everything and closes the destination (System.out is flushed, not closed).
+class AsyncTraceSink extends OutputStream {
+    private static final int CHUNK_SIZE = 1 << 16;
+    private static final int MAX_PENDING_CHUNKS = 64;
+    private static final byte[] END = new byte[0];
+
+    private final OutputStream destination;
+    private final BlockingQueue<byte[]> pending = new ArrayBlockingQueue<>(MAX_PENDING_CHUNKS);
+    private final Thread writer;
+    private byte[] chunk = new byte[CHUNK_SIZE];
+    private int chunkLength;
+    private volatile IOException writeError;
+    private boolean closed;
+
+    public AsyncTraceSink(OutputStream destination) {
+        this.destination = destination;
+        this.writer = new Thread(this::drain, "trace-writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        if (chunkLength == chunk.length) {
+            handOff();
+        }
+        chunk[chunkLength++] = (byte) b;
+    }
+
+    @Override
+    public void write(byte[] bytes, int offset, int length) throws IOException {
+        while (length > 0) {
+            if (chunkLength == chunk.length) {
+                handOff();
+            }
+            int copied = Math.min(length, chunk.length - chunkLength);
+            System.arraycopy(bytes, offset, chunk, chunkLength, copied);
+            chunkLength += copied;
+            offset += copied;
+            length -= copied;
+        }
+    }
+
+    // flush only passes the partial chunk on; it does not wait for the write
+    @Override
+    public void flush() throws IOException {
+        if (chunkLength > 0) {
+            handOff();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        flush();
+        enqueue(END);
+        try {
+            writer.join();
+        } catch (InterruptedException interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        if (writeError != null) {
+            throw writeError;
+        }
+    }
+
+    private void handOff() throws IOException {
+        if (writeError != null) {
+            throw writeError;
+        }
+        enqueue(chunkLength == chunk.length ? chunk : java.util.Arrays.copyOf(chunk, chunkLength));
+        chunk = new byte[CHUNK_SIZE];
+        chunkLength = 0;
+    }
+
+    private void enqueue(byte[] bytes) throws IOException {
+        try {
+            pending.put(bytes);
+        } catch (InterruptedException interrupted) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while writing the trace");
+        }
+    }
+
+    private void drain() {
+        try {
+            while (true) {
+                byte[] bytes = pending.take();
+                if (bytes == END) {
+                    break;
+                }
+                if (writeError == null) {
+                    try {
+                        destination.write(bytes);
+                    } catch (IOException failure) {
+                        writeError = failure; // keep taking chunks so the solving thread never blocks for good
+                    }
+                }
+            }
+            if (destination == System.out) {
+                destination.flush();
+            } else {
+                destination.close();
+            }
+        } catch (IOException failure) {
+            writeError = failure;
+        } catch (InterruptedException interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
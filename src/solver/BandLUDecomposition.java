@@ -0,0 +1,204 @@
+package solver;
+
+// PA = LU of a BandMatrix with partial pivoting, in place, as LAPACK's gbtrf does it: a row
+// swap only reaches the columns still to be eliminated, so each multiplier stays where it was
+// computed, and U gains at most lowerBandwidth diagonals of fill, the spare columns the band
+// keeps for it. O(n * kl * (kl + ku)) to factor and O(n * (2 kl + ku)) per solve.
+class BandLUDecomposition {
+    private final BandMatrix band;
+    private final double[] data;
+    private final int size;
+    private final int lowerBandwidth;
+    private final int upperWidth; // diagonals of U above its main one, fill included
+    private final int[] pivots; // pivots[k] = row swapped with row k at step k
+    private boolean singular;
+    private int numOfRowSwaps;
+
+    // the band's storage becomes the factors
+    public BandLUDecomposition(BandMatrix band) {
+        this.band = band;
+        data = band.getBandData();
+        size = band.size();
+        lowerBandwidth = band.getLowerBandwidth();
+        upperWidth = band.getLowerBandwidth() + band.getUpperBandwidth();
+        pivots = new int[size];
+        factor(band.getNegligibleModulus());
+    }
+
+    public boolean isSingular() {
+        return singular;
+    }
+
+    public int getNumOfRowSwaps() {
+        return numOfRowSwaps;
+    }
+
+    // complex flops of the factorization, 8 per multiply-add, for a band this wide
+    public static double flops(int size, int lowerBandwidth, int upperBandwidth) {
+        return 8.0 * size * lowerBandwidth * (lowerBandwidth + upperBandwidth + 1);
+    }
+
+    private void factor(double negligibleModulus) {
+        double negligibleSquared = negligibleModulus*negligibleModulus;
+        for (int k = 0; k < size; k++) {
+            int lastRow = Math.min(size - 1, k + lowerBandwidth);
+            int lastColumn = Math.min(size - 1, k + upperWidth);
+
+            int pivotRow = k;
+            double maxModulus = -1;
+            for (int i = k; i <= lastRow; i++) {
+                int index = band.index(i, k);
+                double modulus = data[index]*data[index] + data[index + 1]*data[index + 1];
+                if (modulus > maxModulus) {
+                    maxModulus = modulus;
+                    pivotRow = i;
+                }
+            }
+            pivots[k] = pivotRow;
+            if (maxModulus <= negligibleSquared) {
+                singular = true;
+                continue;
+            }
+            if (pivotRow != k) {
+                for (int j = k; j <= lastColumn; j++) {
+                    int one = band.index(k, j);
+                    int two = band.index(pivotRow, j);
+                    double tempRe = data[one];
+                    double tempIm = data[one + 1];
+                    data[one]     = data[two];
+                    data[one + 1] = data[two + 1];
+                    data[two]     = tempRe;
+                    data[two + 1] = tempIm;
+                }
+                numOfRowSwaps++;
+            }
+
+            // 1/pivot = conj(pivot)/|pivot|^2
+            int pivotIndex = band.index(k, k);
+            double inverseRe =  data[pivotIndex]     / maxModulus;
+            double inverseIm = -data[pivotIndex + 1] / maxModulus;
+            for (int i = k + 1; i <= lastRow; i++) {
+                int index = band.index(i, k);
+                double termRe = data[index];
+                double termIm = data[index + 1];
+                if (termRe == 0 && termIm == 0) {
+                    continue;
+                }
+                double multiplierRe = termRe*inverseRe - termIm*inverseIm;
+                double multiplierIm = termRe*inverseIm + termIm*inverseRe;
+                data[index]     = multiplierRe;
+                data[index + 1] = multiplierIm;
+                // row i -= multiplier * row k, right of the pivot; both contiguous in the band
+                ComplexKernels.axpy(-multiplierRe, -multiplierIm, data, pivotIndex + 2, data, index + 2, 2 * (lastColumn - k));
+            }
+        }
+    }
+
+    // solves Ax = b for one interleaved constant vector (length 2n)
+    public double[] solve(double[] constants) {
+        if (singular) {
+            throw new ArithmeticException("Matrix is singular");
+        }
+        band.checkConstants(constants);
+        double[] x = constants.clone();
+
+        // forward: the swaps and multipliers of each step, in order
+        for (int k = 0; k < size; k++) {
+            int pivotRow = pivots[k];
+            if (pivotRow != k) {
+                double tempRe = x[2 * k];
+                double tempIm = x[2 * k + 1];
+                x[2 * k]     = x[2 * pivotRow];
+                x[2 * k + 1] = x[2 * pivotRow + 1];
+                x[2 * pivotRow]     = tempRe;
+                x[2 * pivotRow + 1] = tempIm;
+            }
+            double re = x[2 * k];
+            double im = x[2 * k + 1];
+            if (re == 0 && im == 0) {
+                continue;
+            }
+            for (int i = k + 1; i <= Math.min(size - 1, k + lowerBandwidth); i++) {
+                int index = band.index(i, k);
+                double multiplierRe = data[index];
+                double multiplierIm = data[index + 1];
+                x[2 * i]     -= multiplierRe*re - multiplierIm*im;
+                x[2 * i + 1] -= multiplierRe*im + multiplierIm*re;
+            }
+        }
+
+        // back substitution with U, one contiguous row segment at a time
+        double[] sum = new double[2];
+        for (int k = size - 1; k >= 0; k--) {
+            int pivotIndex = band.index(k, k);
+            int length = 2 * (Math.min(size - 1, k + upperWidth) - k);
+            ComplexKernels.dot(data, pivotIndex + 2, x, 2 * (k + 1), length, sum, 0);
+            double termRe = x[2 * k]     - sum[0];
+            double termIm = x[2 * k + 1] - sum[1];
+            double pivotRe = data[pivotIndex];
+            double pivotIm = data[pivotIndex + 1];
+            double modulus = pivotRe*pivotRe + pivotIm*pivotIm;
+            x[2 * k]     = (termRe*pivotRe + termIm*pivotIm) / modulus;
+            x[2 * k + 1] = (termIm*pivotRe - termRe*pivotIm) / modulus;
+        }
+        return x;
+    }
+
+    // Thomas algorithm for a diagonally dominant tridiagonal band: elimination without
+    // pivoting, O(n) with two passes. Leaves the band as it is; null if a pivot is negligible.
+    public static double[] solveTridiagonal(BandMatrix band, double[] constants) {
+        band.checkConstants(constants);
+        int size = band.size();
+        double[] data = band.getBandData();
+        boolean hasLower = band.getLowerBandwidth() > 0;
+        boolean hasUpper = band.getUpperBandwidth() > 0;
+        double negligibleSquared = band.getNegligibleModulus()*band.getNegligibleModulus();
+        double[] upper = new double[2 * size]; // super-diagonal divided by the pivot
+        double[] x = constants.clone();
+
+        for (int i = 0; i < size; i++) {
+            int diagonalIndex = band.index(i, i);
+            double pivotRe = data[diagonalIndex];
+            double pivotIm = data[diagonalIndex + 1];
+            double termRe = x[2 * i];
+            double termIm = x[2 * i + 1];
+            if (i > 0 && hasLower) {
+                // pivot -= a * c'[i - 1], term -= a * x[i - 1]
+                int lowerIndex = band.index(i, i - 1);
+                double aRe = data[lowerIndex];
+                double aIm = data[lowerIndex + 1];
+                double cRe = upper[2 * (i - 1)];
+                double cIm = upper[2 * (i - 1) + 1];
+                pivotRe -= aRe*cRe - aIm*cIm;
+                pivotIm -= aRe*cIm + aIm*cRe;
+                termRe -= aRe*x[2 * (i - 1)] - aIm*x[2 * (i - 1) + 1];
+                termIm -= aRe*x[2 * (i - 1) + 1] + aIm*x[2 * (i - 1)];
+            }
+            double modulus = pivotRe*pivotRe + pivotIm*pivotIm;
+            if (modulus <= negligibleSquared) {
+                return null;
+            }
+            double inverseRe =  pivotRe / modulus;
+            double inverseIm = -pivotIm / modulus;
+            if (i < size - 1 && hasUpper) {
+                int upperIndex = band.index(i, i + 1);
+                double cRe = data[upperIndex];
+                double cIm = data[upperIndex + 1];
+                upper[2 * i]     = cRe*inverseRe - cIm*inverseIm;
+                upper[2 * i + 1] = cRe*inverseIm + cIm*inverseRe;
+            }
+            x[2 * i]     = termRe*inverseRe - termIm*inverseIm;
+            x[2 * i + 1] = termRe*inverseIm + termIm*inverseRe;
+        }
+
+        for (int i = size - 2; i >= 0; i--) {
+            double cRe = upper[2 * i];
+            double cIm = upper[2 * i + 1];
+            double nextRe = x[2 * (i + 1)];
+            double nextIm = x[2 * (i + 1) + 1];
+            x[2 * i]     -= cRe*nextRe - cIm*nextIm;
+            x[2 * i + 1] -= cRe*nextIm + cIm*nextRe;
+        }
+        return x;
+    }
+}
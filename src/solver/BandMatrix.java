@@ -0,0 +1,193 @@
+package solver;
+
+import java.util.InputMismatchException;
+
+// A square system whose coefficients are zero more than lowerBandwidth below or
+// upperBandwidth above the diagonal, stored as the band only: row i keeps columns
+// i - lowerBandwidth to i + upperBandwidth + lowerBandwidth, the last lowerBandwidth of
+// them zero until partial pivoting in BandLUDecomposition fills them in. O(n * b) storage
+// instead of O(n^2), for the systems 1-D and 2-D discretisations give.
+class BandMatrix {
+    private final int size;
+    private final int lowerBandwidth;
+    private final int upperBandwidth;
+    private final int rowStride; // doubles per row
+    private final double[] band; // interleaved (re, im), row-major
+    private final double[] constants; // interleaved (re, im)
+    private double negligibleModulus;
+
+    public BandMatrix(int size, int lowerBandwidth, int upperBandwidth) {
+        if (size < 1 || lowerBandwidth < 0 || upperBandwidth < 0) {
+            throw new IndexOutOfBoundsException("Invalid band: " + size + "x" + size + ", bandwidths "
+                    + lowerBandwidth + " and " + upperBandwidth);
+        }
+        this.size = size;
+        this.lowerBandwidth = lowerBandwidth;
+        this.upperBandwidth = upperBandwidth;
+        rowStride = 2 * (2 * lowerBandwidth + upperBandwidth + 1);
+        band = new double[rowStride * size];
+        constants = new double[2 * size];
+    }
+
+    public BandMatrix(Matrix system, int lowerBandwidth, int upperBandwidth) {
+        this(system.size(), lowerBandwidth, upperBandwidth);
+        double[] row = new double[2 * size];
+        for (int i = 0; i < size; i++) {
+            LinearEquation equation = system.getRow(i + 1);
+            equation.copyCoefficientsTo(row, 0);
+            int first = Math.max(0, i - lowerBandwidth);
+            int last = Math.min(size - 1, i + upperBandwidth);
+            System.arraycopy(row, 2 * first, band, index(i, first), 2 * (last - first + 1));
+            constants[2 * i]     = equation.getReal(size + 1);
+            constants[2 * i + 1] = equation.getImaginary(size + 1);
+        }
+        updateNegligibleModulus();
+    }
+
+    public BandMatrix(SparseMatrix system, int lowerBandwidth, int upperBandwidth) {
+        this(system.size(), lowerBandwidth, upperBandwidth);
+        int[] columnStarts = system.getColumnStarts();
+        int[] rowIndices = system.getRowIndices();
+        double[] values = system.getValues();
+        for (int column = 0; column < size; column++) {
+            for (int entry = columnStarts[column]; entry < columnStarts[column + 1]; entry++) {
+                int index = index(rowIndices[entry], column);
+                band[index]     = values[2 * entry];
+                band[index + 1] = values[2 * entry + 1];
+            }
+        }
+        System.arraycopy(system.getConstantTermsData(), 0, constants, 0, constants.length);
+        updateNegligibleModulus();
+    }
+
+    // {lower, upper} bandwidths of a square system, or null once the band is wider than
+    // maxWidth terms per row, which a dense matrix shows within its first rows
+    public static int[] bandwidths(Matrix system, int maxWidth) {
+        int size = system.size();
+        double[] row = new double[2 * size];
+        int lower = 0;
+        int upper = 0;
+        for (int i = 0; i < size; i++) {
+            system.getRow(i + 1).copyCoefficientsTo(row, 0);
+            for (int j = 0; j < i - lower; j++) {
+                if (row[2 * j] != 0 || row[2 * j + 1] != 0) {
+                    lower = i - j;
+                    break;
+                }
+            }
+            for (int j = size - 1; j > i + upper; j--) {
+                if (row[2 * j] != 0 || row[2 * j + 1] != 0) {
+                    upper = j - i;
+                    break;
+                }
+            }
+            if (lower + upper + 1 > maxWidth) {
+                return null;
+            }
+        }
+        return new int[] {lower, upper};
+    }
+
+    // from the stored entries, in O(non-zeros)
+    public static int[] bandwidths(SparseMatrix system, int maxWidth) {
+        int size = system.size();
+        int[] columnStarts = system.getColumnStarts();
+        int[] rowIndices = system.getRowIndices();
+        double[] values = system.getValues();
+        int lower = 0;
+        int upper = 0;
+        for (int column = 0; column < size; column++) {
+            for (int entry = columnStarts[column]; entry < columnStarts[column + 1]; entry++) {
+                if (values[2 * entry] == 0 && values[2 * entry + 1] == 0) {
+                    continue;
+                }
+                lower = Math.max(lower, rowIndices[entry] - column);
+                upper = Math.max(upper, column - rowIndices[entry]);
+            }
+            if (lower + upper + 1 > maxWidth) {
+                return null;
+            }
+        }
+        return new int[] {lower, upper};
+    }
+
+    // a band worth storing: at most a quarter of a row, so that with the pivoting fill it
+    // still takes well under half the dense storage
+    public static int maxWidth(int size) {
+        return size / 4;
+    }
+
+    private void updateNegligibleModulus() {
+        double maxModulusSquared = 0;
+        for (int t = 0; t < band.length; t += 2) {
+            maxModulusSquared = Math.max(maxModulusSquared, band[t]*band[t] + band[t + 1]*band[t + 1]);
+        }
+        negligibleModulus = size * Math.ulp(1.0) * Math.sqrt(maxModulusSquared);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int getLowerBandwidth() {
+        return lowerBandwidth;
+    }
+
+    public int getUpperBandwidth() {
+        return upperBandwidth;
+    }
+
+    public double getNegligibleModulus() {
+        return negligibleModulus;
+    }
+
+    public double[] getConstantTermsData() {
+        return constants.clone();
+    }
+
+    // position of (row, column), 0-based, in the band array; column within the stored part of the row
+    int index(int row, int column) {
+        int offset = column - row + lowerBandwidth;
+        if (offset < 0 || offset >= rowStride / 2) {
+            throw new IndexOutOfBoundsException("Term " + (row + 1) + ", " + (column + 1) + " is outside the band");
+        }
+        return row * rowStride + 2 * offset;
+    }
+
+    // the band itself, not a copy
+    double[] getBandData() {
+        return band;
+    }
+
+    // tridiagonal with |diagonal| >= |sub-diagonal| + |super-diagonal| in every row, where the
+    // Thomas algorithm needs no pivoting
+    public boolean isDiagonallyDominantTridiagonal() {
+        if (lowerBandwidth > 1 || upperBandwidth > 1) {
+            return false;
+        }
+        for (int i = 0; i < size; i++) {
+            double offDiagonal = 0;
+            if (i > 0 && lowerBandwidth > 0) {
+                offDiagonal += modulus(index(i, i - 1));
+            }
+            if (i < size - 1 && upperBandwidth > 0) {
+                offDiagonal += modulus(index(i, i + 1));
+            }
+            if (modulus(index(i, i)) < offDiagonal) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private double modulus(int index) {
+        return Math.hypot(band[index], band[index + 1]);
+    }
+
+    void checkConstants(double[] constants) {
+        if (constants.length != 2 * size) {
+            throw new InputMismatchException("Constant vector has " + constants.length / 2
+                    + " terms, expected " + size);
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package solver;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+// Solves many systems in one JVM on a fixed pool of workers. Each system is solved
+// single-threaded with its own SystemSolver and no step log; results are written in
+// input order as they complete, with at most a few systems per worker in flight.
+class BatchSolver {
+    private static final int SYSTEMS_IN_FLIGHT_PER_WORKER = 4;
+
+    private final int workers;
+    private final int blockSize;
+    private final String method;
+    private final IterativeSolver iterativeSolver;
+    private final FactorizationCache cache; // null for none
+    private final ParallelEliminator eliminator = new ParallelEliminator(1); // no pool, safe to share
+
+    private final Map<Main.SystemResult, Integer> resultCounts = new EnumMap<>(Main.SystemResult.class);
+
+    public BatchSolver(int workers, int blockSize, String method, IterativeSolver iterativeSolver,
+                       FactorizationCache cache) {
+        if (workers < 1) {
+            throw new IllegalArgumentException("Invalid number of workers: " + workers);
+        }
+        this.workers = workers;
+        this.blockSize = blockSize;
+        this.method = method;
+        this.iterativeSolver = iterativeSolver;
+        this.cache = cache;
+    }
+
+    // every file of inputDirectory, in name order, to a file of the same name in outputDirectory
+    public void solveDirectory(File inputDirectory, File outputDirectory) throws IOException {
+        File[] inputFiles = inputDirectory.listFiles(File::isFile);
+        if (inputFiles == null) {
+            throw new IOException("Cannot list " + inputDirectory);
+        }
+        Arrays.sort(inputFiles);
+        if (!outputDirectory.isDirectory() && !outputDirectory.mkdirs()) {
+            throw new IOException("Cannot create " + outputDirectory);
+        }
+
+        int[] next = {0};
+        run(() -> {
+            if (next[0] == inputFiles.length) {
+                return null;
+            }
+            File inputFile = inputFiles[next[0]++];
+            return () -> solve(inputFile);
+        }, (index, solution) -> {
+            File outputFile = new File(outputDirectory, inputFiles[index].getName());
+            try (PrintWriter printWriter = new PrintWriter(new BufferedWriter(new FileWriter(outputFile)))) {
+                Main.writeResult(printWriter, solution.getSolution(), solution.getResult());
+            }
+        });
+    }
+
+    // dense systems one after another in one file, each a header line and all of its terms;
+    // results go to outputFile in the same order, separated by blank lines
+    public void solveConcatenated(File inputFile, File outputFile) throws IOException {
+        try (MatrixReader reader = new MatrixReader(new FileInputStream(inputFile));
+             PrintWriter printWriter = new PrintWriter(new BufferedWriter(new FileWriter(outputFile)))) {
+            run(() -> {
+                Matrix system = Matrix.read(reader); // parsed here, in order; solved on the workers
+                if (system == null) {
+                    return null;
+                }
+                return () -> newSolver().solve(system);
+            }, (index, solution) -> {
+                if (index > 0) {
+                    printWriter.println();
+                }
+                Main.writeResult(printWriter, solution.getSolution(), solution.getResult());
+                printWriter.println();
+            });
+        }
+    }
+
+    private SystemSolution solve(File inputFile) throws IOException {
+        SystemSolver solver = newSolver();
+        if (BinaryMatrixFile.isBinaryFile(inputFile)) {
+            return solver.solve(BinaryMatrixFile.readSystem(inputFile));
+        }
+        if (SparseMatrix.isSparseFile(inputFile)) {
+            return solver.solve(new SparseMatrix(inputFile));
+        }
+        return solver.solve(new Matrix(inputFile));
+    }
+
+    private SystemSolver newSolver() {
+        return new SystemSolver(eliminator, blockSize, method, iterativeSolver, SolveLog.SILENT, cache);
+    }
+
+    private void run(SystemSource source, ResultSink sink) throws IOException {
+        ExecutorService pool = Executors.newFixedThreadPool(workers);
+        ArrayDeque<Future<SystemSolution>> inFlight = new ArrayDeque<>();
+        int submitted = 0;
+        int written = 0;
+        long start = System.nanoTime();
+        try {
+            while (true) {
+                Callable<SystemSolution> task = inFlight.size() < workers * SYSTEMS_IN_FLIGHT_PER_WORKER
+                        ? source.next() : null;
+                if (task != null) {
+                    inFlight.add(pool.submit(task));
+                    submitted++;
+                    continue;
+                }
+                if (inFlight.isEmpty()) {
+                    break;
+                }
+                SystemSolution solution = await(inFlight.poll(), written);
+                resultCounts.merge(solution.getResult(), 1, Integer::sum);
+                sink.write(written++, solution);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("Solved %d systems in %.3f s on %d workers: %.1f systems/s\n",
+                submitted, seconds, workers, submitted / seconds);
+        System.out.println(resultCounts);
+        if (cache != null) {
+            System.out.println(cache.getStatistics());
+        }
+    }
+
+    // a system that fails to load or solve is reported and written as an error, the batch goes on
+    private static SystemSolution await(Future<SystemSolution> future, int index) {
+        try {
+            return future.get();
+        } catch (ExecutionException failure) {
+            System.out.println("System " + (index + 1) + ": " + failure.getCause());
+        } catch (InterruptedException interrupted) {
+            Thread.currentThread().interrupt();
+            System.out.println("System " + (index + 1) + ": interrupted");
+        }
+        return new SystemSolution(Main.SystemResult.error, null);
+    }
+
+    private interface SystemSource {
+        Callable<SystemSolution> next() throws IOException; // null when there are no more systems
+    }
+
+    private interface ResultSink {
+        void write(int index, SystemSolution solution) throws IOException;
+    }
+}
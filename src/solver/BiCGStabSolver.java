@@ -0,0 +1,90 @@
+package solver;
+
+// BiCGSTAB for general non-Hermitian systems, right-preconditioned by the diagonal when
+// asked to. Inner products conjugate their first argument.
+class BiCGStabSolver extends IterativeSolver {
+
+    public BiCGStabSolver(double tolerance, int maxIterations, boolean diagonalPreconditioner) {
+        super(tolerance, maxIterations, diagonalPreconditioner);
+    }
+
+    @Override
+    protected IterativeResult iterate(LinearOperator operator, double[] constants, double[] x) {
+        int length = x.length;
+        double[] inverseDiagonal = inverseDiagonal(operator);
+        double constantsNorm = norm(constants);
+        if (constantsNorm == 0) {
+            constantsNorm = 1;
+        }
+
+        double[] residual = new double[length];
+        if (relativeResidual(operator, constants, x, residual) <= tolerance) {
+            return result(operator, constants, x, 0);
+        }
+        double[] shadow = residual.clone();
+        double[] direction = new double[length];
+        double[] preconditionedDirection = new double[length];
+        double[] v = new double[length];
+        double[] s = new double[length];
+        double[] preconditionedS = new double[length];
+        double[] t = new double[length];
+
+        ComplexNumber rho = new ComplexNumber(1, 0);
+        ComplexNumber alpha = new ComplexNumber(1, 0);
+        ComplexNumber omega = new ComplexNumber(1, 0);
+
+        for (int iteration = 1; iteration <= maxIterations; iteration++) {
+            ComplexNumber nextRho = dot(shadow, residual);
+            if (nextRho.isZero()) {
+                return result(operator, constants, x, iteration); // breakdown
+            }
+
+            // p = r + beta (p - omega v)
+            ComplexNumber beta = nextRho.divideBy(rho).multiplyBy(alpha.divideBy(omega));
+            rho = nextRho;
+            axpy(omega.negative(), v, direction);
+            for (int i = 0; i < length; i += 2) {
+                double re = direction[i];
+                double im = direction[i + 1];
+                direction[i]     = residual[i]     + re*beta.getReal() - im*beta.getImaginary();
+                direction[i + 1] = residual[i + 1] + re*beta.getImaginary() + im*beta.getReal();
+            }
+
+            precondition(inverseDiagonal, direction, preconditionedDirection);
+            operator.apply(preconditionedDirection, v);
+            ComplexNumber shadowV = dot(shadow, v);
+            if (shadowV.isZero()) {
+                return result(operator, constants, x, iteration);
+            }
+            alpha = rho.divideBy(shadowV);
+
+            // s = r - alpha v
+            System.arraycopy(residual, 0, s, 0, length);
+            axpy(alpha.negative(), v, s);
+            if (norm(s) / constantsNorm <= tolerance) {
+                axpy(alpha, preconditionedDirection, x);
+                return result(operator, constants, x, iteration);
+            }
+
+            precondition(inverseDiagonal, s, preconditionedS);
+            operator.apply(preconditionedS, t);
+            ComplexNumber tt = dot(t, t);
+            if (tt.isZero()) {
+                axpy(alpha, preconditionedDirection, x);
+                return result(operator, constants, x, iteration);
+            }
+            omega = dot(t, s).divideBy(tt);
+
+            axpy(alpha, preconditionedDirection, x);
+            axpy(omega, preconditionedS, x);
+
+            // r = s - omega t
+            System.arraycopy(s, 0, residual, 0, length);
+            axpy(omega.negative(), t, residual);
+            if (norm(residual) / constantsNorm <= tolerance || omega.isZero()) {
+                return result(operator, constants, x, iteration);
+            }
+        }
+        return result(operator, constants, x, maxIterations);
+    }
+}
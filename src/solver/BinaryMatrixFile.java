@@ -0,0 +1,348 @@
+package solver;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintWriter;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.InputMismatchException;
+
+// Binary systems and solutions, read and written through memory-mapped FileChannels:
+//
+//   0   "CXLS"
+//   4   format version, 1
+//   5   byte order of everything after the first 8 bytes: 0 little-endian, 1 big-endian
+//   6   content: 0 a system, 1 a solution
+//   7   1 for complex terms as (re, im) pairs, 0 for real terms as one double each
+//   8   int: number of variables
+//   12  int: number of equations of a system, Main.SystemResult ordinal of a solution
+//   16  doubles: a system's augmented rows one after another, or a solution's values
+//       (none unless solved)
+//
+// Complex data has exactly the layout of Matrix storage, so reading it is a bulk copy from
+// the mapping into the array the Matrix then wraps.
+final class BinaryMatrixFile {
+    private static final byte[] MAGIC = {'C', 'X', 'L', 'S'};
+    private static final byte VERSION = 1;
+    private static final byte SYSTEM = 0;
+    private static final byte SOLUTION = 1;
+    private static final int HEADER_SIZE = 16;
+    private static final long MAX_MAPPING_SIZE = 1L << 30; // bytes per mapping; one can be at most 2 GiB
+
+    private BinaryMatrixFile() {
+    }
+
+    public static boolean isBinaryFile(File file) {
+        try (InputStream input = new FileInputStream(file)) {
+            return Arrays.equals(input.readNBytes(MAGIC.length), MAGIC);
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    public static Matrix readSystem(File file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            Header header = readHeader(channel, SYSTEM);
+            int numOfVariables = header.numOfVariables;
+            int numOfEquations = header.count;
+            if (numOfVariables < 1 || numOfEquations < 1) {
+                throw new IndexOutOfBoundsException("Invalid matrix size: " + numOfVariables + "x" + numOfEquations);
+            }
+            double[] augmentedData = new double[2 * (numOfVariables + 1) * numOfEquations];
+            readTerms(channel, header, augmentedData);
+            return new Matrix(numOfVariables, numOfEquations, augmentedData);
+        }
+    }
+
+    // rows of a binary system one at a time, mapping a window of whole rows at a time
+    public static RowReader openRows(File file) throws IOException {
+        FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+        Header header;
+        try {
+            header = readHeader(channel, SYSTEM);
+            if (header.numOfVariables < 1 || header.count < 1) {
+                throw new IndexOutOfBoundsException("Invalid matrix size: " + header.numOfVariables + "x" + header.count);
+            }
+        } catch (IOException | RuntimeException headerError) {
+            channel.close();
+            throw headerError;
+        }
+
+        int valuesPerRow = (header.complex ? 2 : 1) * (header.numOfVariables + 1);
+        long rowsPerMapping = Math.max(1, MAX_MAPPING_SIZE / (8L * valuesPerRow));
+        return new RowReader() {
+            private DoubleBuffer mapped;
+            private long nextRow;
+
+            @Override
+            public int getNumOfVariables() {
+                return header.numOfVariables;
+            }
+
+            @Override
+            public int getNumOfEquations() {
+                return header.count;
+            }
+
+            @Override
+            public void readRow(double[] row) throws IOException {
+                if (mapped == null || !mapped.hasRemaining()) {
+                    long rows = Math.min(rowsPerMapping, header.count - nextRow);
+                    long offset = HEADER_SIZE + 8L * valuesPerRow * nextRow;
+                    if (rows <= 0 || channel.size() < offset + 8L * valuesPerRow * rows) {
+                        throw new InputMismatchException("File ends after " + nextRow + " of " + header.count + " rows");
+                    }
+                    mapped = channel.map(FileChannel.MapMode.READ_ONLY, offset, 8L * valuesPerRow * rows)
+                            .order(header.order).asDoubleBuffer();
+                }
+                if (header.complex) {
+                    mapped.get(row, 0, valuesPerRow);
+                } else {
+                    for (int index = 0; index < 2 * valuesPerRow; index += 2) {
+                        row[index] = mapped.get();
+                        row[index + 1] = 0;
+                    }
+                }
+                nextRow++;
+            }
+
+            @Override
+            public void close() throws IOException {
+                channel.close();
+            }
+        };
+    }
+
+    // real when no term has an imaginary part, which halves the file
+    public static void writeSystem(File file, Matrix system) throws IOException {
+        int numOfVariables = system.getMatrixNumOfVariables();
+        int numOfEquations = system.getMatrixNumOfEquations();
+        double[] augmentedData = new double[2 * (numOfVariables + 1) * numOfEquations];
+        int rowStride = 2 * (numOfVariables + 1);
+        for (int row = 1; row <= numOfEquations; row++) {
+            LinearEquation equation = system.getRow(row); // current row order, not storage order
+            for (int column = 1; column <= numOfVariables + 1; column++) {
+                int index = (row - 1) * rowStride + 2 * (column - 1);
+                augmentedData[index]     = equation.getReal(column);
+                augmentedData[index + 1] = equation.getImaginary(column);
+            }
+        }
+        write(file, SYSTEM, numOfVariables, numOfEquations, augmentedData);
+    }
+
+    public static SystemSolution readSolution(File file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            Header header = readHeader(channel, SOLUTION);
+            Main.SystemResult[] results = Main.SystemResult.values();
+            if (header.count < 0 || header.count >= results.length) {
+                throw new InputMismatchException("Invalid solution result: " + header.count);
+            }
+            Main.SystemResult result = results[header.count];
+            if (result != Main.SystemResult.solved) {
+                return new SystemSolution(result, null);
+            }
+            double[] solution = new double[2 * header.numOfVariables];
+            readTerms(channel, header, solution);
+            return new SystemSolution(result, solution);
+        }
+    }
+
+    // solution holds interleaved (re, im) values, null unless solved
+    public static void writeSolution(File file, double[] solution, Main.SystemResult result) throws IOException {
+        if (result != Main.SystemResult.solved) {
+            solution = new double[0];
+        }
+        write(file, SOLUTION, solution.length / 2, result.ordinal(), solution);
+    }
+
+    // a system, or a solution, in the text format; lossless, every double keeps its digits
+    public static void convertToText(File binaryFile, File textFile) throws IOException {
+        Header header;
+        try (FileChannel channel = FileChannel.open(binaryFile.toPath(), StandardOpenOption.READ)) {
+            header = readHeader(channel, -1);
+        }
+        try (PrintWriter printWriter = new PrintWriter(textFile)) {
+            if (header.content == SOLUTION) {
+                SystemSolution solution = readSolution(binaryFile);
+                Main.writeResult(printWriter, solution.getSolution(), solution.getResult());
+                return;
+            }
+
+            Matrix system = readSystem(binaryFile);
+            int numOfVariables = system.getMatrixNumOfVariables();
+            int numOfEquations = system.getMatrixNumOfEquations();
+            printWriter.println(numOfVariables + " " + numOfEquations);
+            StringBuilder line = new StringBuilder();
+            for (int row = 1; row <= numOfEquations; row++) {
+                LinearEquation equation = system.getRow(row);
+                line.setLength(0);
+                for (int column = 1; column <= numOfVariables + 1; column++) {
+                    if (column > 1) {
+                        line.append(' ');
+                    }
+                    appendTerm(line, equation.getReal(column), equation.getImaginary(column));
+                }
+                printWriter.println(line);
+            }
+        }
+    }
+
+    // a dense or sparse text system; sparse ones are written dense
+    public static void convertToBinary(File textFile, File binaryFile) throws IOException {
+        if (SparseMatrix.isSparseFile(textFile)) {
+            writeSystem(binaryFile, new SparseMatrix(textFile).toMatrix());
+            return;
+        }
+        try (MatrixReader reader = new MatrixReader(new FileInputStream(textFile))) {
+            Matrix system = Matrix.read(reader);
+            if (system == null) {
+                throw new InputMismatchException("No system in " + textFile);
+            }
+            writeSystem(binaryFile, system);
+        }
+    }
+
+    private static void write(File file, byte content, int numOfVariables, int count, double[] data)
+            throws IOException {
+        boolean complex = false;
+        for (int i = 1; i < data.length; i += 2) {
+            if (data[i] != 0) {
+                complex = true;
+                break;
+            }
+        }
+        ByteOrder order = ByteOrder.nativeOrder();
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(order);
+        header.put(MAGIC).put(VERSION).put(order == ByteOrder.BIG_ENDIAN ? (byte) 1 : (byte) 0)
+                .put(content).put(complex ? (byte) 1 : (byte) 0)
+                .putInt(numOfVariables).putInt(count);
+        header.flip();
+
+        long numOfDoubles = complex ? data.length : data.length / 2;
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            while (header.hasRemaining()) {
+                channel.write(header, header.position());
+            }
+            long end = HEADER_SIZE + 8 * numOfDoubles;
+            int index = 0;
+            for (long offset = HEADER_SIZE; offset < end; offset += MAX_MAPPING_SIZE) {
+                DoubleBuffer mapped = channel.map(FileChannel.MapMode.READ_WRITE, offset, Math.min(MAX_MAPPING_SIZE, end - offset))
+                        .order(order).asDoubleBuffer();
+                if (complex) {
+                    int numOfValues = mapped.remaining();
+                    mapped.put(data, index, numOfValues);
+                    index += numOfValues;
+                } else {
+                    while (mapped.hasRemaining()) {
+                        mapped.put(data[index]); // real parts only
+                        index += 2;
+                    }
+                }
+            }
+        }
+    }
+
+    // fills destination, interleaved (re, im), from the data after the header
+    private static void readTerms(FileChannel channel, Header header, double[] destination) throws IOException {
+        long numOfDoubles = header.complex ? destination.length : destination.length / 2;
+        long end = HEADER_SIZE + 8 * numOfDoubles;
+        if (channel.size() < end) {
+            throw new InputMismatchException("File ends after " + (channel.size() - HEADER_SIZE) / 8
+                    + " of " + numOfDoubles + " values");
+        }
+        int index = 0;
+        for (long offset = HEADER_SIZE; offset < end; offset += MAX_MAPPING_SIZE) {
+            DoubleBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, offset, Math.min(MAX_MAPPING_SIZE, end - offset))
+                    .order(header.order).asDoubleBuffer();
+            if (header.complex) {
+                int numOfValues = mapped.remaining();
+                mapped.get(destination, index, numOfValues);
+                index += numOfValues;
+            } else {
+                while (mapped.hasRemaining()) {
+                    destination[index] = mapped.get(); // imaginary parts stay zero
+                    index += 2;
+                }
+            }
+        }
+    }
+
+    // expectedContent -1 accepts either
+    private static Header readHeader(FileChannel channel, int expectedContent) throws IOException {
+        ByteBuffer bytes = ByteBuffer.allocate(HEADER_SIZE);
+        while (bytes.hasRemaining()) {
+            if (channel.read(bytes, bytes.position()) < 0) {
+                throw new InputMismatchException("Binary header too short");
+            }
+        }
+        bytes.flip();
+        byte[] magic = new byte[MAGIC.length];
+        bytes.get(magic);
+        if (!Arrays.equals(magic, MAGIC)) {
+            throw new InputMismatchException("Not a binary system or solution file");
+        }
+        byte version = bytes.get();
+        if (version != VERSION) {
+            throw new InputMismatchException("Unsupported binary format version: " + version);
+        }
+
+        Header header = new Header();
+        header.order = bytes.get() == 1 ? ByteOrder.BIG_ENDIAN : ByteOrder.LITTLE_ENDIAN;
+        header.content = bytes.get();
+        if (header.content != SYSTEM && header.content != SOLUTION
+                || expectedContent != -1 && header.content != expectedContent) {
+            throw new InputMismatchException("Unexpected binary content: " + header.content);
+        }
+        header.complex = bytes.get() == 1;
+        bytes.order(header.order);
+        header.numOfVariables = bytes.getInt();
+        header.count = bytes.getInt();
+        if (header.numOfVariables < 0) {
+            throw new IndexOutOfBoundsException("Invalid matrix size: " + header.numOfVariables);
+        }
+        return header;
+    }
+
+    // shortest digits that read back as the same double, without an exponent, which the
+    // text format does not have
+    private static void appendTerm(StringBuilder text, double re, double im) {
+        // only +0.0 is left out: -0.0 is written, so it reads back as -0.0
+        if (Double.doubleToRawLongBits(im) == 0) {
+            text.append(plain(re));
+            return;
+        }
+        if (Double.doubleToRawLongBits(re) != 0) {
+            text.append(plain(re));
+            if (im > 0) {
+                text.append('+');
+            }
+        }
+        text.append(plain(im)).append('i');
+    }
+
+    private static String plain(double value) {
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            throw new InputMismatchException("Cannot write " + value + " in the text format");
+        }
+        if (value == 0) {
+            return Double.toString(value); // BigDecimal has no -0
+        }
+        return new BigDecimal(Double.toString(value)).toPlainString();
+    }
+
+    private static class Header {
+        ByteOrder order;
+        byte content;
+        boolean complex;
+        int numOfVariables;
+        int count; // equations of a system, result of a solution
+    }
+}
@@ -0,0 +1,95 @@
+package solver;
+
+// 2-D block-cyclic distribution of an n x n matrix over a P x Q grid of processes, as in
+// ScaLAPACK: nb x nb block (I, J) lives on process (I mod P, J mod Q), and each process keeps
+// its blocks packed row-major in the order they appear. Process (row, column) has rank
+// row * Q + column.
+class BlockCyclicLayout {
+    private final int size;
+    private final int blockSize;
+    private final int gridRows;
+    private final int gridColumns;
+
+    public BlockCyclicLayout(int size, int blockSize, int gridRows, int gridColumns) {
+        if (size < 1 || blockSize < 1 || gridRows < 1 || gridColumns < 1) {
+            throw new IllegalArgumentException("Invalid layout: size " + size + ", block " + blockSize
+                    + ", grid " + gridRows + "x" + gridColumns);
+        }
+        this.size = size;
+        this.blockSize = blockSize;
+        this.gridRows = gridRows;
+        this.gridColumns = gridColumns;
+    }
+
+    // the most nearly square P x Q = numOfProcesses, P <= Q
+    public static BlockCyclicLayout forProcesses(int size, int blockSize, int numOfProcesses) {
+        int gridRows = (int) Math.sqrt(numOfProcesses);
+        while (numOfProcesses % gridRows != 0) {
+            gridRows--;
+        }
+        return new BlockCyclicLayout(size, blockSize, gridRows, numOfProcesses / gridRows);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int getBlockSize() {
+        return blockSize;
+    }
+
+    public int getGridRows() {
+        return gridRows;
+    }
+
+    public int getGridColumns() {
+        return gridColumns;
+    }
+
+    public int getNumOfBlocks() {
+        return (size + blockSize - 1) / blockSize;
+    }
+
+    public int rank(int gridRow, int gridColumn) {
+        return gridRow * gridColumns + gridColumn;
+    }
+
+    public int rowOwner(int row) {
+        return (row / blockSize) % gridRows;
+    }
+
+    public int columnOwner(int column) {
+        return (column / blockSize) % gridColumns;
+    }
+
+    // of the first `boundary` rows, how many process row gridRow holds; also the local index of
+    // the first of its rows at or after boundary
+    public int localRows(int boundary, int gridRow) {
+        return numroc(boundary, gridRow, gridRows);
+    }
+
+    public int localColumns(int boundary, int gridColumn) {
+        return numroc(boundary, gridColumn, gridColumns);
+    }
+
+    public int globalRow(int gridRow, int localRow) {
+        return ((localRow / blockSize) * gridRows + gridRow) * blockSize + localRow % blockSize;
+    }
+
+    public int globalColumn(int gridColumn, int localColumn) {
+        return ((localColumn / blockSize) * gridColumns + gridColumn) * blockSize + localColumn % blockSize;
+    }
+
+    // ScaLAPACK's NUMROC: indices among 0..count-1 dealt to process `process` of `processes`
+    private int numroc(int count, int process, int processes) {
+        int wholeBlocks = count / blockSize;
+        int local = (wholeBlocks / processes) * blockSize;
+        int extraBlocks = wholeBlocks % processes;
+        if (process < extraBlocks) {
+            local += blockSize;
+        } else if (process == extraBlocks) {
+            local += count % blockSize;
+        }
+        return local;
+    }
+}
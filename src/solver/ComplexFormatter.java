@@ -0,0 +1,79 @@
+package solver;
+
+import java.text.DecimalFormat;
+import java.text.FieldPosition;
+import java.util.HashMap;
+import java.util.Map;
+
+// Text of complex numbers appended to a caller's StringBuilder, the same text ComplexNumber's
+// toString methods give but without a String per part: StringBuilder.append(double) writes
+// the digits of Double.toString straight into the builder. Those digits read back to the same
+// double on every JDK, though before JDK 19 they are not always the shortest that do.
+// Fixed-decimal patterns keep one DecimalFormat per pattern and thread, as DecimalFormat is
+// costly to build and not thread-safe.
+final class ComplexFormatter {
+    public static final String SHORT_PATTERN = "#0.0";
+    public static final String RESULT_PATTERN = "#0.000";
+
+    private static final ThreadLocal<Formats> FORMATS = ThreadLocal.withInitial(Formats::new);
+
+    private ComplexFormatter() {
+    }
+
+    // as toString(): "re+imi" with zero parts left out, all digits
+    public static StringBuilder append(StringBuilder text, double re, double im) {
+        if (re != 0) {
+            text.append(re + 0.0); // + 0.0 turns -0 into 0
+        }
+        if (im > 0) {
+            text.append('+');
+        }
+        if (im == 1) {
+            text.append('i');
+        } else if (im == -1) {
+            text.append("-i");
+        } else if (im != 0) {
+            text.append(im + 0.0).append('i');
+        }
+        return text;
+    }
+
+    // as toString(pattern, printZeroTerms): a sign or space before the real part, so columns line up
+    public static StringBuilder append(StringBuilder text, double re, double im, String pattern, boolean printZeroTerms) {
+        if (printZeroTerms || re != 0) {
+            text.append(re >= 0 ? ' ' : '-');
+            appendDecimal(text, re < 0 ? (-re + 0.0) : (re + 0.0), pattern);
+        }
+        if (printZeroTerms || im != 0) {
+            if (im >= 0) {
+                text.append('+');
+            }
+            if (im == 1) {
+                text.append('i');
+            } else if (im == -1) {
+                text.append("-i");
+            } else {
+                appendDecimal(text, im + 0.0, pattern).append('i');
+            }
+        }
+        return text;
+    }
+
+    public static String toString(double re, double im, String pattern, boolean printZeroTerms) {
+        return append(new StringBuilder(24), re, im, pattern, printZeroTerms).toString();
+    }
+
+    private static StringBuilder appendDecimal(StringBuilder text, double value, String pattern) {
+        Formats formats = FORMATS.get();
+        formats.digits.setLength(0);
+        formats.byPattern.computeIfAbsent(pattern, DecimalFormat::new).format(value, formats.digits, formats.field);
+        return text.append(formats.digits);
+    }
+
+    // one thread's formats, and what DecimalFormat writes into
+    private static class Formats {
+        final Map<String, DecimalFormat> byPattern = new HashMap<>();
+        final StringBuffer digits = new StringBuffer(32);
+        final FieldPosition field = new FieldPosition(0);
+    }
+}
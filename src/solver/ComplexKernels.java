@@ -0,0 +1,179 @@
+package solver;
+
+// Row kernels on interleaved (re, im) data, and on plain real rows: the inner loops of
+// elimination, LU and substitution. Vectorized through jdk.incubator.vector when the JVM
+// was started with --add-modules jdk.incubator.vector, scalar otherwise; -Dsolver.scalar=true
+// forces scalar. axpy and scale give the same bits either way, since each lane does the same
+// multiplies and adds in the same order and neither fuses them. dot sums in lanes, so its
+// last bits differ.
+final class ComplexKernels {
+    private static final boolean VECTORIZED = vectorApiAvailable();
+
+    private ComplexKernels() {
+    }
+
+    public static boolean isVectorized() {
+        return VECTORIZED;
+    }
+
+    // y += (re + im*i) * x over length doubles (length / 2 complex terms)
+    public static void axpy(double re, double im, double[] x, int xOffset, double[] y, int yOffset, int length) {
+        if (VECTORIZED) {
+            VectorComplexKernels.axpy(re, im, x, xOffset, y, yOffset, length);
+        } else {
+            scalarAxpy(re, im, x, xOffset, y, yOffset, length);
+        }
+    }
+
+    // x *= (re + im*i), in place
+    public static void scale(double re, double im, double[] x, int offset, int length) {
+        if (VECTORIZED) {
+            VectorComplexKernels.scale(re, im, x, offset, length);
+        } else {
+            scalarScale(re, im, x, offset, length);
+        }
+    }
+
+    // sum of a * x into result[index], result[index + 1]; not conjugated
+    public static void dot(double[] a, int aOffset, double[] x, int xOffset, int length, double[] result, int index) {
+        if (VECTORIZED) {
+            VectorComplexKernels.dot(a, aOffset, x, xOffset, length, result, index);
+        } else {
+            scalarDot(a, aOffset, x, xOffset, length, result, index);
+        }
+    }
+
+    // sum of a * conj(x), for the Hermitian factorizations
+    public static void dotConjugated(double[] a, int aOffset, double[] x, int xOffset, int length, double[] result, int index) {
+        if (VECTORIZED) {
+            VectorComplexKernels.dotConjugated(a, aOffset, x, xOffset, length, result, index);
+        } else {
+            scalarDotConjugated(a, aOffset, x, xOffset, length, result, index);
+        }
+    }
+
+    // real rows, for RealSystemSolver: y += factor * x over length doubles
+    public static void axpy(double factor, double[] x, int xOffset, double[] y, int yOffset, int length) {
+        if (VECTORIZED) {
+            VectorComplexKernels.axpy(factor, x, xOffset, y, yOffset, length);
+        } else {
+            scalarAxpy(factor, x, xOffset, y, yOffset, length);
+        }
+    }
+
+    // real rows: x *= factor, in place
+    public static void scale(double factor, double[] x, int offset, int length) {
+        if (VECTORIZED) {
+            VectorComplexKernels.scale(factor, x, offset, length);
+        } else {
+            scalarScale(factor, x, offset, length);
+        }
+    }
+
+    // single precision, for FloatLUDecomposition; twice the terms per vector
+    public static void axpy(float re, float im, float[] x, int xOffset, float[] y, int yOffset, int length) {
+        if (VECTORIZED) {
+            VectorComplexKernels.axpy(re, im, x, xOffset, y, yOffset, length);
+        } else {
+            scalarAxpy(re, im, x, xOffset, y, yOffset, length);
+        }
+    }
+
+    public static void dot(float[] a, int aOffset, float[] x, int xOffset, int length, float[] result, int index) {
+        if (VECTORIZED) {
+            VectorComplexKernels.dot(a, aOffset, x, xOffset, length, result, index);
+        } else {
+            scalarDot(a, aOffset, x, xOffset, length, result, index);
+        }
+    }
+
+    static void scalarAxpy(double re, double im, double[] x, int xOffset, double[] y, int yOffset, int length) {
+        for (int t = 0; t < length; t += 2) {
+            double xRe = x[xOffset + t];
+            double xIm = x[xOffset + t + 1];
+            y[yOffset + t]     += xRe*re - xIm*im;
+            y[yOffset + t + 1] += xRe*im + xIm*re;
+        }
+    }
+
+    static void scalarScale(double re, double im, double[] x, int offset, int length) {
+        for (int t = offset; t < offset + length; t += 2) {
+            double termRe = x[t];
+            double termIm = x[t + 1];
+            x[t]     = termRe*re - termIm*im;
+            x[t + 1] = termRe*im + termIm*re;
+        }
+    }
+
+    static void scalarDot(double[] a, int aOffset, double[] x, int xOffset, int length, double[] result, int index) {
+        double re = 0;
+        double im = 0;
+        for (int t = 0; t < length; t += 2) {
+            double aRe = a[aOffset + t];
+            double aIm = a[aOffset + t + 1];
+            re += aRe*x[xOffset + t] - aIm*x[xOffset + t + 1];
+            im += aRe*x[xOffset + t + 1] + aIm*x[xOffset + t];
+        }
+        result[index] = re;
+        result[index + 1] = im;
+    }
+
+    static void scalarDotConjugated(double[] a, int aOffset, double[] x, int xOffset, int length, double[] result, int index) {
+        double re = 0;
+        double im = 0;
+        for (int t = 0; t < length; t += 2) {
+            double aRe = a[aOffset + t];
+            double aIm = a[aOffset + t + 1];
+            re += aRe*x[xOffset + t] + aIm*x[xOffset + t + 1];
+            im += aIm*x[xOffset + t] - aRe*x[xOffset + t + 1];
+        }
+        result[index] = re;
+        result[index + 1] = im;
+    }
+
+    static void scalarAxpy(double factor, double[] x, int xOffset, double[] y, int yOffset, int length) {
+        for (int t = 0; t < length; t++) {
+            y[yOffset + t] += factor * x[xOffset + t];
+        }
+    }
+
+    static void scalarScale(double factor, double[] x, int offset, int length) {
+        for (int t = offset; t < offset + length; t++) {
+            x[t] *= factor;
+        }
+    }
+
+    static void scalarAxpy(float re, float im, float[] x, int xOffset, float[] y, int yOffset, int length) {
+        for (int t = 0; t < length; t += 2) {
+            float xRe = x[xOffset + t];
+            float xIm = x[xOffset + t + 1];
+            y[yOffset + t]     += xRe*re - xIm*im;
+            y[yOffset + t + 1] += xRe*im + xIm*re;
+        }
+    }
+
+    static void scalarDot(float[] a, int aOffset, float[] x, int xOffset, int length, float[] result, int index) {
+        float re = 0;
+        float im = 0;
+        for (int t = 0; t < length; t += 2) {
+            float aRe = a[aOffset + t];
+            float aIm = a[aOffset + t + 1];
+            re += aRe*x[xOffset + t] - aIm*x[xOffset + t + 1];
+            im += aRe*x[xOffset + t + 1] + aIm*x[xOffset + t];
+        }
+        result[index] = re;
+        result[index + 1] = im;
+    }
+
+    // loading VectorComplexKernels fails with a LinkageError when the module is not there
+    private static boolean vectorApiAvailable() {
+        if (Boolean.getBoolean("solver.scalar")) {
+            return false;
+        }
+        try {
+            return VectorComplexKernels.isSupported();
+        } catch (LinkageError missing) {
+            return false;
+        }
+    }
+}
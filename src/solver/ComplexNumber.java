@@ -1,10 +1,5 @@
 package solver;
 
-import java.text.DecimalFormat;
-import java.util.Scanner;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
-
 public class ComplexNumber {
 
     private double real;
@@ -20,31 +15,10 @@ public class ComplexNumber {
     }
 
     public ComplexNumber(String input) {
-        String pattern = "^(?=[iI.\\d+-\\\\(])[\\(]?([+]?([-]?\\d*\\.?\\d*))??(([+])?([-]?\\d*\\.?\\d*)([i]))??[\\)]?$";
-
-        Pattern cn = Pattern.compile(pattern);
-        Matcher matcher  = cn.matcher(input);
-
-        if (matcher.find()) {
-            // real number
-            if (matcher.group(2) == null) {
-                this.real = 0;
-            } else {
-                this.real = Double.parseDouble(matcher.group(2));
-            }
-
-            // imaginary number
-            if (matcher.group(6) == null) { // if no imaginary number
-                this.imaginary = 0;
-            }
-            else if ("".equals(matcher.group(5)) && matcher.group(6) != null) { // i
-                this.imaginary = 1;
-            } else if ("-".equals(matcher.group(5))) { // -i
-                this.imaginary = -1;
-            } else {
-                this.imaginary = Double.parseDouble(matcher.group(5));
-            }
-        }
+        double[] parsed = new double[2];
+        ComplexNumberParser.parse(input, parsed, 0);
+        this.real = parsed[0];
+        this.imaginary = parsed[1];
     }
 
     public double getReal() {
@@ -121,53 +95,15 @@ public class ComplexNumber {
 
     @Override
     public String toString() {
-        String realString      = this.real == 0 ? ""  : Double.toString(this.real + 0.0);
-        String imaginaryString;
-        if (this.imaginary == -1 || this.imaginary == 1) {
-            imaginaryString = this.imaginary == 1 ? "i" : "-i";
-        } else if (this.imaginary == 0) {
-            imaginaryString = "";
-        } else {
-            imaginaryString = this.imaginary == 0 ? "" : (Double.toString(this.imaginary + 0.0) + "i");
-        }
-
-        String positiveSign = this.imaginary > 0 ? "+" : "";
-
-        return realString + positiveSign + imaginaryString;
+        return ComplexFormatter.append(new StringBuilder(48), real, imaginary).toString();
     }
 
     public String toString(String decimalFormat, boolean printZeroTerms) {
-        DecimalFormat df = new DecimalFormat(decimalFormat);
-        String realString;
-        String imaginaryString;
-
-        // Real number string
-        realString = this.real >= 0 ? " " : "-"; // to keep terms aligned when printing
-        realString +=  df.format(this.real < 0 ? (-this.real + 0.0) : (this.real + 0.0) ); // print absolute value of ral
-
-        // Imaginary number string
-        if (this.imaginary == -1 || this.imaginary == 1) {
-            imaginaryString = this.imaginary == 1 ? "i" : "-i";
-        } else {
-            imaginaryString = df.format(this.imaginary + 0.0) + "i";
-        }
-        String positiveSign = (this.imaginary >= 0) ? "+" : "";
-
-        if (!printZeroTerms) {
-            if (this.real == 0) {
-                realString = "";
-            }
-            if (this.imaginary == 0) {
-                imaginaryString = "";
-                positiveSign = "";
-            }
-        }
-        return realString + positiveSign + imaginaryString;
+        return ComplexFormatter.toString(real, imaginary, decimalFormat, printZeroTerms);
     }
 
     public String toString(boolean printZeroTerms){
-        String defaultFormat = "#0.0";
-        return toString(defaultFormat, printZeroTerms);
+        return toString(ComplexFormatter.SHORT_PATTERN, printZeroTerms);
     }
 }
 class test {
@@ -0,0 +1,137 @@
+package solver;
+
+import java.nio.charset.StandardCharsets;
+
+// Parses complex literals straight from ASCII bytes, accepting the same syntax as the old
+// regex in ComplexNumber(String): an optional '(' and ')', then "a", "a+bi", "a-bi", "bi",
+// "i", "-i" and "a+i", where each number is [-]digits[.digits] and a leading '+' is allowed.
+// Terms that do not fit the syntax read as 0, as they did with the regex.
+final class ComplexNumberParser {
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+    private static final long MAX_EXACT_MANTISSA = 1L << 53;
+
+    private ComplexNumberParser() {
+    }
+
+    public static void parse(String input, double[] destination, int index) {
+        byte[] bytes = input.getBytes(StandardCharsets.ISO_8859_1);
+        parse(bytes, 0, bytes.length, destination, index);
+    }
+
+    // writes (re, im) of bytes[start, end) to destination[index], destination[index + 1]
+    public static void parse(byte[] bytes, int start, int end, double[] destination, int index) {
+        destination[index] = 0;
+        destination[index + 1] = 0;
+
+        if (start < end && bytes[start] == '(') {
+            start++;
+        }
+        if (start < end && bytes[end - 1] == ')') {
+            end--;
+        }
+        if (start >= end) {
+            return;
+        }
+
+        // a lone imaginary term is preferred, like the lazy real group of the regex
+        if (bytes[end - 1] == 'i') {
+            int numberStart = bytes[start] == '+' ? start + 1 : start;
+            if (scanNumber(bytes, numberStart, end - 1) == end - 1) {
+                destination[index + 1] = parseImaginaryCoefficient(bytes, numberStart, end - 1);
+                return;
+            }
+        }
+
+        int realStart = start < end && bytes[start] == '+' ? start + 1 : start;
+        int realEnd = scanNumber(bytes, realStart, end);
+        if (realEnd == end) {
+            destination[index] = parseNumber(bytes, realStart, realEnd);
+            return;
+        }
+
+        // what is left has to be [+][-]digits[.digits]i
+        if (bytes[end - 1] != 'i') {
+            return;
+        }
+        int imaginaryStart = bytes[realEnd] == '+' ? realEnd + 1 : realEnd;
+        if (scanNumber(bytes, imaginaryStart, end - 1) != end - 1) {
+            return;
+        }
+        destination[index] = parseNumber(bytes, realStart, realEnd);
+        destination[index + 1] = parseImaginaryCoefficient(bytes, imaginaryStart, end - 1);
+    }
+
+    // end of the longest [-]\d*\.?\d* prefix of bytes[start, end)
+    private static int scanNumber(byte[] bytes, int start, int end) {
+        int i = start;
+        if (i < end && bytes[i] == '-') {
+            i++;
+        }
+        while (i < end && isDigit(bytes[i])) {
+            i++;
+        }
+        if (i < end && bytes[i] == '.') {
+            i++;
+        }
+        while (i < end && isDigit(bytes[i])) {
+            i++;
+        }
+        return i;
+    }
+
+    // "" is i and "-" is -i
+    private static double parseImaginaryCoefficient(byte[] bytes, int start, int end) {
+        if (start == end) {
+            return 1;
+        }
+        if (end - start == 1 && bytes[start] == '-') {
+            return -1;
+        }
+        return parseNumber(bytes, start, end);
+    }
+
+    // [-]\d*\.?\d*, correctly rounded
+    static double parseNumber(byte[] bytes, int start, int end) {
+        boolean negative = start < end && bytes[start] == '-';
+        long mantissa = 0;
+        int exponent = 0;
+        boolean afterDot = false;
+        boolean hasDigits = false;
+        boolean exact = true;
+        for (int i = negative ? start + 1 : start; i < end; i++) {
+            if (bytes[i] == '.') { // scanNumber allows at most one
+                afterDot = true;
+                continue;
+            }
+            hasDigits = true;
+            if (mantissa >= MAX_EXACT_MANTISSA) {
+                exact = false;
+                break;
+            }
+            mantissa = mantissa * 10 + (bytes[i] - '0');
+            if (afterDot) {
+                exponent--;
+            }
+        }
+
+        String text;
+        if (!hasDigits) {
+            text = new String(bytes, start, end - start, StandardCharsets.ISO_8859_1);
+            throw new NumberFormatException("Invalid number: \"" + text + "\"");
+        }
+        if (exact && mantissa <= MAX_EXACT_MANTISSA && exponent >= -22) {
+            // mantissa and 10^-exponent are exact doubles, so a single rounding gives the correct result
+            double value = mantissa / POWERS_OF_TEN[-exponent];
+            return negative ? -value : value;
+        }
+        text = new String(bytes, start, end - start, StandardCharsets.ISO_8859_1);
+        return Double.parseDouble(text);
+    }
+
+    private static boolean isDigit(byte b) {
+        return b >= '0' && b <= '9';
+    }
+}
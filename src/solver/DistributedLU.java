@@ -0,0 +1,248 @@
+package solver;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.SocketTimeoutException;
+import java.util.ArrayList;
+import java.util.InputMismatchException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Coordinator of a distributed LU solve: starts numOfWorkers DistributedWorker JVMs on this
+// machine, streams the system out to them in a 2-D block-cyclic layout one block row at a
+// time, so it never holds more than a block row of the matrix itself, and collects the
+// solution and each worker's timings. The factorization and back substitution run on the
+// workers; see DistributedWorker.
+class DistributedLU implements Closeable {
+    public static final int DEFAULT_BLOCK_SIZE = 64;
+    private static final int WORKER_START_TIMEOUT_MILLIS = 60_000;
+
+    private final ServerSocket serverSocket;
+    private final Process[] workers;
+    private final PeerLink[] links; // by rank
+    private final int[] peerPorts; // where each worker accepts the others
+    private final List<NodeStatistics> nodeStatistics = new ArrayList<>();
+    private BlockCyclicLayout layout;
+    private long scatterNanos;
+
+    // workers start with this JVM's heap, module and -D options
+    public DistributedLU(int numOfWorkers) throws IOException {
+        if (numOfWorkers < 1) {
+            throw new IllegalArgumentException("Invalid number of workers: " + numOfWorkers);
+        }
+        serverSocket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+        serverSocket.setSoTimeout(WORKER_START_TIMEOUT_MILLIS);
+        workers = new Process[numOfWorkers];
+        links = new PeerLink[numOfWorkers];
+        peerPorts = new int[numOfWorkers];
+        try {
+            String javaBinary = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+            for (int rank = 0; rank < numOfWorkers; rank++) {
+                List<String> command = new ArrayList<>();
+                command.add(javaBinary);
+                for (String argument : ManagementFactory.getRuntimeMXBean().getInputArguments()) {
+                    if (argument.startsWith("-X") || argument.startsWith("-D") || argument.startsWith("--add-modules")) {
+                        command.add(argument);
+                    }
+                }
+                command.add("-cp");
+                command.add(System.getProperty("java.class.path"));
+                command.add(DistributedWorker.class.getName());
+                command.add(String.valueOf(serverSocket.getLocalPort()));
+                command.add(String.valueOf(rank));
+                workers[rank] = new ProcessBuilder(command).inheritIO().start();
+            }
+            for (int connected = 0; connected < numOfWorkers; connected++) {
+                PeerLink link = new PeerLink(serverSocket.accept(), "distributed-coordinator");
+                double[] hello = link.receive(DistributedWorker.HELLO);
+                links[(int) hello[0]] = link;
+                peerPorts[(int) hello[0]] = (int) hello[1];
+            }
+        } catch (SocketTimeoutException timeout) {
+            close();
+            throw new IOException("Workers did not connect within " + WORKER_START_TIMEOUT_MILLIS / 1000 + " s");
+        } catch (IOException | RuntimeException startError) {
+            close();
+            throw startError;
+        }
+    }
+
+    public int getNumOfWorkers() {
+        return workers.length;
+    }
+
+    // the layout of the last solve
+    public BlockCyclicLayout getLayout() {
+        return layout;
+    }
+
+    // reading the system and sending it out, in the last solve
+    public long getScatterNanos() {
+        return scatterNanos;
+    }
+
+    // by rank, for the last solve
+    public List<NodeStatistics> getNodeStatistics() {
+        return nodeStatistics;
+    }
+
+    // one square system, rows read straight from rows; interleaved (re, im) solution, or null
+    // when a panel has no usable pivot. Workers can solve only one system, so this is called once.
+    public double[] solve(RowReader rows, int blockSize) throws IOException {
+        int size = rows.getNumOfVariables();
+        if (rows.getNumOfEquations() != size) {
+            throw new InputMismatchException("Distributed LU needs a square system, got "
+                    + rows.getNumOfEquations() + " equations in " + size + " variables");
+        }
+        layout = BlockCyclicLayout.forProcesses(size, blockSize, workers.length);
+
+        double[] setup = new double[4 + workers.length];
+        setup[0] = size;
+        setup[1] = blockSize;
+        setup[2] = layout.getGridRows();
+        setup[3] = layout.getGridColumns();
+        for (int rank = 0; rank < workers.length; rank++) {
+            setup[4 + rank] = peerPorts[rank];
+        }
+        for (PeerLink link : links) {
+            link.send(DistributedWorker.SETUP, setup);
+        }
+
+        long scatterStart = System.nanoTime();
+        double[] start = new double[1 + 2 * size]; // negligible modulus, then the constant terms
+        double maxModulusSquared = 0;
+        int rowLength = 2 * (size + 1);
+        double[] blockRows = new double[blockSize * rowLength];
+        double[] row = new double[rowLength];
+        for (int block = 0; block < layout.getNumOfBlocks(); block++) {
+            int first = block * blockSize;
+            int numOfRows = Math.min(blockSize, size - first);
+            for (int i = 0; i < numOfRows; i++) {
+                rows.readRow(row);
+                for (int t = 0; t < 2 * size; t += 2) { // coefficients only
+                    maxModulusSquared = Math.max(maxModulusSquared, row[t]*row[t] + row[t + 1]*row[t + 1]);
+                }
+                System.arraycopy(row, 0, blockRows, i * rowLength, rowLength);
+                start[1 + 2 * (first + i)] = row[2 * size];
+                start[2 + 2 * (first + i)] = row[2 * size + 1];
+            }
+
+            int gridRow = block % layout.getGridRows();
+            for (int gridColumn = 0; gridColumn < layout.getGridColumns(); gridColumn++) {
+                int numOfLocalColumns = layout.localColumns(size, gridColumn);
+                double[] part = new double[2 * numOfRows * numOfLocalColumns];
+                for (int i = 0; i < numOfRows; i++) {
+                    for (int localColumn = 0; localColumn < numOfLocalColumns; localColumn++) {
+                        int column = layout.globalColumn(gridColumn, localColumn);
+                        part[2 * (i * numOfLocalColumns + localColumn)]     = blockRows[i * rowLength + 2 * column];
+                        part[2 * (i * numOfLocalColumns + localColumn) + 1] = blockRows[i * rowLength + 2 * column + 1];
+                    }
+                }
+                links[layout.rank(gridRow, gridColumn)].send(DistributedWorker.ROWS, part);
+            }
+        }
+        // as Matrix: max(m, n) * machine epsilon * largest coefficient modulus
+        start[0] = Matrix.negligibleModulus(size, size, maxModulusSquared);
+        for (PeerLink link : links) {
+            link.send(DistributedWorker.START, start);
+        }
+        scatterNanos = System.nanoTime() - scatterStart;
+
+        double[] solution = links[0].receive(DistributedWorker.SOLUTION);
+        nodeStatistics.clear();
+        for (int rank = 0; rank < workers.length; rank++) {
+            double[] statistics = links[rank].receive(DistributedWorker.STATISTICS);
+            nodeStatistics.add(new NodeStatistics(rank, rank / layout.getGridColumns(), rank % layout.getGridColumns(),
+                    (long) statistics[0], (long) statistics[1], (long) statistics[2], (long) statistics[3], (long) statistics[4]));
+        }
+        return solution.length == 0 ? null : solution;
+    }
+
+    @Override
+    public void close() throws IOException {
+        for (PeerLink link : links) {
+            if (link != null) {
+                link.close();
+            }
+        }
+        serverSocket.close();
+        for (Process worker : workers) {
+            if (worker == null) {
+                continue;
+            }
+            try {
+                if (!worker.waitFor(5, TimeUnit.SECONDS)) {
+                    worker.destroyForcibly();
+                }
+            } catch (InterruptedException interrupted) {
+                worker.destroyForcibly();
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    // one worker's share of a solve; compute is its factor and substitution time less the
+    // time it spent sending or waiting for messages
+    static class NodeStatistics {
+        private final int rank;
+        private final int gridRow;
+        private final int gridColumn;
+        private final long factorNanos;
+        private final long substitutionNanos;
+        private final long communicationNanos;
+        private final long bytesSent;
+        private final long messagesSent;
+
+        NodeStatistics(int rank, int gridRow, int gridColumn, long factorNanos, long substitutionNanos,
+                       long communicationNanos, long bytesSent, long messagesSent) {
+            this.rank = rank;
+            this.gridRow = gridRow;
+            this.gridColumn = gridColumn;
+            this.factorNanos = factorNanos;
+            this.substitutionNanos = substitutionNanos;
+            this.communicationNanos = communicationNanos;
+            this.bytesSent = bytesSent;
+            this.messagesSent = messagesSent;
+        }
+
+        public int getRank() {
+            return rank;
+        }
+
+        public int getGridRow() {
+            return gridRow;
+        }
+
+        public int getGridColumn() {
+            return gridColumn;
+        }
+
+        public long getFactorNanos() {
+            return factorNanos;
+        }
+
+        public long getSubstitutionNanos() {
+            return substitutionNanos;
+        }
+
+        public long getCommunicationNanos() {
+            return communicationNanos;
+        }
+
+        public long getComputeNanos() {
+            return factorNanos + substitutionNanos - communicationNanos;
+        }
+
+        public long getBytesSent() {
+            return bytesSent;
+        }
+
+        public long getMessagesSent() {
+            return messagesSent;
+        }
+    }
+}
@@ -0,0 +1,456 @@
+package solver;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+
+// One process of a distributed LU solve, started by DistributedLU:
+//
+//   java solver.DistributedWorker <coordinator port> <rank>
+//
+// Holds its blocks of the 2-D block-cyclic layout and a copy of the constant terms, and is
+// connected to every other worker over loopback. Right-looking LU, one block column (panel)
+// at a time, as ScaLAPACK's PZGETRF does it:
+//
+//   1. the panel's process column sends its pieces to the owner of the diagonal block, which
+//      factors the panel with partial pivoting and broadcasts the pivots and L to everyone
+//   2. each process applies the row swaps right of the panel, trading row pieces with the
+//      other processes of its column where the two rows live on different process rows
+//   3. the diagonal block's process row computes U12 = inverse(L11) A12 and sends it down
+//      its process columns
+//   4. every process updates its part of the trailing matrix, A22 -= L21 U12
+//
+// Every process also applies each panel's swaps and L to its copy of the constants, so all
+// of them end with y = inverse(L) P b. Back substitution then goes block by block from the
+// last: the block row's processes send their partial sums of U x to the diagonal block's
+// owner, which solves the triangle and broadcasts that block of x.
+class DistributedWorker implements Closeable {
+    static final int HELLO = 1;
+    static final int SETUP = 2;
+    static final int ROWS = 3;
+    static final int START = 4;
+    static final int PANEL_PART = 5;
+    static final int PANEL = 6;
+    static final int ROW_SWAP = 7;
+    static final int U_BLOCK = 8;
+    static final int PARTIAL_SUM = 9;
+    static final int X_BLOCK = 10;
+    static final int SOLUTION = 11;
+    static final int STATISTICS = 12;
+
+    private final int rank;
+    private final PeerLink coordinator;
+    private final PeerLink[] peers; // by rank; null at this worker's own rank
+    private final BlockCyclicLayout layout;
+    private final int gridRow;
+    private final int gridColumn;
+    private final int numOfLocalRows;
+    private final int numOfLocalColumns;
+    private final int rowStride;
+    private final double[] local; // this process's blocks, interleaved (re, im), row-major
+    private double[] constants; // all of them, interleaved; becomes inverse(L) P b
+    private double negligibleModulus;
+    private long communicationNanos;
+
+    public static void main(String[] args) {
+        if (args.length != 2) {
+            System.err.println("Syntax: <coordinator port> <rank>");
+            System.exit(-1);
+        }
+        int rank = Integer.parseInt(args[1]);
+        try (DistributedWorker worker = new DistributedWorker(Integer.parseInt(args[0]), rank)) {
+            worker.run();
+        } catch (IOException | RuntimeException workerError) {
+            System.err.println("Worker " + rank + ": " + workerError);
+            System.exit(1);
+        }
+    }
+
+    // reports to the coordinator, takes the layout and the other workers' ports, and connects
+    // to the workers of lower rank while accepting those of higher rank
+    DistributedWorker(int coordinatorPort, int rank) throws IOException {
+        this.rank = rank;
+        InetAddress loopback = InetAddress.getLoopbackAddress();
+        try (ServerSocket peerServer = new ServerSocket(0, 50, loopback)) {
+            coordinator = new PeerLink(new Socket(loopback, coordinatorPort), "distributed-" + rank + "-coordinator");
+            coordinator.send(HELLO, new double[] {rank, peerServer.getLocalPort()});
+
+            double[] setup = coordinator.receive(SETUP);
+            layout = new BlockCyclicLayout((int) setup[0], (int) setup[1], (int) setup[2], (int) setup[3]);
+            int numOfWorkers = layout.getGridRows() * layout.getGridColumns();
+            peers = new PeerLink[numOfWorkers];
+            for (int other = 0; other < rank; other++) {
+                peers[other] = new PeerLink(new Socket(loopback, (int) setup[4 + other]), "distributed-" + rank + "-" + other);
+                peers[other].send(HELLO, new double[] {rank});
+            }
+            for (int accepted = rank + 1; accepted < numOfWorkers; accepted++) {
+                PeerLink peer = new PeerLink(peerServer.accept(), "distributed-" + rank + "-peer");
+                peers[(int) peer.receive(HELLO)[0]] = peer;
+            }
+        }
+
+        gridRow = rank / layout.getGridColumns();
+        gridColumn = rank % layout.getGridColumns();
+        numOfLocalRows = layout.localRows(layout.size(), gridRow);
+        numOfLocalColumns = layout.localColumns(layout.size(), gridColumn);
+        rowStride = 2 * numOfLocalColumns;
+        local = new double[numOfLocalRows * rowStride];
+    }
+
+    void run() throws IOException {
+        // this process's block rows, in order, each with only this process's columns
+        int blockSize = layout.getBlockSize();
+        for (int block = gridRow; block < layout.getNumOfBlocks(); block += layout.getGridRows()) {
+            double[] rows = coordinator.receive(ROWS);
+            System.arraycopy(rows, 0, local, layout.localRows(block * blockSize, gridRow) * rowStride, rows.length);
+        }
+        double[] start = coordinator.receive(START);
+        negligibleModulus = start[0];
+        constants = new double[2 * layout.size()];
+        System.arraycopy(start, 1, constants, 0, constants.length);
+
+        long factorStart = System.nanoTime();
+        boolean singular = !factor();
+        long substitutionStart = System.nanoTime();
+        double[] solution = singular ? new double[0] : substitute();
+        long end = System.nanoTime();
+
+        if (rank == 0) {
+            coordinator.send(SOLUTION, solution);
+        }
+        long bytesSent = 0;
+        long messagesSent = 0;
+        for (PeerLink peer : peers) {
+            if (peer != null) {
+                bytesSent += peer.getBytesSent();
+                messagesSent += peer.getMessagesSent();
+            }
+        }
+        coordinator.send(STATISTICS, new double[] {
+                substitutionStart - factorStart, end - substitutionStart, communicationNanos, bytesSent, messagesSent});
+    }
+
+    // false when a panel has no usable pivot
+    private boolean factor() throws IOException {
+        int size = layout.size();
+        for (int block = 0; block < layout.getNumOfBlocks(); block++) {
+            int first = block * layout.getBlockSize();
+            int last = Math.min(first + layout.getBlockSize(), size); // exclusive
+            int width = last - first;
+            int panelRow = block % layout.getGridRows();
+            int panelColumn = block % layout.getGridColumns();
+            int root = layout.rank(panelRow, panelColumn);
+            int firstLocalRow = layout.localRows(first, gridRow);
+            int firstLocalColumn = layout.localColumns(first, gridColumn);
+            int trailingLocalColumn = layout.localColumns(last, gridColumn);
+
+            // 1. [singular flag, width pivots, rows first..size-1 of the panel, width terms each]
+            double[] panel;
+            if (gridColumn == panelColumn) {
+                double[] part = new double[2 * width * (numOfLocalRows - firstLocalRow)];
+                for (int localRow = firstLocalRow; localRow < numOfLocalRows; localRow++) {
+                    System.arraycopy(local, localRow * rowStride + 2 * firstLocalColumn,
+                            part, 2 * width * (localRow - firstLocalRow), 2 * width);
+                }
+                if (rank != root) {
+                    send(root, PANEL_PART, part);
+                    panel = receive(root, PANEL);
+                } else {
+                    panel = factorPanel(first, width, part);
+                    broadcast(PANEL, panel);
+                }
+            } else {
+                panel = receive(root, PANEL);
+            }
+            if (panel[0] != 0) {
+                return false;
+            }
+            int panelTerms = 1 + width; // where the panel's rows start
+
+            // 2. row swaps on the constants and on the columns right of the panel
+            int trailingLength = 2 * (numOfLocalColumns - trailingLocalColumn);
+            for (int t = 0; t < width; t++) {
+                int rowOne = first + t;
+                int rowTwo = (int) panel[1 + t];
+                if (rowOne != rowTwo) {
+                    swap(constants, 2 * rowOne, 2 * rowTwo, 2);
+                    if (trailingLength > 0) {
+                        swapRows(rowOne, rowTwo, trailingLocalColumn, trailingLength);
+                    }
+                }
+            }
+            if (gridColumn == panelColumn) {
+                for (int localRow = firstLocalRow; localRow < numOfLocalRows; localRow++) {
+                    int row = layout.globalRow(gridRow, localRow);
+                    System.arraycopy(panel, panelTerms + 2 * width * (row - first),
+                            local, localRow * rowStride + 2 * firstLocalColumn, 2 * width);
+                }
+            }
+            forwardSubstitute(panel, panelTerms, first, width);
+
+            // 3. U12, packed width rows of trailingLength
+            double[] upper = null;
+            if (gridRow == panelRow) {
+                for (int i = 1; i < width; i++) {
+                    int target = (firstLocalRow + i) * rowStride + 2 * trailingLocalColumn;
+                    for (int t = 0; t < i; t++) {
+                        int index = panelTerms + 2 * width * i + 2 * t;
+                        ComplexKernels.axpy(-panel[index], -panel[index + 1],
+                                local, (firstLocalRow + t) * rowStride + 2 * trailingLocalColumn, local, target, trailingLength);
+                    }
+                }
+                upper = new double[width * trailingLength];
+                for (int i = 0; i < width; i++) {
+                    System.arraycopy(local, (firstLocalRow + i) * rowStride + 2 * trailingLocalColumn,
+                            upper, i * trailingLength, trailingLength);
+                }
+                if (trailingLength > 0) {
+                    for (int otherRow = 0; otherRow < layout.getGridRows(); otherRow++) {
+                        if (otherRow != gridRow) {
+                            send(layout.rank(otherRow, gridColumn), U_BLOCK, upper);
+                        }
+                    }
+                }
+            } else if (trailingLength > 0) {
+                upper = receive(layout.rank(panelRow, gridColumn), U_BLOCK);
+            }
+
+            // 4. A22 -= L21 U12 over this process's rows below the panel
+            if (trailingLength > 0) {
+                for (int localRow = layout.localRows(last, gridRow); localRow < numOfLocalRows; localRow++) {
+                    int target = localRow * rowStride + 2 * trailingLocalColumn;
+                    int multipliers = panelTerms + 2 * width * (layout.globalRow(gridRow, localRow) - first);
+                    for (int t = 0; t < width; t++) {
+                        double multiplierRe = panel[multipliers + 2 * t];
+                        double multiplierIm = panel[multipliers + 2 * t + 1];
+                        if (multiplierRe != 0 || multiplierIm != 0) {
+                            ComplexKernels.axpy(-multiplierRe, -multiplierIm, upper, t * trailingLength, local, target, trailingLength);
+                        }
+                    }
+                }
+            }
+        }
+        return true;
+    }
+
+    // on the diagonal block's owner: gathers the panel from its process column and factors it
+    private double[] factorPanel(int first, int width, double[] ownPart) throws IOException {
+        int size = layout.size();
+        int panelTerms = 1 + width;
+        int panelColumn = gridColumn;
+        double[] panel = new double[panelTerms + 2 * width * (size - first)];
+        for (int otherRow = 0; otherRow < layout.getGridRows(); otherRow++) {
+            double[] part = otherRow == gridRow ? ownPart : receive(layout.rank(otherRow, panelColumn), PANEL_PART);
+            int firstLocalRow = layout.localRows(first, otherRow);
+            for (int j = 0; j < part.length / (2 * width); j++) {
+                int row = layout.globalRow(otherRow, firstLocalRow + j);
+                System.arraycopy(part, 2 * width * j, panel, panelTerms + 2 * width * (row - first), 2 * width);
+            }
+        }
+
+        // unblocked LU of the (size - first) x width panel, swapping whole panel rows
+        int numOfRows = size - first;
+        int stride = 2 * width;
+        double negligibleSquared = negligibleModulus * negligibleModulus;
+        for (int t = 0; t < width; t++) {
+            int pivotRow = -1;
+            double maxModulus = negligibleSquared;
+            for (int i = t; i < numOfRows; i++) {
+                int index = panelTerms + i * stride + 2 * t;
+                double modulus = panel[index]*panel[index] + panel[index + 1]*panel[index + 1];
+                if (modulus > maxModulus) {
+                    maxModulus = modulus;
+                    pivotRow = i;
+                }
+            }
+            if (pivotRow == -1) {
+                panel[0] = 1; // singular
+                return panel;
+            }
+            panel[1 + t] = first + pivotRow;
+            if (pivotRow != t) {
+                swap(panel, panelTerms + t * stride, panelTerms + pivotRow * stride, stride);
+            }
+
+            // 1/pivot = conj(pivot)/|pivot|^2
+            int pivotIndex = panelTerms + t * stride + 2 * t;
+            double inverseRe =  panel[pivotIndex]     / maxModulus;
+            double inverseIm = -panel[pivotIndex + 1] / maxModulus;
+            for (int i = t + 1; i < numOfRows; i++) {
+                int index = panelTerms + i * stride + 2 * t;
+                double termRe = panel[index];
+                double termIm = panel[index + 1];
+                if (termRe == 0 && termIm == 0) {
+                    continue;
+                }
+                double multiplierRe = termRe*inverseRe - termIm*inverseIm;
+                double multiplierIm = termRe*inverseIm + termIm*inverseRe;
+                panel[index]     = multiplierRe;
+                panel[index + 1] = multiplierIm;
+                ComplexKernels.axpy(-multiplierRe, -multiplierIm, panel, pivotIndex + 2, panel, index + 2, 2 * (width - t - 1));
+            }
+        }
+        return panel;
+    }
+
+    // rows one and two, from localColumn on, wherever they live in this process column
+    private void swapRows(int rowOne, int rowTwo, int localColumn, int length) throws IOException {
+        int ownerOne = layout.rowOwner(rowOne);
+        int ownerTwo = layout.rowOwner(rowTwo);
+        if (ownerOne == gridRow && ownerTwo == gridRow) {
+            swap(local, layout.localRows(rowOne, gridRow) * rowStride + 2 * localColumn,
+                    layout.localRows(rowTwo, gridRow) * rowStride + 2 * localColumn, length);
+        } else if (ownerOne == gridRow) {
+            exchangeRow(rowOne, ownerTwo, localColumn, length);
+        } else if (ownerTwo == gridRow) {
+            exchangeRow(rowTwo, ownerOne, localColumn, length);
+        }
+    }
+
+    // sends this process's piece of row, and puts the other process row's piece in its place
+    private void exchangeRow(int row, int otherRow, int localColumn, int length) throws IOException {
+        int offset = layout.localRows(row, gridRow) * rowStride + 2 * localColumn;
+        int other = layout.rank(otherRow, gridColumn);
+        send(other, ROW_SWAP, local, offset, length);
+        System.arraycopy(receive(other, ROW_SWAP), 0, local, offset, length);
+    }
+
+    // constants[first + 1..] -= L[.., t] * constants[first + t], for each column t of the panel
+    private void forwardSubstitute(double[] panel, int panelTerms, int first, int width) {
+        int size = layout.size();
+        for (int t = 0; t < width; t++) {
+            double re = constants[2 * (first + t)];
+            double im = constants[2 * (first + t) + 1];
+            if (re == 0 && im == 0) {
+                continue;
+            }
+            for (int row = first + t + 1; row < size; row++) {
+                int index = panelTerms + 2 * width * (row - first) + 2 * t;
+                double multiplierRe = panel[index];
+                double multiplierIm = panel[index + 1];
+                constants[2 * row]     -= multiplierRe*re - multiplierIm*im;
+                constants[2 * row + 1] -= multiplierRe*im + multiplierIm*re;
+            }
+        }
+    }
+
+    // U x = y, last block first; every process ends with all of x
+    private double[] substitute() throws IOException {
+        int size = layout.size();
+        int blockSize = layout.getBlockSize();
+        double[] solution = new double[2 * size];
+        double[] localSolution = new double[rowStride]; // x at this process's columns
+        for (int block = layout.getNumOfBlocks() - 1; block >= 0; block--) {
+            int first = block * blockSize;
+            int last = Math.min(first + blockSize, size);
+            int width = last - first;
+            int panelRow = block % layout.getGridRows();
+            int panelColumn = block % layout.getGridColumns();
+            int root = layout.rank(panelRow, panelColumn);
+            int firstLocalColumn = layout.localColumns(first, gridColumn);
+
+            double[] blockSolution;
+            if (gridRow == panelRow) {
+                // sum of U x over this process's columns right of the block
+                int firstLocalRow = layout.localRows(first, gridRow);
+                int trailingLocalColumn = layout.localColumns(last, gridColumn);
+                double[] sums = new double[2 * width];
+                for (int i = 0; i < width; i++) {
+                    ComplexKernels.dot(local, (firstLocalRow + i) * rowStride + 2 * trailingLocalColumn,
+                            localSolution, 2 * trailingLocalColumn, rowStride - 2 * trailingLocalColumn, sums, 2 * i);
+                }
+                if (rank != root) {
+                    send(root, PARTIAL_SUM, sums);
+                    blockSolution = receive(root, X_BLOCK);
+                } else {
+                    for (int otherColumn = 0; otherColumn < layout.getGridColumns(); otherColumn++) {
+                        if (otherColumn != gridColumn) {
+                            double[] otherSums = receive(layout.rank(gridRow, otherColumn), PARTIAL_SUM);
+                            for (int t = 0; t < sums.length; t++) {
+                                sums[t] += otherSums[t];
+                            }
+                        }
+                    }
+                    blockSolution = solveDiagonalBlock(first, width, firstLocalRow, firstLocalColumn, sums);
+                    broadcast(X_BLOCK, blockSolution);
+                }
+            } else {
+                blockSolution = receive(root, X_BLOCK);
+            }
+
+            System.arraycopy(blockSolution, 0, solution, 2 * first, 2 * width);
+            if (gridColumn == panelColumn) {
+                System.arraycopy(blockSolution, 0, localSolution, 2 * firstLocalColumn, 2 * width);
+            }
+        }
+        return solution;
+    }
+
+    // x = inverse(U_KK) (y - sums), U_KK upper triangular in this process's blocks
+    private double[] solveDiagonalBlock(int first, int width, int firstLocalRow, int firstLocalColumn, double[] sums) {
+        double[] blockSolution = new double[2 * width];
+        for (int i = width - 1; i >= 0; i--) {
+            int row = (firstLocalRow + i) * rowStride + 2 * firstLocalColumn;
+            double re = constants[2 * (first + i)] - sums[2 * i];
+            double im = constants[2 * (first + i) + 1] - sums[2 * i + 1];
+            for (int t = i + 1; t < width; t++) {
+                double uRe = local[row + 2 * t];
+                double uIm = local[row + 2 * t + 1];
+                re -= uRe*blockSolution[2 * t] - uIm*blockSolution[2 * t + 1];
+                im -= uRe*blockSolution[2 * t + 1] + uIm*blockSolution[2 * t];
+            }
+            // (re + im*i) / pivot = (re + im*i) * conj(pivot) / |pivot|^2
+            double pivotRe = local[row + 2 * i];
+            double pivotIm = local[row + 2 * i + 1];
+            double modulusSquared = pivotRe*pivotRe + pivotIm*pivotIm;
+            blockSolution[2 * i]     = (re*pivotRe + im*pivotIm) / modulusSquared;
+            blockSolution[2 * i + 1] = (im*pivotRe - re*pivotIm) / modulusSquared;
+        }
+        return blockSolution;
+    }
+
+    private static void swap(double[] data, int one, int two, int length) {
+        for (int t = 0; t < length; t++) {
+            double temp = data[one + t];
+            data[one + t] = data[two + t];
+            data[two + t] = temp;
+        }
+    }
+
+    private void broadcast(int tag, double[] data) throws IOException {
+        for (int other = 0; other < peers.length; other++) {
+            if (other != rank) {
+                send(other, tag, data);
+            }
+        }
+    }
+
+    private void send(int other, int tag, double[] data) throws IOException {
+        send(other, tag, data, 0, data.length);
+    }
+
+    private void send(int other, int tag, double[] data, int offset, int length) throws IOException {
+        long start = System.nanoTime();
+        peers[other].send(tag, data, offset, length);
+        communicationNanos += System.nanoTime() - start;
+    }
+
+    private double[] receive(int other, int tag) throws IOException {
+        long start = System.nanoTime();
+        double[] data = peers[other].receive(tag);
+        communicationNanos += System.nanoTime() - start;
+        return data;
+    }
+
+    @Override
+    public void close() throws IOException {
+        for (PeerLink peer : peers) {
+            if (peer != null) {
+                peer.close();
+            }
+        }
+        coordinator.close();
+    }
+}
@@ -0,0 +1,183 @@
+package solver;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// LU factorizations of square coefficient matrices, keyed by a SHA-256 fingerprint of the
+// coefficients alone, so a system that comes back with new constant terms only needs the
+// O(n^2) substitution. Least recently used entries are evicted once the factors held pass
+// the memory budget. With a directory, every factorization is also written there and a miss
+// in memory looks for it on disk, so the cache outlives the JVM; the directory itself is
+// not trimmed. Shared by all the solves of a batch or server, hence synchronized.
+class FactorizationCache {
+    private static final int FILE_HEADER_SIZE = 8; // int size, int format version
+    private static final int FILE_VERSION = 1;
+
+    private final long memoryBudget;
+    private final File directory; // null: memory only
+    private final LinkedHashMap<String, LUDecomposition> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long bytesHeld;
+    private long hits;
+    private long diskHits;
+    private long misses;
+    private long evictions;
+
+    public FactorizationCache(long memoryBudget, File directory) throws IOException {
+        this.memoryBudget = memoryBudget;
+        this.directory = directory;
+        if (directory != null && !directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Cannot create " + directory);
+        }
+    }
+
+    // hex SHA-256 of the dimensions and the coefficients in current row order
+    public static String fingerprint(Matrix system) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException missing) {
+            throw new IllegalStateException("SHA-256 not available", missing);
+        }
+        int numOfVariables = system.getMatrixNumOfVariables();
+        int numOfEquations = system.getMatrixNumOfEquations();
+        ByteBuffer bytes = ByteBuffer.allocate(16 * numOfVariables).order(ByteOrder.LITTLE_ENDIAN);
+        bytes.putInt(numOfVariables).putInt(numOfEquations).flip();
+        digest.update(bytes);
+
+        double[] row = new double[2 * numOfVariables];
+        DoubleBuffer doubles = bytes.clear().asDoubleBuffer();
+        for (int i = 1; i <= numOfEquations; i++) {
+            system.getRow(i).copyCoefficientsTo(row, 0);
+            doubles.clear();
+            doubles.put(row);
+            bytes.clear();
+            digest.update(bytes);
+        }
+
+        StringBuilder hex = new StringBuilder();
+        for (byte b : digest.digest()) {
+            hex.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+        }
+        return hex.toString();
+    }
+
+    // the factorization of a matrix with this fingerprint, or null
+    public synchronized LUDecomposition get(String key) {
+        LUDecomposition decomposition = entries.get(key);
+        if (decomposition != null) {
+            hits++;
+            return decomposition;
+        }
+        if (directory != null) {
+            decomposition = load(new File(directory, key + ".lu"));
+            if (decomposition != null) {
+                diskHits++;
+                hold(key, decomposition);
+                return decomposition;
+            }
+        }
+        misses++;
+        return null;
+    }
+
+    public synchronized void put(String key, LUDecomposition decomposition) {
+        if (entries.containsKey(key)) {
+            return;
+        }
+        hold(key, decomposition);
+        if (directory != null) {
+            save(new File(directory, key + ".lu"), decomposition);
+        }
+    }
+
+    private void hold(String key, LUDecomposition decomposition) {
+        long bytes = sizeOf(decomposition);
+        if (bytes > memoryBudget) {
+            return; // would evict everything and still not fit
+        }
+        entries.put(key, decomposition);
+        bytesHeld += bytes;
+        Iterator<Map.Entry<String, LUDecomposition>> eldest = entries.entrySet().iterator();
+        while (bytesHeld > memoryBudget && eldest.hasNext()) {
+            LUDecomposition evicted = eldest.next().getValue();
+            eldest.remove();
+            bytesHeld -= sizeOf(evicted);
+            evictions++;
+        }
+    }
+
+    private static long sizeOf(LUDecomposition decomposition) {
+        long size = decomposition.size();
+        return 16 * size * size + 4 * size;
+    }
+
+    public synchronized String getStatistics() {
+        return String.format("Factorization cache: %d hits, %d from disk, %d misses, %d evictions, %d entries, %.1f MB",
+                hits, diskHits, misses, evictions, entries.size(), bytesHeld / 1048576.0);
+    }
+
+    // null if missing or unreadable, which only costs a refactorization
+    private static LUDecomposition load(File file) {
+        if (!file.isFile()) {
+            return null;
+        }
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            mapped.order(ByteOrder.LITTLE_ENDIAN);
+            int size = mapped.getInt();
+            int version = mapped.getInt();
+            long expected = FILE_HEADER_SIZE + 4L * size + 16L * size * size;
+            if (version != FILE_VERSION || size < 1 || channel.size() != expected) {
+                return null;
+            }
+            int[] permutation = new int[size];
+            mapped.asIntBuffer().get(permutation);
+            mapped.position(FILE_HEADER_SIZE + 4 * size);
+            double[] factors = new double[2 * size * size];
+            mapped.slice().order(ByteOrder.LITTLE_ENDIAN).asDoubleBuffer().get(factors);
+            return new LUDecomposition(size, factors, permutation);
+        } catch (IOException | RuntimeException unreadable) {
+            return null;
+        }
+    }
+
+    // written to a temporary file and moved into place, so a reader never sees half a file
+    private static void save(File file, LUDecomposition decomposition) {
+        int size = decomposition.size();
+        long length = FILE_HEADER_SIZE + 4L * size + 16L * size * size;
+        if (length > Integer.MAX_VALUE) {
+            return; // one mapping; such factorizations stay in memory only
+        }
+        File temporary = new File(file.getPath() + ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temporary.toPath(), StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_WRITE, 0, length);
+                mapped.order(ByteOrder.LITTLE_ENDIAN);
+                mapped.putInt(size).putInt(FILE_VERSION);
+                IntBuffer permutation = mapped.asIntBuffer();
+                permutation.put(decomposition.getPermutation());
+                mapped.position(FILE_HEADER_SIZE + 4 * size);
+                mapped.slice().order(ByteOrder.LITTLE_ENDIAN).asDoubleBuffer().put(decomposition.getFactors());
+            }
+            Files.move(temporary.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException writeError) {
+            System.out.println("Factorization cache: cannot write " + file + ": " + writeError.getMessage());
+            temporary.delete();
+        }
+    }
+}
@@ -0,0 +1,216 @@
+package solver;
+
+import java.util.InputMismatchException;
+
+// PA = LU as in LUDecomposition, but stored and computed in single precision: half the
+// memory and twice the terms per vector. The matrix is scaled by its largest modulus before
+// rounding to float so that neither large nor small terms leave the float range. Only good
+// for about 7 digits, which is what iterative refinement in double needs from a correction.
+class FloatLUDecomposition {
+    private static final int TILE_COLUMNS = 256; // columns of the trailing matrix updated per tile
+
+    private final int size;
+    private final float[] lu; // interleaved (re, im), row-major; unit L below the diagonal, U on and above
+    private final int[] permutation; // permutation[i] = original row now at row i
+    private final double scale; // lu factors scale * A
+    private final float negligibleModulus;
+    private boolean singular;
+
+    public FloatLUDecomposition(Matrix system, int blockSize) {
+        if (system.getMatrixNumOfEquations() != system.getMatrixNumOfVariables()) {
+            throw new InputMismatchException("LU decomposition needs a square system, got "
+                    + system.getMatrixNumOfEquations() + " equations in "
+                    + system.getMatrixNumOfVariables() + " variables");
+        }
+
+        size = system.getMatrixNumOfVariables();
+        lu = new float[2 * size * size];
+        permutation = new int[size];
+        double[] row = new double[2 * size];
+        double maxModulus = 0;
+        for (int i = 1; i <= size; i++) {
+            system.getRow(i).copyCoefficientsTo(row, 0);
+            for (int t = 0; t < row.length; t += 2) {
+                maxModulus = Math.max(maxModulus, Math.hypot(row[t], row[t + 1]));
+            }
+        }
+        scale = maxModulus > 0 ? 1 / maxModulus : 1;
+        for (int i = 0; i < size; i++) {
+            system.getRow(i + 1).copyCoefficientsTo(row, 0);
+            for (int t = 0; t < row.length; t++) {
+                lu[2 * size * i + t] = (float) (row[t] * scale);
+            }
+            permutation[i] = i;
+        }
+        negligibleModulus = size * Math.ulp(1.0f); // terms are at most 1 after scaling
+
+        if (blockSize <= 1 || blockSize >= size) {
+            factorPanel(0, size, size);
+        } else {
+            for (int first = 0; first < size; first += blockSize) {
+                int last = Math.min(first + blockSize, size); // exclusive
+                factorPanel(first, last, last);
+                if (last < size) {
+                    solveBlockRow(first, last);
+                    updateTrailingMatrix(first, last);
+                }
+            }
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int[] getPermutation() {
+        return permutation.clone();
+    }
+
+    // singular in single precision; the matrix may still be fine in double
+    public boolean isSingular() {
+        return singular;
+    }
+
+    // x with Ax = constants to single precision, constants interleaved (length 2n)
+    public double[] solve(double[] constants) {
+        if (singular) {
+            throw new ArithmeticException("Matrix is singular");
+        }
+        if (constants.length != 2 * size) {
+            throw new InputMismatchException("Constant vector has " + constants.length / 2
+                    + " terms, expected " + size);
+        }
+
+        // scaled to a largest modulus of 1 too, so a tiny residual does not underflow
+        double norm = 0;
+        for (int t = 0; t < constants.length; t += 2) {
+            norm = Math.max(norm, Math.hypot(constants[t], constants[t + 1]));
+        }
+        double[] solution = new double[2 * size];
+        if (norm == 0) {
+            return solution;
+        }
+        float[] y = new float[2 * size];
+        for (int i = 0; i < size; i++) {
+            y[2 * i]     = (float) (constants[2 * permutation[i]] / norm);
+            y[2 * i + 1] = (float) (constants[2 * permutation[i] + 1] / norm);
+        }
+
+        int rowStride = 2 * size;
+        float[] sum = new float[2];
+        // forward substitution with unit L
+        for (int i = 1; i < size; i++) {
+            ComplexKernels.dot(lu, i * rowStride, y, 0, 2 * i, sum, 0);
+            y[2 * i]     -= sum[0];
+            y[2 * i + 1] -= sum[1];
+        }
+        // back substitution with U
+        for (int i = size - 1; i >= 0; i--) {
+            ComplexKernels.dot(lu, i * rowStride + 2 * (i + 1), y, 2 * (i + 1), 2 * (size - i - 1), sum, 0);
+            float termRe = y[2 * i] - sum[0];
+            float termIm = y[2 * i + 1] - sum[1];
+            int pivotIndex = i * rowStride + 2 * i;
+            float pivotRe = lu[pivotIndex];
+            float pivotIm = lu[pivotIndex + 1];
+            float modulus = pivotRe*pivotRe + pivotIm*pivotIm;
+            y[2 * i]     = (termRe*pivotRe + termIm*pivotIm) / modulus;
+            y[2 * i + 1] = (termIm*pivotRe - termRe*pivotIm) / modulus;
+        }
+
+        // (scale A) y = constants / norm, so A (scale * norm * y) = constants
+        double factor = scale * norm;
+        for (int t = 0; t < solution.length; t++) {
+            solution[t] = y[t] * factor;
+        }
+        return solution;
+    }
+
+    // eliminates columns first..last-1 over all rows below, with partial pivoting, but only
+    // updates columns before updateEnd
+    private void factorPanel(int first, int last, int updateEnd) {
+        int rowStride = 2 * size;
+        float negligibleSquared = negligibleModulus*negligibleModulus;
+        for (int k = first; k < last; k++) {
+            int pivotRow = k;
+            float maxModulus = -1;
+            for (int i = k; i < size; i++) {
+                int index = i * rowStride + 2 * k;
+                float modulus = lu[index]*lu[index] + lu[index + 1]*lu[index + 1];
+                if (modulus > maxModulus) {
+                    maxModulus = modulus;
+                    pivotRow = i;
+                }
+            }
+
+            if (maxModulus <= negligibleSquared) {
+                singular = true;
+                continue;
+            }
+            if (pivotRow != k) {
+                swapRows(k, pivotRow);
+            }
+
+            int pivotIndex = k * rowStride + 2 * k;
+            float inverseRe =  lu[pivotIndex]     / maxModulus;
+            float inverseIm = -lu[pivotIndex + 1] / maxModulus;
+            for (int i = k + 1; i < size; i++) {
+                int index = i * rowStride + 2 * k;
+                float termRe = lu[index];
+                float termIm = lu[index + 1];
+                if (termRe == 0 && termIm == 0) {
+                    continue;
+                }
+
+                float multiplierRe = termRe*inverseRe - termIm*inverseIm;
+                float multiplierIm = termRe*inverseIm + termIm*inverseRe;
+                lu[index]     = multiplierRe;
+                lu[index + 1] = multiplierIm;
+                ComplexKernels.axpy(-multiplierRe, -multiplierIm, lu, pivotIndex + 2, lu, index + 2, 2 * (updateEnd - k - 1));
+            }
+        }
+    }
+
+    // U12 = inverse(L11) * A12 for the rows of the panel, columns right of it
+    private void solveBlockRow(int first, int last) {
+        int rowStride = 2 * size;
+        int length = 2 * (size - last);
+        for (int i = first + 1; i < last; i++) {
+            for (int k = first; k < i; k++) {
+                int index = i * rowStride + 2 * k;
+                ComplexKernels.axpy(-lu[index], -lu[index + 1], lu, k * rowStride + 2 * last, lu, i * rowStride + 2 * last, length);
+            }
+        }
+    }
+
+    // A22 -= L21 * U12, one TILE_COLUMNS wide strip at a time
+    private void updateTrailingMatrix(int first, int last) {
+        int rowStride = 2 * size;
+        for (int column = last; column < size; column += TILE_COLUMNS) {
+            int length = 2 * (Math.min(column + TILE_COLUMNS, size) - column);
+            for (int i = last; i < size; i++) {
+                int target = i * rowStride + 2 * column;
+                for (int k = first; k < last; k++) {
+                    int index = i * rowStride + 2 * k;
+                    if (lu[index] != 0 || lu[index + 1] != 0) {
+                        ComplexKernels.axpy(-lu[index], -lu[index + 1], lu, k * rowStride + 2 * column, lu, target, length);
+                    }
+                }
+            }
+        }
+    }
+
+    private void swapRows(int rowOne, int rowTwo) {
+        int rowStride = 2 * size;
+        int one = rowOne * rowStride;
+        int two = rowTwo * rowStride;
+        for (int t = 0; t < rowStride; t++) {
+            float temp = lu[one + t];
+            lu[one + t] = lu[two + t];
+            lu[two + t] = temp;
+        }
+
+        int temp = permutation[rowOne];
+        permutation[rowOne] = permutation[rowTwo];
+        permutation[rowTwo] = temp;
+    }
+}
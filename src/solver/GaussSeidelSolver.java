@@ -0,0 +1,23 @@
+package solver;
+
+// Forward Gauss-Seidel sweeps, using each updated term straight away. Needs an operator
+// that stores its entries (Matrix or SparseMatrix).
+class GaussSeidelSolver extends IterativeSolver {
+
+    public GaussSeidelSolver(double tolerance, int maxIterations) {
+        super(tolerance, maxIterations, false);
+    }
+
+    @Override
+    protected IterativeResult iterate(LinearOperator operator, double[] constants, double[] x) {
+        double[] residual = new double[x.length];
+
+        for (int iteration = 0; iteration < maxIterations; iteration++) {
+            if (relativeResidual(operator, constants, x, residual) <= tolerance) {
+                return result(operator, constants, x, iteration);
+            }
+            operator.gaussSeidelSweep(constants, x);
+        }
+        return result(operator, constants, x, maxIterations);
+    }
+}
@@ -0,0 +1,134 @@
+package solver;
+
+// Restarted GMRES(m) with complex Givens rotations, right-preconditioned by the diagonal
+// when asked to. Every inner step counts as one iteration.
+class GmresSolver extends IterativeSolver {
+    public static final int DEFAULT_RESTART = 30;
+
+    private final int restart;
+
+    public GmresSolver(double tolerance, int maxIterations, boolean diagonalPreconditioner, int restart) {
+        super(tolerance, maxIterations, diagonalPreconditioner);
+        if (restart < 1) {
+            throw new IllegalArgumentException("Invalid restart length: " + restart);
+        }
+        this.restart = restart;
+    }
+
+    @Override
+    protected IterativeResult iterate(LinearOperator operator, double[] constants, double[] x) {
+        int length = x.length;
+        int m = Math.min(restart, operator.size());
+        double[] inverseDiagonal = inverseDiagonal(operator);
+        double constantsNorm = norm(constants);
+        if (constantsNorm == 0) {
+            constantsNorm = 1;
+        }
+
+        double[][] basis = new double[m + 1][length];
+        ComplexNumber[][] hessenberg = new ComplexNumber[m + 1][m];
+        double[] cosines = new double[m];
+        ComplexNumber[] sines = new ComplexNumber[m];
+        ComplexNumber[] rotated = new ComplexNumber[m + 1]; // right hand side of the least squares problem
+        double[] residual = new double[length];
+        double[] preconditioned = new double[length];
+
+        int iterations = 0;
+        while (iterations < maxIterations) {
+            if (relativeResidual(operator, constants, x, residual) <= tolerance) {
+                break;
+            }
+
+            double beta = norm(residual);
+            for (int i = 0; i < length; i++) {
+                basis[0][i] = residual[i] / beta;
+            }
+            rotated[0] = new ComplexNumber(beta, 0);
+
+            int columns = 0;
+            for (int j = 0; j < m && iterations < maxIterations; j++) {
+                iterations++;
+                columns = j + 1;
+
+                // Arnoldi step with modified Gram-Schmidt
+                double[] w = basis[j + 1];
+                precondition(inverseDiagonal, basis[j], preconditioned);
+                operator.apply(preconditioned, w);
+                for (int i = 0; i <= j; i++) {
+                    hessenberg[i][j] = dot(basis[i], w);
+                    axpy(hessenberg[i][j].negative(), basis[i], w);
+                }
+                double wNorm = norm(w);
+                hessenberg[j + 1][j] = new ComplexNumber(wNorm, 0);
+                if (wNorm != 0) {
+                    for (int i = 0; i < length; i++) {
+                        w[i] /= wNorm;
+                    }
+                }
+
+                for (int i = 0; i < j; i++) {
+                    applyRotation(cosines[i], sines[i], hessenberg, i, j);
+                }
+                makeRotation(hessenberg[j][j], hessenberg[j + 1][j], cosines, sines, j);
+                applyRotation(cosines[j], sines[j], hessenberg, j, j);
+                rotated[j + 1] = sines[j].conjugate().negative().multiplyBy(rotated[j]);
+                rotated[j] = rotated[j].multiplyBy(new ComplexNumber(cosines[j], 0));
+
+                double estimate = Math.hypot(rotated[j + 1].getReal(), rotated[j + 1].getImaginary());
+                if (estimate / constantsNorm <= tolerance || wNorm == 0) {
+                    break;
+                }
+            }
+
+            updateSolution(x, basis, hessenberg, rotated, columns, inverseDiagonal, preconditioned);
+        }
+        return result(operator, constants, x, iterations);
+    }
+
+    // rotation with [c s; -conj(s) c] [a; b] = [r; 0]
+    private static void makeRotation(ComplexNumber a, ComplexNumber b, double[] cosines, ComplexNumber[] sines, int j) {
+        double aModulus = Math.hypot(a.getReal(), a.getImaginary());
+        double bModulus = Math.hypot(b.getReal(), b.getImaginary());
+        if (bModulus == 0) {
+            cosines[j] = 1;
+            sines[j] = new ComplexNumber(0, 0);
+        } else if (aModulus == 0) {
+            cosines[j] = 0;
+            sines[j] = b.conjugate().divideBy(bModulus);
+        } else {
+            double r = Math.hypot(aModulus, bModulus);
+            cosines[j] = aModulus / r;
+            sines[j] = a.divideBy(aModulus).multiplyBy(b.conjugate()).divideBy(r);
+        }
+    }
+
+    private static void applyRotation(double c, ComplexNumber s, ComplexNumber[][] hessenberg, int i, int j) {
+        ComplexNumber top = hessenberg[i][j];
+        ComplexNumber bottom = hessenberg[i + 1][j];
+        ComplexNumber cosine = new ComplexNumber(c, 0);
+        hessenberg[i][j]     = cosine.multiplyBy(top).add(s.multiplyBy(bottom));
+        hessenberg[i + 1][j] = s.conjugate().negative().multiplyBy(top).add(cosine.multiplyBy(bottom));
+    }
+
+    // x += M^-1 V y with H y = g solved by back substitution
+    private static void updateSolution(double[] x, double[][] basis, ComplexNumber[][] hessenberg, ComplexNumber[] rotated,
+                                       int columns, double[] inverseDiagonal, double[] preconditioned) {
+        ComplexNumber[] y = new ComplexNumber[columns];
+        for (int i = columns - 1; i >= 0; i--) {
+            ComplexNumber sum = rotated[i];
+            for (int k = i + 1; k < columns; k++) {
+                sum = sum.subtract(hessenberg[i][k].multiplyBy(y[k]));
+            }
+            y[i] = hessenberg[i][i].isZero() ? new ComplexNumber(0, 0) : sum.divideBy(hessenberg[i][i]);
+        }
+
+        double[] combination = new double[x.length];
+        for (int i = 0; i < columns; i++) {
+            axpy(y[i], basis[i], combination);
+        }
+        precondition(inverseDiagonal, combination, preconditioned);
+        for (int i = 0; i < x.length; i++) {
+            x[i] += preconditioned[i];
+        }
+    }
+}
@@ -0,0 +1,189 @@
+package solver;
+
+import java.util.InputMismatchException;
+
+// A = L L^H (Cholesky) of a Hermitian positive definite system, or A = L D L^H with unit L
+// and real D when it is Hermitian but indefinite. Only the lower triangle is kept, packed by
+// rows (row i holds columns 0..i from i(i+1)/2), and no pivoting is done, which halves the
+// flops of LU. Cholesky is stable as it stands; L D L^H without pivoting is not, so its
+// solutions are checked against A by the caller before they are used.
+class HermitianDecomposition {
+    private final int size;
+    private final double[] factors; // packed lower triangle, interleaved (re, im)
+    private final double[] diagonal; // D of L D L^H; null for Cholesky
+    private final boolean positiveDefinite;
+    private boolean failed;
+
+    // Cholesky, and L D L^H when a Cholesky pivot is not positive
+    public HermitianDecomposition(Matrix system) {
+        size = system.size();
+        factors = pack(system);
+        double negligibleModulus = system.getNegligibleModulus();
+        if (factorCholesky(negligibleModulus)) {
+            positiveDefinite = true;
+            diagonal = null;
+        } else {
+            positiveDefinite = false;
+            System.arraycopy(pack(system), 0, factors, 0, factors.length);
+            diagonal = new double[size];
+            failed = !factorLDL(negligibleModulus);
+        }
+    }
+
+    // a[i][j] == conj(a[j][i]) exactly, diagonal real included
+    public static boolean isHermitian(Matrix system) {
+        int size = system.getMatrixNumOfVariables();
+        if (system.getMatrixNumOfEquations() != size) {
+            return false;
+        }
+        double[] row = new double[2 * size];
+        for (int i = 0; i < size; i++) {
+            system.getRow(i + 1).copyCoefficientsTo(row, 0);
+            if (row[2 * i + 1] != 0) {
+                return false;
+            }
+            for (int j = 0; j < i; j++) {
+                LinearEquation other = system.getRow(j + 1); // its term i, the mirror of row i's term j
+                if (row[2 * j] != other.getReal(i + 1) || row[2 * j + 1] != -other.getImaginary(i + 1)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isPositiveDefinite() {
+        return positiveDefinite;
+    }
+
+    // L D L^H met a negligible pivot: nothing to solve with
+    public boolean isFailed() {
+        return failed;
+    }
+
+    // complex flops of the factorization, a complex multiply-add being 8: half of LU's
+    public static double flops(int size) {
+        return 8.0 * size * size * size / 6;
+    }
+
+    private static int rowStart(int row) {
+        return row * (row + 1);
+    }
+
+    private double[] pack(Matrix system) {
+        double[] packed = new double[size * (size + 1)];
+        // each copy runs past the row's own terms, into space the next row then overwrites
+        for (int i = 0; i < size; i++) {
+            system.getRow(i + 1).copyCoefficientsTo(packed, rowStart(i));
+        }
+        return packed;
+    }
+
+    // row by row: L[i][j] = (A[i][j] - sum_k L[i][k] conj(L[j][k])) / L[j][j], then the real
+    // L[i][i] = sqrt(A[i][i] - sum_k |L[i][k]|^2); false at the first pivot that is not positive
+    private boolean factorCholesky(double negligibleModulus) {
+        double[] sum = new double[2];
+        for (int i = 0; i < size; i++) {
+            int rowI = rowStart(i);
+            for (int j = 0; j <= i; j++) {
+                int rowJ = rowStart(j);
+                ComplexKernels.dotConjugated(factors, rowI, factors, rowJ, 2 * j, sum, 0);
+                double re = factors[rowI + 2 * j]     - sum[0];
+                double im = factors[rowI + 2 * j + 1] - sum[1];
+                if (j < i) {
+                    double pivot = factors[rowJ + 2 * j]; // real and positive
+                    factors[rowI + 2 * j]     = re / pivot;
+                    factors[rowI + 2 * j + 1] = im / pivot;
+                } else {
+                    if (!(re > negligibleModulus)) {
+                        return false;
+                    }
+                    factors[rowI + 2 * i]     = Math.sqrt(re);
+                    factors[rowI + 2 * i + 1] = 0;
+                }
+            }
+        }
+        return true;
+    }
+
+    // as Cholesky with t = L[i][k] d_k in place of L[i][k] while row i is built:
+    // t_j = A[i][j] - sum_k t_k conj(L[j][k]), L[i][j] = t_j / d_j, d_i = A[i][i] - sum_k t_k conj(L[i][k]).
+    // Pivots are taken in diagonal order (no Bunch-Kaufman 2x2 pivots), so a small d_j grows L
+    // without bound; false at a negligible d_i, and SystemSolver falls back to LU on either
+    private boolean factorLDL(double negligibleModulus) {
+        double[] sum = new double[2];
+        double[] scaled = new double[2 * size]; // t of the row being built
+        for (int i = 0; i < size; i++) {
+            int rowI = rowStart(i);
+            for (int j = 0; j < i; j++) {
+                ComplexKernels.dotConjugated(scaled, 0, factors, rowStart(j), 2 * j, sum, 0);
+                scaled[2 * j]     = factors[rowI + 2 * j]     - sum[0];
+                scaled[2 * j + 1] = factors[rowI + 2 * j + 1] - sum[1];
+            }
+            double d = factors[rowI + 2 * i];
+            for (int k = 0; k < i; k++) {
+                double re = scaled[2 * k] / diagonal[k];
+                double im = scaled[2 * k + 1] / diagonal[k];
+                d -= scaled[2 * k]*re + scaled[2 * k + 1]*im; // t_k conj(t_k / d_k), real
+                factors[rowI + 2 * k]     = re;
+                factors[rowI + 2 * k + 1] = im;
+            }
+            if (Math.abs(d) <= negligibleModulus) {
+                return false;
+            }
+            diagonal[i] = d;
+            factors[rowI + 2 * i]     = 1;
+            factors[rowI + 2 * i + 1] = 0;
+        }
+        return true;
+    }
+
+    // solves Ax = b for one interleaved constant vector (length 2n)
+    public double[] solve(double[] constants) {
+        if (failed) {
+            throw new ArithmeticException("Factorization failed");
+        }
+        if (constants.length != 2 * size) {
+            throw new InputMismatchException("Constant vector has " + constants.length / 2
+                    + " terms, expected " + size);
+        }
+        double[] x = constants.clone();
+        double[] sum = new double[2];
+
+        // L y = b
+        for (int i = 0; i < size; i++) {
+            int rowI = rowStart(i);
+            ComplexKernels.dot(factors, rowI, x, 0, 2 * i, sum, 0);
+            double pivot = factors[rowI + 2 * i]; // real: sqrt(d) or 1
+            x[2 * i]     = (x[2 * i]     - sum[0]) / pivot;
+            x[2 * i + 1] = (x[2 * i + 1] - sum[1]) / pivot;
+        }
+        if (diagonal != null) {
+            for (int i = 0; i < size; i++) {
+                x[2 * i]     /= diagonal[i];
+                x[2 * i + 1] /= diagonal[i];
+            }
+        }
+
+        // L^H x = y, a column of L^H being a row of L: once x_i is known, take conj(L[i][k]) x_i off each y_k
+        for (int i = size - 1; i >= 0; i--) {
+            int rowI = rowStart(i);
+            double pivot = factors[rowI + 2 * i];
+            double re = x[2 * i]     / pivot;
+            double im = x[2 * i + 1] / pivot;
+            x[2 * i]     = re;
+            x[2 * i + 1] = im;
+            for (int k = 0; k < i; k++) {
+                double lRe = factors[rowI + 2 * k];
+                double lIm = factors[rowI + 2 * k + 1];
+                x[2 * k]     -= lRe*re + lIm*im;
+                x[2 * k + 1] -= lRe*im - lIm*re;
+            }
+        }
+        return x;
+    }
+}
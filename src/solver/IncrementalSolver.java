@@ -0,0 +1,301 @@
+package solver;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.InputMismatchException;
+import java.util.List;
+import java.util.Map;
+
+// A square system that is factored once and then edited and re-solved. Rows whose
+// coefficients differ from the factored ones form a rank-k change A' = A + E D, with E
+// the k unit columns of those rows and D their differences, and by the Woodbury identity
+//   x' = x - Z (I + D Z)^-1 D x,   x = A^-1 b,   Z = A^-1 E,
+// which costs one O(n^2) substitution per edited row, kept until the next factorization,
+// plus O(k^2 n) for the k x k capacitance matrix. Too many edited rows, a near-singular
+// capacitance matrix or a large backward error refactors the edited matrix instead.
+class IncrementalSolver {
+    public static final int DEFAULT_MAX_RANK = 16;
+    private static final double STABILITY_TOLERANCE = 1e-10; // normwise backward error accepted from an update
+
+    private final int size;
+    private final int rowStride;
+    private final int blockSize;
+    private final int maxRank;
+    private final double[] augmented; // current system, interleaved (re, im), rows of n coefficients and the constant
+    private final boolean[] edited; // rows changed since the last factorization
+    private double[] factoredCoefficients; // coefficients at the last factorization, row-major
+    private LUDecomposition decomposition;
+    private final Map<Integer, double[]> inverseColumns = new HashMap<>(); // row r -> A^-1 e_r
+    private int numOfRefactorizations;
+    private int lastRank;
+
+    public IncrementalSolver(Matrix system, int blockSize) {
+        this(system, blockSize, DEFAULT_MAX_RANK);
+    }
+
+    // copies the system, which can be dropped afterwards
+    public IncrementalSolver(Matrix system, int blockSize, int maxRank) {
+        if (system.getMatrixNumOfEquations() != system.getMatrixNumOfVariables()) {
+            throw new InputMismatchException("Incremental solving needs a square system, got "
+                    + system.getMatrixNumOfEquations() + " equations in "
+                    + system.getMatrixNumOfVariables() + " variables");
+        }
+        size = system.getMatrixNumOfVariables();
+        rowStride = 2 * (size + 1);
+        this.blockSize = blockSize > 0 ? blockSize : LUDecomposition.DEFAULT_BLOCK_SIZE;
+        this.maxRank = maxRank;
+        augmented = new double[rowStride * size];
+        edited = new boolean[size];
+        double[] coefficients = system.getCoefficientData();
+        double[] constants = system.getConstantTermsData();
+        for (int row = 0; row < size; row++) {
+            System.arraycopy(coefficients, 2 * size * row, augmented, rowStride * row, 2 * size);
+            augmented[rowStride * row + 2 * size]     = constants[2 * row];
+            augmented[rowStride * row + 2 * size + 1] = constants[2 * row + 1];
+        }
+        refactor();
+    }
+
+    public int size() {
+        return size;
+    }
+
+    // 1-based, as in Matrix
+    public void setCoeff(int row, int column, ComplexNumber term) {
+        checkRow(row);
+        if (column < 1 || column > size) {
+            throw new IndexOutOfBoundsException("Invalid column index: " + column);
+        }
+        int index = rowStride * (row - 1) + 2 * (column - 1);
+        augmented[index]     = term.getReal();
+        augmented[index + 1] = term.getImaginary();
+        edited[row - 1] = true;
+    }
+
+    // constants need no update, only the substitution every solve does anyway
+    public void setConstantTerm(int row, ComplexNumber term) {
+        checkRow(row);
+        int index = rowStride * (row - 1) + 2 * size;
+        augmented[index]     = term.getReal();
+        augmented[index + 1] = term.getImaginary();
+    }
+
+    // coefficients and constant of the equation replace row's
+    public void replaceRow(int row, LinearEquation equation) {
+        checkRow(row);
+        if (equation.getEquationLength() != size + 1) {
+            throw new InputMismatchException("Linear equations are of unequal size");
+        }
+        int index = rowStride * (row - 1);
+        for (int term = 1; term <= size + 1; term++, index += 2) {
+            augmented[index]     = equation.getReal(term);
+            augmented[index + 1] = equation.getImaginary(term);
+        }
+        edited[row - 1] = true;
+    }
+
+    private void checkRow(int row) {
+        if (row < 1 || row > size) {
+            throw new IndexOutOfBoundsException("Invalid row index: " + row);
+        }
+    }
+
+    // rows that differed from the factored matrix in the last solve; 0 after a refactorization
+    public int getLastRank() {
+        return lastRank;
+    }
+
+    public int getNumOfRefactorizations() {
+        return numOfRefactorizations;
+    }
+
+    // solution of the current system, interleaved; null if it is singular
+    public double[] solve() {
+        List<Integer> rows = changedRows();
+        if (rows.isEmpty()) {
+            lastRank = 0;
+            return decomposition.isSingular() ? null : decomposition.solve(constants());
+        }
+        if (rows.size() <= maxRank && !decomposition.isSingular()) {
+            double[] solution = update(rows);
+            if (solution != null && backwardError(solution) <= STABILITY_TOLERANCE) {
+                lastRank = rows.size();
+                return solution;
+            }
+        }
+
+        refactor();
+        lastRank = 0;
+        return decomposition.isSingular() ? null : decomposition.solve(constants());
+    }
+
+    // Woodbury on the factored matrix; null if the capacitance matrix is near singular
+    private double[] update(List<Integer> rows) {
+        int rank = rows.size();
+        int length = 2 * size;
+        double[] solution = decomposition.solve(constants());
+
+        // D, one row of differences per edited row
+        double[] differences = new double[rank * length];
+        for (int a = 0; a < rank; a++) {
+            int row = rows.get(a);
+            for (int t = 0; t < length; t++) {
+                differences[a * length + t] = augmented[rowStride * row + t] - factoredCoefficients[length * row + t];
+            }
+        }
+
+        // capacitance I + D Z and right-hand side D x
+        double[][] columns = new double[rank][];
+        double[] capacitance = new double[2 * rank * rank];
+        double[] rhs = new double[2 * rank];
+        for (int b = 0; b < rank; b++) {
+            columns[b] = inverseColumn(rows.get(b));
+        }
+        for (int a = 0; a < rank; a++) {
+            for (int b = 0; b < rank; b++) {
+                ComplexKernels.dot(differences, a * length, columns[b], 0, length, capacitance, 2 * (a * rank + b));
+            }
+            capacitance[2 * (a * rank + a)] += 1;
+            ComplexKernels.dot(differences, a * length, solution, 0, length, rhs, 2 * a);
+        }
+        if (!solveInPlace(capacitance, rhs, rank)) {
+            return null;
+        }
+
+        for (int b = 0; b < rank; b++) {
+            ComplexKernels.axpy(-rhs[2 * b], -rhs[2 * b + 1], columns[b], 0, solution, 0, length);
+        }
+        return solution;
+    }
+
+    private double[] inverseColumn(int row) {
+        return inverseColumns.computeIfAbsent(row, r -> {
+            double[] unit = new double[2 * size];
+            unit[2 * r] = 1;
+            return decomposition.solve(unit);
+        });
+    }
+
+    // edited rows whose coefficients really differ, 0-based
+    private List<Integer> changedRows() {
+        List<Integer> rows = new ArrayList<>();
+        int length = 2 * size;
+        for (int row = 0; row < size; row++) {
+            if (!edited[row]) {
+                continue;
+            }
+            for (int t = 0; t < length; t++) {
+                if (augmented[rowStride * row + t] != factoredCoefficients[length * row + t]) {
+                    rows.add(row);
+                    break;
+                }
+            }
+        }
+        return rows;
+    }
+
+    private void refactor() {
+        Matrix system = new Matrix(size, size, augmented); // wrapped, LUDecomposition copies the coefficients
+        decomposition = new LUDecomposition(system, blockSize);
+        factoredCoefficients = system.getCoefficientData();
+        inverseColumns.clear();
+        Arrays.fill(edited, false);
+        numOfRefactorizations++;
+    }
+
+    private double[] constants() {
+        double[] constants = new double[2 * size];
+        for (int row = 0; row < size; row++) {
+            constants[2 * row]     = augmented[rowStride * row + 2 * size];
+            constants[2 * row + 1] = augmented[rowStride * row + 2 * size + 1];
+        }
+        return constants;
+    }
+
+    // |b - A'x|inf / (|A'|inf |x|inf + |b|inf), by moduli
+    private double backwardError(double[] solution) {
+        double[] product = new double[2];
+        double residualNorm = 0;
+        double matrixNorm = 0;
+        double constantNorm = 0;
+        for (int row = 0; row < size; row++) {
+            int start = rowStride * row;
+            ComplexKernels.dot(augmented, start, solution, 0, 2 * size, product, 0);
+            double constantRe = augmented[start + 2 * size];
+            double constantIm = augmented[start + 2 * size + 1];
+            residualNorm = Math.max(residualNorm, Math.hypot(constantRe - product[0], constantIm - product[1]));
+            constantNorm = Math.max(constantNorm, Math.hypot(constantRe, constantIm));
+            double rowSum = 0;
+            for (int t = start; t < start + 2 * size; t += 2) {
+                rowSum += Math.hypot(augmented[t], augmented[t + 1]);
+            }
+            matrixNorm = Math.max(matrixNorm, rowSum);
+        }
+        double solutionNorm = 0;
+        for (int t = 0; t < solution.length; t += 2) {
+            solutionNorm = Math.max(solutionNorm, Math.hypot(solution[t], solution[t + 1]));
+        }
+        double scale = matrixNorm * solutionNorm + constantNorm;
+        return scale == 0 ? residualNorm : residualNorm / scale;
+    }
+
+    // Gauss-Jordan elimination with partial pivoting of the k x k system; false if a pivot is
+    // negligible next to the identity part or the largest term. The determinant of I + D Z is
+    // det(A') / det(A), so a tiny pivot means the edits made the matrix (nearly) singular.
+    private static boolean solveInPlace(double[] a, double[] b, int k) {
+        double largest = 1;
+        for (int t = 0; t < a.length; t += 2) {
+            largest = Math.max(largest, Math.hypot(a[t], a[t + 1]));
+        }
+        double negligible = STABILITY_TOLERANCE * largest;
+
+        for (int column = 0; column < k; column++) {
+            int pivotRow = column;
+            double maxModulus = -1;
+            for (int row = column; row < k; row++) {
+                double modulus = Math.hypot(a[2 * (row * k + column)], a[2 * (row * k + column) + 1]);
+                if (modulus > maxModulus) {
+                    maxModulus = modulus;
+                    pivotRow = row;
+                }
+            }
+            if (maxModulus <= negligible) {
+                return false;
+            }
+            if (pivotRow != column) {
+                for (int t = 0; t < 2 * k; t++) {
+                    double temp = a[2 * pivotRow * k + t];
+                    a[2 * pivotRow * k + t] = a[2 * column * k + t];
+                    a[2 * column * k + t] = temp;
+                }
+                double tempRe = b[2 * pivotRow];
+                double tempIm = b[2 * pivotRow + 1];
+                b[2 * pivotRow]     = b[2 * column];
+                b[2 * pivotRow + 1] = b[2 * column + 1];
+                b[2 * column]     = tempRe;
+                b[2 * column + 1] = tempIm;
+            }
+
+            // 1/pivot = conj(pivot)/|pivot|^2
+            int pivotIndex = 2 * (column * k + column);
+            double modulusSquared = a[pivotIndex]*a[pivotIndex] + a[pivotIndex + 1]*a[pivotIndex + 1];
+            double inverseRe =  a[pivotIndex]     / modulusSquared;
+            double inverseIm = -a[pivotIndex + 1] / modulusSquared;
+            int tail = 2 * (k - column);
+            ComplexKernels.scale(inverseRe, inverseIm, a, pivotIndex, tail);
+            ComplexKernels.scale(inverseRe, inverseIm, b, 2 * column, 2);
+            for (int row = 0; row < k; row++) {
+                int index = 2 * (row * k + column);
+                double factorRe = a[index];
+                double factorIm = a[index + 1];
+                if (row == column || factorRe == 0 && factorIm == 0) {
+                    continue;
+                }
+                ComplexKernels.axpy(-factorRe, -factorIm, a, pivotIndex, a, index, tail);
+                ComplexKernels.axpy(-factorRe, -factorIm, b, 2 * column, b, 2 * row, 2);
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,34 @@
+package solver;
+
+// What an IterativeSolver returns: the last iterate, how many iterations it took and
+// whether the residual got below the tolerance.
+class IterativeResult {
+    private final double[] solution;
+    private final int iterations;
+    private final double residual;
+    private final boolean converged;
+
+    IterativeResult(double[] solution, int iterations, double residual, boolean converged) {
+        this.solution = solution;
+        this.iterations = iterations;
+        this.residual = residual;
+        this.converged = converged;
+    }
+
+    public double[] getSolution() {
+        return solution;
+    }
+
+    public int getIterations() {
+        return iterations;
+    }
+
+    // ||b - Ax|| / ||b|| at the returned solution
+    public double getResidual() {
+        return residual;
+    }
+
+    public boolean isConverged() {
+        return converged;
+    }
+}
@@ -0,0 +1,125 @@
+package solver;
+
+import java.util.InputMismatchException;
+
+// Base of the iterative solvers: stopping rule, optional diagonal (Jacobi) preconditioner,
+// and complex vector helpers on interleaved (re, im) arrays. Convergence is
+// ||b - Ax|| <= tolerance * ||b||.
+abstract class IterativeSolver {
+    public static final double DEFAULT_TOLERANCE = 1e-10;
+    public static final int DEFAULT_MAX_ITERATIONS = 1000;
+
+    protected final double tolerance;
+    protected final int maxIterations;
+    protected final boolean diagonalPreconditioner;
+
+    protected IterativeSolver(double tolerance, int maxIterations, boolean diagonalPreconditioner) {
+        if (tolerance <= 0) {
+            throw new IllegalArgumentException("Invalid tolerance: " + tolerance);
+        }
+        if (maxIterations < 1) {
+            throw new IllegalArgumentException("Invalid iteration count: " + maxIterations);
+        }
+        this.tolerance = tolerance;
+        this.maxIterations = maxIterations;
+        this.diagonalPreconditioner = diagonalPreconditioner;
+    }
+
+    // method is jacobi, gauss-seidel, bicgstab or gmres
+    public static IterativeSolver create(String method, double tolerance, int maxIterations,
+                                         boolean diagonalPreconditioner, int restart) {
+        switch (method) {
+            case "jacobi":
+                return new JacobiSolver(tolerance, maxIterations);
+            case "gauss-seidel":
+                return new GaussSeidelSolver(tolerance, maxIterations);
+            case "bicgstab":
+                return new BiCGStabSolver(tolerance, maxIterations, diagonalPreconditioner);
+            case "gmres":
+                return new GmresSolver(tolerance, maxIterations, diagonalPreconditioner, restart);
+            default:
+                throw new IllegalArgumentException("Unknown iterative method: " + method);
+        }
+    }
+
+    public IterativeResult solve(LinearOperator operator, double[] constants) {
+        return solve(operator, constants, new double[2 * operator.size()]);
+    }
+
+    // initialGuess is overwritten with the solution
+    public IterativeResult solve(LinearOperator operator, double[] constants, double[] initialGuess) {
+        if (constants.length != 2 * operator.size() || initialGuess.length != constants.length) {
+            throw new InputMismatchException("Constant vector has " + constants.length / 2
+                    + " terms, expected " + operator.size());
+        }
+        return iterate(operator, constants, initialGuess);
+    }
+
+    protected abstract IterativeResult iterate(LinearOperator operator, double[] constants, double[] x);
+
+    protected IterativeResult result(LinearOperator operator, double[] constants, double[] x, int iterations) {
+        double residual = relativeResidual(operator, constants, x, new double[x.length]);
+        return new IterativeResult(x, iterations, residual, residual <= tolerance);
+    }
+
+    // ||b - Ax|| / ||b||, with residual receiving b - Ax
+    protected static double relativeResidual(LinearOperator operator, double[] constants, double[] x, double[] residual) {
+        operator.apply(x, residual);
+        for (int i = 0; i < residual.length; i++) {
+            residual[i] = constants[i] - residual[i];
+        }
+        double constantsNorm = norm(constants);
+        return norm(residual) / (constantsNorm == 0 ? 1 : constantsNorm);
+    }
+
+    // inverse of the diagonal, or null when not preconditioning
+    protected double[] inverseDiagonal(LinearOperator operator) {
+        if (!diagonalPreconditioner) {
+            return null;
+        }
+        double[] inverse = operator.diagonal();
+        for (int i = 0; i < inverse.length; i += 2) {
+            double re = inverse[i];
+            double im = inverse[i + 1];
+            double modulus = re*re + im*im;
+            if (modulus == 0) {
+                throw new ArithmeticException("Zero on the diagonal, row " + (i / 2 + 1));
+            }
+            inverse[i]     =  re / modulus;
+            inverse[i + 1] = -im / modulus;
+        }
+        return inverse;
+    }
+
+    // result = M^-1 v with M the diagonal, or a copy when inverseDiagonal is null
+    protected static void precondition(double[] inverseDiagonal, double[] v, double[] result) {
+        if (inverseDiagonal == null) {
+            System.arraycopy(v, 0, result, 0, v.length);
+            return;
+        }
+        for (int i = 0; i < v.length; i += 2) {
+            double re = v[i];
+            double im = v[i + 1];
+            result[i]     = re*inverseDiagonal[i] - im*inverseDiagonal[i + 1];
+            result[i + 1] = re*inverseDiagonal[i + 1] + im*inverseDiagonal[i];
+        }
+    }
+
+    protected static double norm(double[] v) {
+        double[] product = new double[2];
+        ComplexKernels.dotConjugated(v, 0, v, 0, v.length, product, 0);
+        return Math.sqrt(product[0]);
+    }
+
+    // sum of conj(a_i) * b_i, which is the kernel's sum of b_i * conj(a_i)
+    protected static ComplexNumber dot(double[] a, double[] b) {
+        double[] product = new double[2];
+        ComplexKernels.dotConjugated(b, 0, a, 0, a.length, product, 0);
+        return new ComplexNumber(product[0], product[1]);
+    }
+
+    // y += factor * x
+    protected static void axpy(ComplexNumber factor, double[] x, double[] y) {
+        ComplexKernels.axpy(factor.getReal(), factor.getImaginary(), x, 0, y, 0, x.length);
+    }
+}
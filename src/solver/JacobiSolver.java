@@ -0,0 +1,27 @@
+package solver;
+
+// x <- x + D^-1 (b - Ax). Converges for strictly diagonally dominant systems.
+class JacobiSolver extends IterativeSolver {
+
+    public JacobiSolver(double tolerance, int maxIterations) {
+        super(tolerance, maxIterations, true); // Jacobi is the diagonal-preconditioned Richardson iteration
+    }
+
+    @Override
+    protected IterativeResult iterate(LinearOperator operator, double[] constants, double[] x) {
+        double[] inverseDiagonal = inverseDiagonal(operator);
+        double[] residual = new double[x.length];
+        double[] correction = new double[x.length];
+
+        for (int iteration = 0; iteration < maxIterations; iteration++) {
+            if (relativeResidual(operator, constants, x, residual) <= tolerance) {
+                return result(operator, constants, x, iteration);
+            }
+            precondition(inverseDiagonal, residual, correction);
+            for (int i = 0; i < x.length; i++) {
+                x[i] += correction[i];
+            }
+        }
+        return result(operator, constants, x, maxIterations);
+    }
+}
@@ -0,0 +1,281 @@
+package solver;
+
+import java.util.InputMismatchException;
+
+// PA = LU of the coefficient part of a square system, with partial pivoting.
+// Factor once, then solve for any number of constant vectors in O(n^2) each.
+class LUDecomposition {
+    public static final int DEFAULT_BLOCK_SIZE = 64;
+    private static final int TILE_COLUMNS = 128; // columns of the trailing matrix updated per tile
+
+    private final int size;
+    private final double[] lu; // interleaved (re, im), row-major; unit L below the diagonal, U on and above
+    private final int[] permutation; // permutation[i] = original row now at row i
+    private final double negligibleModulus;
+    private boolean singular;
+
+    public LUDecomposition(Matrix system) {
+        this(system, 1);
+    }
+
+    // blockSize > 1 factors panels of that many columns and updates the trailing
+    // matrix tile by tile; blockSize <= 1 is the unblocked right-looking loop
+    public LUDecomposition(Matrix system, int blockSize) {
+        if (system.getMatrixNumOfEquations() != system.getMatrixNumOfVariables()) {
+            throw new InputMismatchException("LU decomposition needs a square system, got "
+                    + system.getMatrixNumOfEquations() + " equations in "
+                    + system.getMatrixNumOfVariables() + " variables");
+        }
+
+        size = system.getMatrixNumOfVariables();
+        lu = system.getCoefficientData();
+        negligibleModulus = system.getNegligibleModulus();
+        permutation = new int[size];
+        for (int i = 0; i < size; i++) {
+            permutation[i] = i;
+        }
+
+        if (blockSize <= 1 || blockSize >= size) {
+            factorPanel(0, size, size);
+        } else {
+            factorBlocked(blockSize);
+        }
+    }
+
+    // factors saved earlier, e.g. by FactorizationCache; not copied
+    LUDecomposition(int size, double[] factors, int[] permutation) {
+        if (factors.length != 2 * size * size || permutation.length != size) {
+            throw new InputMismatchException("Factors do not match size " + size);
+        }
+        this.size = size;
+        this.lu = factors;
+        this.permutation = permutation;
+        this.negligibleModulus = 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    // L and U packed as described at lu; not a copy
+    double[] getFactors() {
+        return lu;
+    }
+
+    public boolean isSingular() {
+        return singular;
+    }
+
+    public int[] getPermutation() {
+        return permutation.clone();
+    }
+
+    private void factorBlocked(int blockSize) {
+        for (int first = 0; first < size; first += blockSize) {
+            int last = Math.min(first + blockSize, size); // exclusive
+            factorPanel(first, last, last);
+            if (last < size) {
+                solveBlockRow(first, last);
+                updateTrailingMatrix(first, last);
+            }
+        }
+    }
+
+    // eliminates columns first..last-1 over all rows below, with partial pivoting
+    // (swapping whole rows), but only updates columns before updateEnd
+    private void factorPanel(int first, int last, int updateEnd) {
+        int rowStride = 2 * size;
+        double negligibleSquared = negligibleModulus*negligibleModulus;
+        for (int k = first; k < last; k++) {
+            // largest modulus pivot in column k
+            int pivotRow = k;
+            double maxModulus = -1;
+            for (int i = k; i < size; i++) {
+                int index = i * rowStride + 2 * k;
+                double modulus = lu[index]*lu[index] + lu[index + 1]*lu[index + 1];
+                if (modulus > maxModulus) {
+                    maxModulus = modulus;
+                    pivotRow = i;
+                }
+            }
+
+            if (maxModulus <= negligibleSquared) {
+                singular = true; // nothing to eliminate in this column
+                continue;
+            }
+
+            if (pivotRow != k) {
+                swapRows(k, pivotRow);
+            }
+
+            // 1/pivot = conj(pivot)/|pivot|^2
+            int pivotIndex = k * rowStride + 2 * k;
+            double inverseRe =  lu[pivotIndex]     / maxModulus;
+            double inverseIm = -lu[pivotIndex + 1] / maxModulus;
+
+            for (int i = k + 1; i < size; i++) {
+                int index = i * rowStride + 2 * k;
+                double termRe = lu[index];
+                double termIm = lu[index + 1];
+                if (termRe == 0 && termIm == 0) {
+                    continue;
+                }
+
+                double multiplierRe = termRe*inverseRe - termIm*inverseIm;
+                double multiplierIm = termRe*inverseIm + termIm*inverseRe;
+                lu[index]     = multiplierRe;
+                lu[index + 1] = multiplierIm;
+
+                // row i -= multiplier * row k, right of the pivot
+                subtractMultipleOfRow(lu, index + 2, pivotIndex + 2, 2 * (updateEnd - k - 1), multiplierRe, multiplierIm);
+            }
+        }
+    }
+
+    // U12 = inverse(L11) * A12 for the rows of the panel, columns right of it
+    private void solveBlockRow(int first, int last) {
+        int rowStride = 2 * size;
+        int length = 2 * (size - last);
+        for (int i = first + 1; i < last; i++) {
+            for (int k = first; k < i; k++) {
+                int index = i * rowStride + 2 * k;
+                subtractMultipleOfRow(lu, i * rowStride + 2 * last, k * rowStride + 2 * last, length, lu[index], lu[index + 1]);
+            }
+        }
+    }
+
+    // A22 -= L21 * U12, one TILE_COLUMNS wide strip at a time so the strip of U12 stays in cache
+    private void updateTrailingMatrix(int first, int last) {
+        int rowStride = 2 * size;
+        for (int column = last; column < size; column += TILE_COLUMNS) {
+            int length = 2 * (Math.min(column + TILE_COLUMNS, size) - column);
+            for (int i = last; i < size; i++) {
+                int target = i * rowStride + 2 * column;
+                for (int k = first; k < last; k++) {
+                    int index = i * rowStride + 2 * k;
+                    subtractMultipleOfRow(lu, target, k * rowStride + 2 * column, length, lu[index], lu[index + 1]);
+                }
+            }
+        }
+    }
+
+    private void swapRows(int rowOne, int rowTwo) {
+        int rowStride = 2 * size;
+        int one = rowOne * rowStride;
+        int two = rowTwo * rowStride;
+        for (int t = 0; t < rowStride; t++) {
+            double temp = lu[one + t];
+            lu[one + t] = lu[two + t];
+            lu[two + t] = temp;
+        }
+
+        int temp = permutation[rowOne];
+        permutation[rowOne] = permutation[rowTwo];
+        permutation[rowTwo] = temp;
+    }
+
+    // solves Ax = b for one interleaved constant vector (length 2n)
+    public double[] solve(double[] constants) {
+        double[] solution = new double[2 * size];
+        solve(constants, solution);
+        return solution;
+    }
+
+    public void solve(double[] constants, double[] solution) {
+        if (constants.length != 2 * size || solution.length != 2 * size) {
+            throw new InputMismatchException("Constant vector has " + constants.length / 2
+                    + " terms, expected " + size);
+        }
+        if (constants == solution) {
+            constants = constants.clone(); // permuting in place would overwrite unread terms
+        }
+
+        for (int i = 0; i < size; i++) {
+            solution[2 * i]     = constants[2 * permutation[i]];
+            solution[2 * i + 1] = constants[2 * permutation[i] + 1];
+        }
+        solveBlock(solution, 1, false);
+    }
+
+    public ComplexNumber[] solve(ComplexNumber[] constants) {
+        double[] data = new double[2 * constants.length];
+        for (int i = 0; i < constants.length; i++) {
+            data[2 * i]     = constants[i].getReal();
+            data[2 * i + 1] = constants[i].getImaginary();
+        }
+
+        double[] solution = solve(data);
+        ComplexNumber[] result = new ComplexNumber[size];
+        for (int i = 0; i < size; i++) {
+            result[i] = new ComplexNumber(solution[2 * i], solution[2 * i + 1]);
+        }
+        return result;
+    }
+
+    // solves AX = B in place for a block of constant vectors, stored row-major
+    // as n rows of numOfColumns interleaved terms
+    public void solveBlock(double[] block, int numOfColumns) {
+        if (block.length != 2 * size * numOfColumns) {
+            throw new InputMismatchException("Constant block has " + block.length / 2
+                    + " terms, expected " + size * numOfColumns);
+        }
+        solveBlock(block, numOfColumns, true);
+    }
+
+    private void solveBlock(double[] block, int numOfColumns, boolean permute) {
+        if (singular) {
+            throw new ArithmeticException("Matrix is singular");
+        }
+
+        int rowStride = 2 * size;
+        int blockStride = 2 * numOfColumns;
+
+        if (permute) {
+            double[] permuted = new double[block.length];
+            for (int i = 0; i < size; i++) {
+                System.arraycopy(block, permutation[i] * blockStride, permuted, i * blockStride, blockStride);
+            }
+            System.arraycopy(permuted, 0, block, 0, block.length);
+        }
+
+        // forward substitution with unit L
+        for (int i = 1; i < size; i++) {
+            int target = i * blockStride;
+            for (int j = 0; j < i; j++) {
+                int index = i * rowStride + 2 * j;
+                subtractMultipleOfRow(block, target, j * blockStride, blockStride, lu[index], lu[index + 1]);
+            }
+        }
+
+        // back substitution with U
+        for (int i = size - 1; i >= 0; i--) {
+            int target = i * blockStride;
+            for (int j = i + 1; j < size; j++) {
+                int index = i * rowStride + 2 * j;
+                subtractMultipleOfRow(block, target, j * blockStride, blockStride, lu[index], lu[index + 1]);
+            }
+
+            int pivotIndex = i * rowStride + 2 * i;
+            double pivotRe = lu[pivotIndex];
+            double pivotIm = lu[pivotIndex + 1];
+            double modulus = pivotRe*pivotRe + pivotIm*pivotIm;
+            double inverseRe =  pivotRe / modulus;
+            double inverseIm = -pivotIm / modulus;
+            ComplexKernels.scale(inverseRe, inverseIm, block, target, blockStride);
+        }
+    }
+
+    // data[target..] -= (re + im*i) * data[source..]
+    private static void subtractMultipleOfRow(double[] data, int target, int source, int length, double re, double im) {
+        if (re == 0 && im == 0) {
+            return;
+        }
+        // adding -factor * source is subtracting factor * source, to the bit
+        ComplexKernels.axpy(-re, -im, data, source, data, target, length);
+    }
+
+    // complex flops of an n x n LU, counting a complex multiply-add as 8 real flops
+    public static double flops(int size) {
+        return 8.0 * size * size * size / 3;
+    }
+}
@@ -1,29 +1,47 @@
 package solver;
 
-import java.io.File;
-import java.io.FileNotFoundException;
 import java.util.InputMismatchException;
-import java.util.Scanner;
 
+// Row view into interleaved (re, im) storage, usually owned by a Matrix
 class LinearEquation {
-    private ComplexNumber[] equation;
+    private double[] data;
+    private int offset;
     private int equationLength;
 
     public LinearEquation(int numOfCoeffs) {
-        equationLength = numOfCoeffs + 1; // +1 for constant
-        equation = new ComplexNumber[equationLength];
+        this(new double[2 * (numOfCoeffs + 1)], 0, numOfCoeffs);
     }
 
-    public ComplexNumber[] getEquation() {
-        return equation;
+    LinearEquation(double[] data, int offset, int numOfCoeffs) {
+        this.data = data;
+        this.offset = offset;
+        this.equationLength = numOfCoeffs + 1; // +1 for constant
+    }
+
+    public int getEquationLength() {
+        return equationLength;
     }
 
     public ComplexNumber getTerm(int i) {
-        if (i < 1 || i > equationLength) {
-            throw new IndexOutOfBoundsException("Invalid term index: " + i);
-        }
+        checkTermIndex(i);
+        int index = offset + 2 * (i - 1);
+        return new ComplexNumber(data[index], data[index + 1]);
+    }
 
-        return equation[i-1];
+    public double getReal(int i) {
+        checkTermIndex(i);
+        return data[offset + 2 * (i - 1)];
+    }
+
+    public double getImaginary(int i) {
+        checkTermIndex(i);
+        return data[offset + 2 * (i - 1) + 1];
+    }
+
+    public boolean isZeroTerm(int i) {
+        checkTermIndex(i);
+        int index = offset + 2 * (i - 1);
+        return data[index] == 0 && data[index + 1] == 0;
     }
 
     protected void setCoeff(int i, ComplexNumber newTerm) {
@@ -31,86 +49,82 @@ class LinearEquation {
             throw new IndexOutOfBoundsException("Invalid term index: " + i);
         }
 
-        equation[i-1] = newTerm;
+        setTerm(i, newTerm.getReal(), newTerm.getImaginary());
     }
 
     protected void setTerm(int i, ComplexNumber newTerm) {
-        if (i < 1 || i > equationLength) { // can set constants
-            throw new IndexOutOfBoundsException("Invalid term index: " + i);
-        }
+        setTerm(i, newTerm.getReal(), newTerm.getImaginary());
+    }
 
-        equation[i-1] = newTerm;
+    protected void setTerm(int i, double real, double imaginary) {
+        checkTermIndex(i); // can set constants
+        int index = offset + 2 * (i - 1);
+        data[index] = real;
+        data[index + 1] = imaginary;
     }
 
     public ComplexNumber getConstantTerm() {
-        return equation[equationLength-1];
+        return getTerm(equationLength);
     }
 
     public void multiplyRowAndChange(ComplexNumber x) {
-        //if (x != 1) {
-            for (int i = 0; i < equationLength; i++) {
-                equation[i] = equation[i].multiplyBy(x);
-            //}
-        }
+        scale(x.getReal(), x.getImaginary());
     }
 
-    public LinearEquation multiplyRowTemp(ComplexNumber x) {
-        LinearEquation result = new LinearEquation(equationLength-1);
-        for (int i = 1; i <= equationLength; i++) {
-            result.setTerm(i, equation[i-1].multiplyBy(x));
-        }
-
-        return result;
+    // row *= (re + im*i), in place
+    public void scale(double re, double im) {
+        ComplexKernels.scale(re, im, data, offset, 2 * equationLength);
     }
 
-    public void addToRow(LinearEquation secondEquation) {
-        if (secondEquation.equationLength != equationLength) {
+    // row += (re + im*i) * other, in place
+    public void addMultipleOfRow(LinearEquation other, double re, double im) {
+        if (other.equationLength != equationLength) {
             throw new InputMismatchException("Linear equations are of unequal size");
         }
 
-        for (int i = 0; i < equationLength; i++) {
-            equation[i] = equation[i].add(secondEquation.getTerm(i+1));
-        }
+        ComplexKernels.axpy(re, im, other.data, other.offset, data, offset, 2 * equationLength);
     }
 
-    /*
-    public void addToRow(double[] secondEquation) {
-        if (secondEquation.length != equationLength) {
-            throw new InputMismatchException("Linear equations are of unequal size");
-        }
-
-        for (int i = 0; i < equationLength; i++) {
-            equation[i] += secondEquation[i];
-        }
+    public void addToRow(LinearEquation secondEquation) {
+        addMultipleOfRow(secondEquation, 1, 0);
     }
 
-     */
-
     public void subFromRow(LinearEquation secondEquation) {
-        for (int i = 0; i < equationLength; i++) {
-            equation[i] = equation[i].subtract(secondEquation.getTerm(i));
-        }
+        addMultipleOfRow(secondEquation, -1, 0);
     }
 
-    public void fillEquationFromScanner(Scanner scanner) {
-        int i = 0;
-        while (scanner.hasNext() && i < equationLength) {
-            equation[i] = new ComplexNumber(scanner.next());
-            i++;
-        }
+    // sum of coefficient * x over the coefficients, x interleaved; written to result[index], result[index + 1]
+    void dotCoefficients(double[] x, double[] result, int index) {
+        ComplexKernels.dot(data, offset, x, 0, 2 * (equationLength - 1), result, index);
+    }
+
+    void copyCoefficientsTo(double[] destination, int destinationOffset) {
+        System.arraycopy(data, offset, destination, destinationOffset, 2 * (equationLength - 1));
     }
 
     public void print() {
-        for (int i = 0; i < equationLength; i++) {
-            System.out.print(equation[i] + " ");
+        StringBuilder text = new StringBuilder();
+        for (int i = 1; i <= equationLength; i++) {
+            ComplexFormatter.append(text, getReal(i), getImaginary(i)).append(' ');
         }
+        System.out.print(text);
     }
 
     public boolean isInconsistent() {
-        if (getConstantTerm().isZero()) { // e.g. 1 0 4 | 0
+        return isInconsistent(0);
+    }
+
+    // terms with modulus <= negligibleModulus count as zero
+    public boolean isInconsistent(double negligibleModulus) {
+        return isInconsistent(negligibleModulus, negligibleModulus);
+    }
+
+    // coefficients and the constant term each against their own threshold
+    public boolean isInconsistent(double negligibleModulus, double negligibleConstantModulus) {
+        if (isNegligibleTerm(equationLength, negligibleConstantModulus)) { // e.g. 1 0 4 | 0
             return false;
         } else {
-            if(hasNonZeroCoeffs()) { // e.g. 0 3 0 | 5
+            if(hasNonZeroCoeffs(negligibleModulus)) { // e.g. 0 3 0 | 5
                     return false;
             }
         }
@@ -118,11 +132,27 @@ class LinearEquation {
     }
 
     public boolean hasNonZeroCoeffs() {
-        for (int i = 0; i < equationLength-1; i++) { // equationLength-1, do not include constant term
-            if (!equation[i].isZero()) {
+        return hasNonZeroCoeffs(0);
+    }
+
+    public boolean hasNonZeroCoeffs(double negligibleModulus) {
+        for (int i = 1; i < equationLength; i++) { // equationLength-1, do not include constant term
+            if (!isNegligibleTerm(i, negligibleModulus)) {
                 return true;
             }
         }
         return false;
     }
+
+    public boolean isNegligibleTerm(int i, double negligibleModulus) {
+        checkTermIndex(i);
+        int index = offset + 2 * (i - 1);
+        return data[index]*data[index] + data[index + 1]*data[index + 1] <= negligibleModulus*negligibleModulus;
+    }
+
+    private void checkTermIndex(int i) {
+        if (i < 1 || i > equationLength) {
+            throw new IndexOutOfBoundsException("Invalid term index: " + i);
+        }
+    }
 }
@@ -0,0 +1,22 @@
+package solver;
+
+// Square coefficient matrix seen only through its action on vectors, so the iterative
+// solvers work on dense, sparse and matrix-free systems alike. Vectors are interleaved
+// (re, im) pairs of length 2 * size().
+interface LinearOperator {
+
+    int size();
+
+    // y = A x
+    void apply(double[] x, double[] y);
+
+    // interleaved diagonal of A, for Jacobi and the diagonal preconditioner
+    default double[] diagonal() {
+        throw new UnsupportedOperationException("Operator does not expose its diagonal");
+    }
+
+    // one in-place Gauss-Seidel sweep for Ax = b, only for operators that store their entries
+    default void gaussSeidelSweep(double[] constants, double[] x) {
+        throw new UnsupportedOperationException("Operator does not support Gauss-Seidel sweeps");
+    }
+}
@@ -0,0 +1,43 @@
+package solver;
+
+// What LinearSystemSolver found: the outcome, the rank of the coefficient matrix and the
+// number of free variables, and the solution when there is exactly one. Mutable so that a
+// caller can hand the same result to solve after solve; not safe to share between threads.
+public final class LinearSystemResult {
+    private Main.SystemResult result = Main.SystemResult.error;
+    private int rank;
+    private int numOfFreeVariables;
+    private double[] solution = new double[0]; // kept across solves of the same number of variables
+
+    public Main.SystemResult getResult() {
+        return result;
+    }
+
+    public boolean isSolved() {
+        return result == Main.SystemResult.solved;
+    }
+
+    public int getRank() {
+        return rank;
+    }
+
+    // 0 unless there are infinitely many solutions, or none and the coefficients are rank deficient
+    public int getNumOfFreeVariables() {
+        return numOfFreeVariables;
+    }
+
+    // interleaved (re, im) values of the variables; null unless solved
+    public double[] getSolution() {
+        return isSolved() ? solution : null;
+    }
+
+    LinearSystemResult set(Main.SystemResult result, int rank, int numOfFreeVariables, int numOfVariables) {
+        this.result = result;
+        this.rank = rank;
+        this.numOfFreeVariables = numOfFreeVariables;
+        if (result == Main.SystemResult.solved && solution.length != 2 * numOfVariables) {
+            solution = new double[2 * numOfVariables];
+        }
+        return this;
+    }
+}
@@ -0,0 +1,198 @@
+package solver;
+
+import java.util.InputMismatchException;
+
+// Solving without Main: no files, no System.out, no System.exit. Takes interleaved (re, im)
+// row-major data, as Matrix does, and reports the outcome, rank and free variables in a
+// LinearSystemResult. Thread-safe; each thread eliminates in a workspace of its own, kept
+// between calls and grown only for a larger system, so once the workspace and a reused
+// result are big enough a solve allocates nothing.
+//
+// Gauss-Jordan with partial pivoting on a copy of the input, which is left untouched. Rank is
+// judged as on the Matrix paths: coefficients at or below Matrix.negligibleModulus, max(m, n)
+// * machine epsilon * the largest coefficient modulus, count as zero, and a constant left in
+// a zero row counts as a contradiction only above the same bound taken over the constants.
+public final class LinearSystemSolver {
+    private final ThreadLocal<Workspace> workspaces = ThreadLocal.withInitial(Workspace::new);
+
+    // grows the calling thread's workspace for systems up to this size ahead of the first solve
+    public void reserve(int numOfEquations, int numOfVariables) {
+        checkSize(numOfEquations, numOfVariables);
+        workspaces.get().reserve(numOfEquations, numOfVariables);
+    }
+
+    public LinearSystemResult solve(int numOfEquations, int numOfVariables, double[] augmentedData) {
+        return solve(numOfEquations, numOfVariables, augmentedData, new LinearSystemResult());
+    }
+
+    // augmentedData: numOfEquations rows of numOfVariables coefficients and a constant term;
+    // the outcome is written over result, whose solution array is kept if it is large enough
+    public LinearSystemResult solve(int numOfEquations, int numOfVariables, double[] augmentedData,
+                                    LinearSystemResult result) {
+        checkSize(numOfEquations, numOfVariables);
+        if (augmentedData.length != 2 * (numOfVariables + 1) * numOfEquations) {
+            throw new InputMismatchException("System data has " + augmentedData.length / 2 + " terms, expected "
+                    + (numOfVariables + 1) * numOfEquations);
+        }
+
+        Workspace workspace = workspaces.get();
+        workspace.reserve(numOfEquations, numOfVariables);
+        System.arraycopy(augmentedData, 0, workspace.data, 0, augmentedData.length);
+        return eliminate(workspace, numOfEquations, numOfVariables, result);
+    }
+
+    public LinearSystemResult solve(int numOfEquations, int numOfVariables, double[] coefficients, double[] constants) {
+        return solve(numOfEquations, numOfVariables, coefficients, constants, new LinearSystemResult());
+    }
+
+    // coefficients without the constant column, interleaved and row-major; constants interleaved
+    public LinearSystemResult solve(int numOfEquations, int numOfVariables, double[] coefficients, double[] constants,
+                                    LinearSystemResult result) {
+        checkSize(numOfEquations, numOfVariables);
+        if (coefficients.length != 2 * numOfVariables * numOfEquations) {
+            throw new InputMismatchException("Coefficient data has " + coefficients.length / 2 + " terms, expected "
+                    + numOfVariables * numOfEquations);
+        }
+        if (constants.length != 2 * numOfEquations) {
+            throw new InputMismatchException("Constant data has " + constants.length / 2 + " terms, expected "
+                    + numOfEquations);
+        }
+
+        Workspace workspace = workspaces.get();
+        workspace.reserve(numOfEquations, numOfVariables);
+        int rowStride = 2 * (numOfVariables + 1);
+        for (int i = 0; i < numOfEquations; i++) {
+            System.arraycopy(coefficients, 2 * numOfVariables * i, workspace.data, i * rowStride, 2 * numOfVariables);
+            workspace.data[i * rowStride + rowStride - 2] = constants[2 * i];
+            workspace.data[i * rowStride + rowStride - 1] = constants[2 * i + 1];
+        }
+        return eliminate(workspace, numOfEquations, numOfVariables, result);
+    }
+
+    // the system as it stands, in current row order; the Matrix itself is not changed
+    LinearSystemResult solve(Matrix system, LinearSystemResult result) {
+        int numOfEquations = system.getMatrixNumOfEquations();
+        int numOfVariables = system.getMatrixNumOfVariables();
+        Workspace workspace = workspaces.get();
+        workspace.reserve(numOfEquations, numOfVariables);
+        int rowStride = 2 * (numOfVariables + 1);
+        for (int i = 0; i < numOfEquations; i++) {
+            LinearEquation equation = system.getRow(i + 1);
+            equation.copyCoefficientsTo(workspace.data, i * rowStride);
+            workspace.data[i * rowStride + rowStride - 2] = equation.getReal(numOfVariables + 1);
+            workspace.data[i * rowStride + rowStride - 1] = equation.getImaginary(numOfVariables + 1);
+        }
+        return eliminate(workspace, numOfEquations, numOfVariables, result);
+    }
+
+    private static LinearSystemResult eliminate(Workspace workspace, int numOfEquations, int numOfVariables,
+                                                LinearSystemResult result) {
+        double[] data = workspace.data;
+        int[] rowOffsets = workspace.rowOffsets; // rowOffsets[i]: where row i now starts in data
+        int[] pivotColumns = workspace.pivotColumns; // pivotColumns[k]: column of the k-th pivot
+        int rowStride = 2 * (numOfVariables + 1);
+        int length = rowStride * numOfEquations;
+
+        // as Matrix: one threshold from the coefficients for rank, one from the constants for consistency
+        double maxModulusSquared = 0;
+        double maxConstantModulusSquared = 0;
+        for (int rowStart = 0; rowStart < length; rowStart += rowStride) {
+            int constantIndex = rowStart + rowStride - 2;
+            for (int t = rowStart; t < constantIndex; t += 2) {
+                maxModulusSquared = Math.max(maxModulusSquared, data[t]*data[t] + data[t + 1]*data[t + 1]);
+            }
+            maxConstantModulusSquared = Math.max(maxConstantModulusSquared,
+                    data[constantIndex]*data[constantIndex] + data[constantIndex + 1]*data[constantIndex + 1]);
+        }
+        double negligibleModulus = Matrix.negligibleModulus(numOfVariables, numOfEquations, maxModulusSquared);
+        double negligibleSquared = negligibleModulus * negligibleModulus;
+        double negligibleConstantModulus = Matrix.negligibleModulus(numOfVariables, numOfEquations, maxConstantModulusSquared);
+        double negligibleConstantSquared = negligibleConstantModulus * negligibleConstantModulus;
+        for (int i = 0; i < numOfEquations; i++) {
+            rowOffsets[i] = i * rowStride;
+        }
+
+        int rank = 0;
+        for (int column = 0; column < numOfVariables && rank < numOfEquations; column++) {
+            // partial pivoting: the row with the largest modulus in this column
+            int pivotRow = -1;
+            double maxModulus = negligibleSquared;
+            for (int i = rank; i < numOfEquations; i++) {
+                int index = rowOffsets[i] + 2 * column;
+                double modulus = data[index]*data[index] + data[index + 1]*data[index + 1];
+                if (modulus > maxModulus) {
+                    maxModulus = modulus;
+                    pivotRow = i;
+                }
+            }
+            if (pivotRow == -1) {
+                continue; // free variable
+            }
+            int pivotOffset = rowOffsets[pivotRow];
+            rowOffsets[pivotRow] = rowOffsets[rank];
+            rowOffsets[rank] = pivotOffset;
+
+            // scale the pivot to 1 by conj(p)/|p|^2, then clear the column in every other row;
+            // terms left of the pivot are already zero in all of them
+            int from = 2 * column;
+            double pivotRe = data[pivotOffset + from];
+            double pivotIm = data[pivotOffset + from + 1];
+            ComplexKernels.scale(pivotRe / maxModulus, -pivotIm / maxModulus, data, pivotOffset + from, rowStride - from);
+            for (int i = 0; i < numOfEquations; i++) {
+                int offset = rowOffsets[i];
+                double termRe = data[offset + from];
+                double termIm = data[offset + from + 1];
+                if (i != rank && (termRe != 0 || termIm != 0)) {
+                    ComplexKernels.axpy(-termRe, -termIm, data, pivotOffset + from, data, offset + from, rowStride - from);
+                }
+            }
+            pivotColumns[rank++] = column;
+        }
+
+        // rows past the rank have only negligible coefficients: any constant left there is a contradiction
+        for (int i = rank; i < numOfEquations; i++) {
+            int index = rowOffsets[i] + rowStride - 2;
+            if (data[index]*data[index] + data[index + 1]*data[index + 1] > negligibleConstantSquared) {
+                return result.set(Main.SystemResult.noSolution, rank, numOfVariables - rank, 0);
+            }
+        }
+        if (rank < numOfVariables) {
+            return result.set(Main.SystemResult.infiniteSolutions, rank, numOfVariables - rank, 0);
+        }
+
+        result.set(Main.SystemResult.solved, rank, 0, numOfVariables);
+        double[] solution = result.getSolution();
+        for (int k = 0; k < rank; k++) {
+            int index = rowOffsets[k] + rowStride - 2;
+            solution[2 * pivotColumns[k]] = data[index];
+            solution[2 * pivotColumns[k] + 1] = data[index + 1];
+        }
+        return result;
+    }
+
+    private static void checkSize(int numOfEquations, int numOfVariables) {
+        if (numOfVariables < 1 || numOfEquations < 1) {
+            throw new IndexOutOfBoundsException("Invalid matrix size: " + numOfVariables + "x" + numOfEquations);
+        }
+    }
+
+    // one thread's elimination storage, only ever grown
+    private static class Workspace {
+        double[] data = new double[0];
+        int[] rowOffsets = new int[0];
+        int[] pivotColumns = new int[0];
+
+        void reserve(int numOfEquations, int numOfVariables) {
+            int length = 2 * (numOfVariables + 1) * numOfEquations;
+            if (data.length < length) {
+                data = new double[length];
+            }
+            if (rowOffsets.length < numOfEquations) {
+                rowOffsets = new int[numOfEquations];
+            }
+            if (pivotColumns.length < Math.min(numOfEquations, numOfVariables)) {
+                pivotColumns = new int[Math.min(numOfEquations, numOfVariables)];
+            }
+        }
+    }
+}
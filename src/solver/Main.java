@@ -1,172 +1,386 @@
 package solver;
 
+import java.io.BufferedOutputStream;
 import java.io.File;
 import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
 import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.InputMismatchException;
+import java.util.List;
+import java.util.Map;
 
 public class Main {
+    private static final int OUTPUT_BUFFER_BYTES = 1 << 20;
+    private static final int OUTPUT_CHUNK_CHARS = 1 << 16; // text built up before it goes to the writer
 
     public static void main(String[] args) {
 
-        if (args.length != 4 || !"-in".equals(args[0]) && !"-out".equals(args[2])) {
-            System.out.println("Syntax: -in <inputfile.txt> -out <outputfile.txt>");
+        Map<String, String> options = parseOptions(args);
+        if (options == null || !options.containsKey("-serve") && (!options.containsKey("-in") || !options.containsKey("-out"))) {
+            System.out.println("Syntax: -in <inputfile.txt> -out <outputfile.txt> [-threads <n>] [-threshold <terms>] [-block <k>]"
+                    + " [-method direct|jacobi|gauss-seidel|bicgstab|gmres] [-tol <t>] [-maxiter <n>]"
+                    + " [-precond none|diagonal] [-restart <m>] [-batch <workers>] [-metrics <file|->]"
+                    + " [-verbosity silent|summary|trace] [-trace <tracefile>]"
+                    + " [-format text|binary] [-convert text|binary]"
+                    + " [-outofcore <heap budget MB> [-scratch <directory>]] [-cache <MB> [-cachedir <directory>]]"
+                    + " [-whatif <editsfile>] [-precision double|mixed] [-distributed <workers>]");
+            System.out.println("        -serve <port> [-workers <n>] [-queue <systems>] [solver options]");
             System.exit(-1);
         }
 
-        File inputFile = new File(args[1]);
-        System.out.println(inputFile);
-
-        Matrix system = new Matrix(inputFile);
+        String method = options.getOrDefault("-method", "direct");
+        IterativeSolver iterativeSolver = null;
+        if (!method.equals("direct")) {
+            iterativeSolver = IterativeSolver.create(method,
+                    Double.parseDouble(options.getOrDefault("-tol", String.valueOf(IterativeSolver.DEFAULT_TOLERANCE))),
+                    Integer.parseInt(options.getOrDefault("-maxiter", String.valueOf(IterativeSolver.DEFAULT_MAX_ITERATIONS))),
+                    options.getOrDefault("-precond", "none").equals("diagonal"),
+                    Integer.parseInt(options.getOrDefault("-restart", String.valueOf(GmresSolver.DEFAULT_RESTART))));
+        }
+        // -block k: blocked LU for square non-singular systems
+        int blockSize = Integer.parseInt(options.getOrDefault("-block", "0"));
+        // -cache mb: keep LU factors of up to mb megabytes for systems that come back with new
+        // constants; -cachedir keeps them on disk between runs too
+        FactorizationCache cache = null;
+        if (options.containsKey("-cache")) {
+            try {
+                cache = new FactorizationCache(Long.parseLong(options.get("-cache")) << 20,
+                        options.containsKey("-cachedir") ? new File(options.get("-cachedir")) : null);
+            } catch (IOException cacheError) {
+                System.out.println("Cache error: " + cacheError.getMessage());
+            }
+        }
 
-        System.out.println("-----Input matrix----");
-        system.print();
-        System.out.println("-----Performing Gaussian elimination----");
+        // -serve port: keep solving systems sent over a local socket
+        if (options.containsKey("-serve")) {
+            int numOfWorkers = Integer.parseInt(options.getOrDefault("-workers", String.valueOf(Runtime.getRuntime().availableProcessors())));
+            int queueCapacity = Integer.parseInt(options.getOrDefault("-queue", String.valueOf(SolverServer.DEFAULT_QUEUE_CAPACITY)));
+            try (SolverServer server = new SolverServer(Integer.parseInt(options.get("-serve")), numOfWorkers, queueCapacity,
+                    blockSize, method, iterativeSolver, cache)) {
+                System.out.println("Listening on port " + server.getPort());
+                server.serve();
+            } catch (IOException serverError) {
+                System.out.println("Server error: " + serverError.getMessage());
+            }
+            return;
+        }
 
-        // find row with leading non-zero element
-        int leadingRow = system.findLeadingNonZeroRow();
+        File inputFile = new File(options.get("-in"));
+        String outputPath = options.get("-out");
 
-        // if all columns and rows are zeros
-        if (leadingRow == -1) {
-            // are all constant terms zero too?
-            ComplexNumber constantTermsSum = system.getConstantTermsSum();
-            if (constantTermsSum.isZero()) {
-                System.out.println("Infinitely many solutions");
-                writeToFile(args[3], system, SystemResult.infiniteSolutions);
-            } else {
-                System.out.println("No solutions");
-                writeToFile(args[3], system, SystemResult.noSolution);
+        // -batch n: a directory or a concatenated multi-system file on n workers
+        if (options.containsKey("-batch")) {
+            BatchSolver batchSolver = new BatchSolver(Integer.parseInt(options.get("-batch")), blockSize, method,
+                    iterativeSolver, cache);
+            try {
+                if (inputFile.isDirectory()) {
+                    batchSolver.solveDirectory(inputFile, new File(outputPath));
+                } else {
+                    batchSolver.solveConcatenated(inputFile, new File(outputPath));
+                }
+            } catch (IOException batchError) {
+                System.out.println("Batch error: " + batchError.getMessage());
             }
             return;
-        } else if (leadingRow > 1) {
-            system.swapRows(1, leadingRow);
-        }
-
-        // Get Row Echelon Form through Gaussian elimination
-        for (int pivot = 1 ; pivot <= system.getMatrixNumOfVariables(); pivot++) {
-
-            // if pivot is zero, swap with another row that has non-zero element in that column
-            if (system.getTerm(pivot, pivot).isZero()) {
-                int newRow = system.findNonZeroRowInCol(pivot);
-
-                // if there are no non-zero terms in this column
-                if (newRow == -1) {
-                    // find element in next column and swap columns
-                    int colToSwap = system.findLeadingNonZeroCol(pivot);
-                    if (colToSwap == -1) {
-                        // no more columns with non-zero elements
-                        break;
-                    } else {
-                        executeCommand(new SwapColumns(system, pivot, colToSwap));
-                    }
+        }
+
+        // -convert text|binary: rewrite the input in that format instead of solving it
+        if (options.containsKey("-convert")) {
+            try {
+                if (options.get("-convert").equals("binary")) {
+                    BinaryMatrixFile.convertToBinary(inputFile, new File(outputPath));
                 } else {
-                    system.swapRows(pivot, newRow);
+                    BinaryMatrixFile.convertToText(inputFile, new File(outputPath));
                 }
+                System.out.println("Converted to: " + outputPath);
+            } catch (IOException convertError) {
+                System.out.println("Conversion error: " + convertError.getMessage());
             }
+            return;
+        }
+        // -whatif edits: solve, then apply each line of edits and re-solve through low-rank updates
+        if (options.containsKey("-whatif")) {
+            solveWhatIf(inputFile, outputPath, new File(options.get("-whatif")), blockSize);
+            return;
+        }
+        // -format binary: write the solution in the binary format
+        boolean binaryOutput = options.getOrDefault("-format", "text").equals("binary");
+
+        System.out.println(inputFile);
+        ParallelEliminator eliminator = new ParallelEliminator(
+                Integer.parseInt(options.getOrDefault("-threads", String.valueOf(Runtime.getRuntime().availableProcessors()))),
+                Integer.parseInt(options.getOrDefault("-threshold", String.valueOf(ParallelEliminator.DEFAULT_SEQUENTIAL_THRESHOLD))));
+        SolveLog log = openLog(options);
+        try {
+            // -precision mixed: factor in single precision and refine the solution in double
+            boolean mixedPrecision = options.getOrDefault("-precision", "double").equals("mixed");
+            SystemSolver solver = new SystemSolver(eliminator, blockSize, method, iterativeSolver, log, cache, mixedPrecision);
+            SolveMetrics metrics = solver.getMetrics();
 
-            // multiply pivot by factor that makes it =1
-            ComplexNumber normalizationFactor = system.getTerm(pivot, pivot).inverse();
-            if (!normalizationFactor.isOne()) {
-                system.getRow(pivot).multiplyRowAndChange(normalizationFactor);
-                System.out.printf("%s * R%d -> R%d\n", normalizationFactor.toString(false), pivot, pivot);
+            // loaded straight into solve, so the solver may drop the system as soon as it is done with it
+            SystemSolution solution;
+            try {
+                if (options.containsKey("-distributed")) {
+                    // -distributed n: factor and solve on n worker JVMs in a 2-D block-cyclic layout
+                    solution = solveDistributed(solver, inputFile, Integer.parseInt(options.get("-distributed")));
+                } else if (options.containsKey("-outofcore")) {
+                    // -outofcore mb: factor through a scratch file, keeping about mb megabytes of the matrix on the heap
+                    solution = solveOutOfCore(solver, inputFile, options);
+                } else if (SparseMatrix.isSparseFile(inputFile)) {
+                    solution = solver.solve(loadSparseMatrix(inputFile, metrics));
+                } else {
+                    solution = solver.solve(loadMatrix(inputFile, metrics));
+                }
+            } finally {
+                log.close(); // the whole log is out before anything else is printed
             }
 
-            // Perform row ops to get all terms below it =0
-            for (int currentRow = pivot+1; currentRow <= system.getMatrixNumOfEquations(); currentRow++) {
-                ComplexNumber factor = system.getTerm(currentRow, pivot).divideBy(system.getTerm(pivot, pivot)).negative();
+            metrics.begin(SolveMetrics.Phase.output);
+            if (binaryOutput) {
+                writeToBinaryFile(outputPath, solution.getSolution(), solution.getResult());
+            } else {
+                writeToFile(outputPath, solution.getSolution(), solution.getResult());
+            }
+            metrics.end(SolveMetrics.Phase.output);
+            metrics.countBytesWritten(new File(outputPath).length());
+            if (cache != null) {
+                System.out.println(cache.getStatistics());
+            }
 
-                if (!factor.isZero()) {
-                    printRowOp(pivot, currentRow, factor);
-                    system.getRow(currentRow).addToRow(system.getRow(pivot).multiplyRowTemp(factor));
-                }
+            // -metrics file: JSON summary of the solve, "-" for stderr
+            metrics.commitSummary();
+            if (options.containsKey("-metrics")) {
+                metrics.writeJson(options.get("-metrics"));
             }
+        } finally {
+            eliminator.shutdown();
         }
+    }
 
-        System.out.println("-----Row Echelon----");
-        system.print();
-        if (system.isInconsistent()) {
-            System.out.println("No solutions - inconsistent");
-            writeToFile(args[3], system, SystemResult.noSolution);
+    private static SystemSolution solveOutOfCore(SystemSolver solver, File inputFile, Map<String, String> options) {
+        long heapBudget = Long.parseLong(options.get("-outofcore")) << 20;
+        File scratchDirectory = new File(options.getOrDefault("-scratch", System.getProperty("java.io.tmpdir")));
+        try {
+            return solver.solveOutOfCore(inputFile, heapBudget, scratchDirectory);
+        } catch (IOException outOfCoreError) {
+            System.out.println("Out-of-core error: " + outOfCoreError.getMessage());
+            return new SystemSolution(SystemResult.error, null);
+        }
+    }
 
-            return;
+    private static SystemSolution solveDistributed(SystemSolver solver, File inputFile, int numOfWorkers) {
+        try {
+            return solver.solveDistributed(inputFile, numOfWorkers);
+        } catch (IOException distributedError) {
+            System.out.println("Distributed error: " + distributedError.getMessage());
+            return new SystemSolution(SystemResult.error, null);
         }
-        if (system.numOfFreeVariables() > 0) {
-            System.out.printf("Infinitely many solutions - has %d free variables\n" , system.numOfFreeVariables());
-            writeToFile(args[3], system, SystemResult.infiniteSolutions);
+    }
 
+    // One line per scenario, applied on top of the previous ones and written to <out>.<line>:
+    // edits separated by ';', each "coeff <row> <column> <term>", "const <row> <term>" or
+    // "row <row> <n coefficients> <constant>"
+    private static void solveWhatIf(File inputFile, String outputPath, File editsFile, int blockSize) {
+        List<String> scenarios;
+        try {
+            scenarios = Files.readAllLines(editsFile.toPath());
+        } catch (IOException readError) {
+            System.out.println("File not found: " + editsFile);
             return;
         }
-        //
-        while(undoCommand());
-
-        System.out.println("-----Performing Gauss-Jordan elimination----");
+        // the edits re-solve through a dense LU, so a sparse system is expanded up front
+        Matrix system;
+        if (BinaryMatrixFile.isBinaryFile(inputFile)) {
+            system = loadBinaryMatrix(inputFile);
+        } else if (SparseMatrix.isSparseFile(inputFile)) {
+            system = new SparseMatrix(inputFile).toMatrix();
+        } else {
+            system = new Matrix(inputFile);
+        }
+        IncrementalSolver solver = new IncrementalSolver(system, blockSize);
+        writeWhatIf(outputPath, solver.solve());
 
-        // perform Gauss-Jordan elimination for Reduced Row Echelon Form
-        for (int currentColumn = system.getMatrixNumOfVariables(); currentColumn > 0; currentColumn--) {
-            for (int currentRow = currentColumn - 1; currentRow > 0; currentRow--) {
-                ComplexNumber factor = system.getTerm(currentRow, currentColumn).negative();
+        int numOfScenarios = 0;
+        for (String scenario : scenarios) {
+            if (scenario.isBlank()) {
+                continue;
+            }
+            numOfScenarios++;
+            try {
+                for (String edit : scenario.split(";")) {
+                    applyEdit(solver, edit.trim().split("\\s+"));
+                }
+            } catch (RuntimeException editError) {
+                System.out.println("What-if error on line " + numOfScenarios + ": " + editError.getMessage());
+                return;
+            }
+            int refactorizations = solver.getNumOfRefactorizations();
+            double[] solution = solver.solve();
+            if (solver.getNumOfRefactorizations() > refactorizations) {
+                System.out.println("Scenario " + numOfScenarios + ": refactored");
+            } else if (solver.getLastRank() > 0) {
+                System.out.println("Scenario " + numOfScenarios + ": rank " + solver.getLastRank() + " update");
+            } else {
+                System.out.println("Scenario " + numOfScenarios + ": coefficients unchanged");
+            }
+            writeWhatIf(outputPath + "." + numOfScenarios, solution);
+        }
+    }
 
-                if (!factor.isZero()) {
-                    printRowOp(currentColumn, currentRow, factor);
-                    system.getRow(currentRow).addToRow(system.getRow(currentColumn).multiplyRowTemp(factor));
+    private static void applyEdit(IncrementalSolver solver, String[] tokens) {
+        switch (tokens[0]) {
+            case "coeff":
+                solver.setCoeff(Integer.parseInt(tokens[1]), Integer.parseInt(tokens[2]), new ComplexNumber(tokens[3]));
+                break;
+            case "const":
+                solver.setConstantTerm(Integer.parseInt(tokens[1]), new ComplexNumber(tokens[2]));
+                break;
+            case "row":
+                if (tokens.length != solver.size() + 3) {
+                    throw new InputMismatchException("Row edit needs " + (solver.size() + 1) + " terms");
+                }
+                LinearEquation equation = new LinearEquation(solver.size());
+                for (int term = 1; term <= solver.size() + 1; term++) {
+                    equation.setTerm(term, new ComplexNumber(tokens[term + 1]));
                 }
+                solver.replaceRow(Integer.parseInt(tokens[1]), equation);
+                break;
+            default:
+                throw new InputMismatchException("Unknown edit: " + tokens[0]);
+        }
+    }
+
+    private static void writeWhatIf(String filePath, double[] solution) {
+        if (solution == null) {
+            writeToFile(filePath, null, SystemResult.error);
+        } else {
+            writeToFile(filePath, solution, SystemResult.solved);
+        }
+    }
+
+    // -verbosity silent|summary|trace, trace by default; -trace file sends the log there instead
+    // of stdout. Either way it is written by a background thread, so solving never waits on it.
+    private static SolveLog openLog(Map<String, String> options) {
+        SolveLog.Verbosity verbosity = SolveLog.Verbosity.valueOf(options.getOrDefault("-verbosity", "trace"));
+        if (verbosity == SolveLog.Verbosity.silent) {
+            return SolveLog.SILENT;
+        }
+        OutputStream destination = System.out;
+        if (options.containsKey("-trace")) {
+            try {
+                destination = new FileOutputStream(options.get("-trace"));
+            } catch (FileNotFoundException fileNotFound) {
+                System.out.println("Trace file exception: " + fileNotFound.getMessage());
+                return SolveLog.SILENT;
             }
         }
-        System.out.println("-----Reduced Row Echelon----");
-        system.print();
+        return new SolveLog(verbosity, new PrintStream(new AsyncTraceSink(destination)));
+    }
 
-        System.out.println("-----Final Result----");
-        system.printResults();
-        writeToFile(args[3], system, SystemResult.solved);
+    // text, or binary when the file starts with the binary header
+    private static Matrix loadMatrix(File inputFile, SolveMetrics metrics) {
+        metrics.begin(SolveMetrics.Phase.parse);
+        Matrix system = BinaryMatrixFile.isBinaryFile(inputFile) ? loadBinaryMatrix(inputFile) : new Matrix(inputFile);
+        metrics.end(SolveMetrics.Phase.parse);
+        metrics.countBytesRead(inputFile.length());
+        return system;
     }
 
-    private static void writeToFile(String filePath, Matrix system, SystemResult result) {
-        // Save results to file
-        File outputFile = new File(filePath);
-        try (PrintWriter printWriter = new PrintWriter(outputFile)) {
+    private static Matrix loadBinaryMatrix(File inputFile) {
+        try {
+            return BinaryMatrixFile.readSystem(inputFile);
+        } catch (IOException readError) {
+            System.out.println("Error reading " + inputFile + ": " + readError.getMessage());
+            System.exit(-1);
+            return null;
+        }
+    }
 
-            switch (result) {
-                case solved:
-                    for (int row = 1; row <= system.getMatrixNumOfVariables(); row++) {
-                        printWriter.print(system.getRow(row).getConstantTerm());
-                        printWriter.println();
-                    }
-                    break;
-                case noSolution:
-                    printWriter.print("No solutions");
-                    break;
-                case infiniteSolutions:
-                    printWriter.print("Infinitely many solutions");
-                    break;
-                default:
-                    printWriter.print("Solution error");
+    private static SparseMatrix loadSparseMatrix(File inputFile, SolveMetrics metrics) {
+        metrics.begin(SolveMetrics.Phase.parse);
+        SparseMatrix system = new SparseMatrix(inputFile);
+        metrics.end(SolveMetrics.Phase.parse);
+        metrics.countBytesRead(inputFile.length());
+        return system;
+    }
+
+    // "-name value" pairs; null if malformed
+    private static Map<String, String> parseOptions(String[] args) {
+        if (args.length % 2 != 0) {
+            return null;
+        }
+
+        Map<String, String> options = new HashMap<>();
+        for (int i = 0; i < args.length; i += 2) {
+            if (!args[i].startsWith("-")) {
+                return null;
             }
+            options.put(args[i], args[i + 1]);
+        }
+        return options;
+    }
+
+    private static void writeToFile(String filePath, double[] solution, SystemResult result) {
+        // Save results to file
+        File outputFile = new File(filePath);
+        try (PrintWriter printWriter = new PrintWriter(new OutputStreamWriter(
+                new BufferedOutputStream(new FileOutputStream(outputFile), OUTPUT_BUFFER_BYTES)))) {
+            writeResult(printWriter, solution, result);
             System.out.println("Results saved to: " + filePath);
         } catch (FileNotFoundException fileNotFound) {
             System.out.println("Output file exception: " + fileNotFound.getMessage());
         }
     }
 
-    enum SystemResult {
-        solved,
-        noSolution,
-        infiniteSolutions,
-    }
-
-    private static void printRowOp(int currentColumn, int currentRow, ComplexNumber factor) {
-        // printNeatMinuses(factor); // neater formatting
-        System.out.printf("%s * R%d + R%d -> R%d\n", factor.toString(false), currentColumn, currentRow, currentRow);
+    private static void writeToBinaryFile(String filePath, double[] solution, SystemResult result) {
+        try {
+            BinaryMatrixFile.writeSolution(new File(filePath), solution, result);
+            System.out.println("Results saved to: " + filePath);
+        } catch (IOException writeError) {
+            System.out.println("Output file exception: " + writeError.getMessage());
+        }
     }
 
-    private static void executeCommand(Command command) {
-        if (command.execute()) {
-            CommandHistory.push(command);
+    static void writeResult(PrintWriter printWriter, double[] solution, SystemResult result) {
+        switch (result) {
+            case solved:
+                // one line per variable, appended into a StringBuilder and written a chunk at a time
+                String lineSeparator = System.lineSeparator();
+                StringBuilder text = new StringBuilder(OUTPUT_CHUNK_CHARS + 64);
+                for (int i = 0; i < solution.length; i += 2) {
+                    ComplexFormatter.append(text, solution[i], solution[i + 1]).append(lineSeparator);
+                    if (text.length() >= OUTPUT_CHUNK_CHARS) {
+                        printWriter.append(text);
+                        text.setLength(0);
+                    }
+                }
+                printWriter.append(text);
+                break;
+            case noSolution:
+                printWriter.print("No solutions");
+                break;
+            case infiniteSolutions:
+                printWriter.print("Infinitely many solutions");
+                break;
+            case noConvergence:
+                printWriter.print("No convergence");
+                break;
+            default:
+                printWriter.print("Solution error");
         }
     }
 
-    private static boolean undoCommand() {
-        if (!CommandHistory.isCommandHistoryEmpty()) {
-            return CommandHistory.pop().undo(); // true if undo successful
-        }
-        return false;
+    public enum SystemResult {
+        solved,
+        noSolution,
+        infiniteSolutions,
+        noConvergence,
+        error,
     }
-}
\ No newline at end of file
+}
@@ -1,20 +1,24 @@
 package solver;
 
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.FileNotFoundException;
-import java.text.DecimalFormat;
-import java.util.Scanner;
-import java.util.Stack;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.InputMismatchException;
 
-class Matrix {
+class Matrix implements LinearOperator {
     private int matrixNumOfVariables;
     private int matrixNumOfEquations;
-    private LinearEquation[] matrix;
+    private double[] data; // interleaved (re, im) pairs, one row of (variables + constant) after another
+    private LinearEquation[] matrix; // row views into data
+    private double negligibleModulus; // rounding residue below this counts as zero when judging rank
+    private double negligibleConstantModulus; // the same for what elimination leaves of the constant terms
 
     public Matrix(File inputFile) {
-        try (Scanner scanner = new Scanner(inputFile)) {
+        try (MatrixReader reader = new MatrixReader(new FileInputStream(inputFile))) {
 
-            String[] firstLine = scanner.nextLine().split(" ");
+            String[] firstLine = reader.readLine().split(" ");
             matrixNumOfVariables = Integer.parseInt(firstLine[0]); // integer  of file is number of variables
             if (firstLine.length == 2) {
                 matrixNumOfEquations = Integer.parseInt(firstLine[1]); // second integer is number of variables
@@ -26,16 +30,107 @@ class Matrix {
                 throw new IndexOutOfBoundsException("Invalid matrix size: " + matrixNumOfVariables);
             }
 
-            matrix = new LinearEquation[matrixNumOfEquations];
+            allocate();
 
-            for (int i = 0; i < matrixNumOfEquations    ; i++) {
-                matrix[i] = new LinearEquation(matrixNumOfVariables); // initialize LE
-                matrix[i].fillEquationFromScanner(scanner);  // fill from file
-            }
+            reader.readTerms(data, 0, data.length / 2); // fill from file, missing terms stay zero
+            updateNegligibleModulus();
 
         } catch (FileNotFoundException fileNotFound) {
             System.out.println("File not found: " + inputFile);
+        } catch (IOException readError) {
+            System.out.println("Error reading " + inputFile + ": " + readError.getMessage());
+        }
+    }
+
+    // next system of a concatenated multi-system input, or null at end of input. Each system
+    // must give all of its terms, since a short one would run into the next header
+    static Matrix read(MatrixReader reader) throws IOException {
+        String header;
+        do {
+            header = reader.readLine();
+            if (header == null) {
+                return null;
+            }
+            header = header.trim();
+        } while (header.isEmpty());
+
+        String[] sizes = header.split("\\s+");
+        int numOfVariables = Integer.parseInt(sizes[0]);
+        int numOfEquations = sizes.length == 2 ? Integer.parseInt(sizes[1]) : numOfVariables;
+        if (numOfVariables < 1 || numOfEquations < 1) {
+            throw new IndexOutOfBoundsException("Invalid matrix size: " + numOfVariables + "x" + numOfEquations);
+        }
+
+        double[] augmentedData = new double[2 * (numOfVariables + 1) * numOfEquations];
+        int numOfTerms = augmentedData.length / 2;
+        int termsRead = reader.readTerms(augmentedData, 0, numOfTerms);
+        if (termsRead != numOfTerms) {
+            throw new InputMismatchException("System ends after " + termsRead + " of " + numOfTerms + " terms");
         }
+        return new Matrix(numOfVariables, numOfEquations, augmentedData);
+    }
+
+    // wraps interleaved (re, im) row-major augmented data, without copying it
+    Matrix(int numOfVariables, int numOfEquations, double[] augmentedData) {
+        if (numOfVariables < 1 || numOfEquations < 1) {
+            throw new IndexOutOfBoundsException("Invalid matrix size: " + numOfVariables + "x" + numOfEquations);
+        }
+        if (augmentedData.length != 2 * (numOfVariables + 1) * numOfEquations) {
+            throw new InputMismatchException("Matrix data has " + augmentedData.length / 2 + " terms, expected "
+                    + (numOfVariables + 1) * numOfEquations);
+        }
+
+        matrixNumOfVariables = numOfVariables;
+        matrixNumOfEquations = numOfEquations;
+        data = augmentedData;
+        createRowViews();
+        updateNegligibleModulus();
+    }
+
+    private void allocate() {
+        int rowStride = 2 * (matrixNumOfVariables + 1);
+        data = new double[rowStride * matrixNumOfEquations];
+        createRowViews();
+    }
+
+    private void createRowViews() {
+        int rowStride = 2 * (matrixNumOfVariables + 1);
+        matrix = new LinearEquation[matrixNumOfEquations];
+        for (int i = 0; i < matrixNumOfEquations; i++) {
+            matrix[i] = new LinearEquation(data, i * rowStride, matrixNumOfVariables);
+        }
+    }
+
+    // thresholds for the coefficients and for the constant terms, each from its own largest
+    // modulus: a large right-hand side must not make the coefficients look negligible
+    private void updateNegligibleModulus() {
+        int rowStride = 2 * (matrixNumOfVariables + 1);
+        double maxModulusSquared = 0;
+        double maxConstantModulusSquared = 0;
+        for (int rowStart = 0; rowStart < data.length; rowStart += rowStride) {
+            int constantIndex = rowStart + rowStride - 2;
+            for (int i = rowStart; i < constantIndex; i += 2) {
+                maxModulusSquared = Math.max(maxModulusSquared, data[i]*data[i] + data[i + 1]*data[i + 1]);
+            }
+            maxConstantModulusSquared = Math.max(maxConstantModulusSquared,
+                    data[constantIndex]*data[constantIndex] + data[constantIndex + 1]*data[constantIndex + 1]);
+        }
+        negligibleModulus = negligibleModulus(matrixNumOfVariables, matrixNumOfEquations, maxModulusSquared);
+        negligibleConstantModulus = negligibleModulus(matrixNumOfVariables, matrixNumOfEquations, maxConstantModulusSquared);
+    }
+
+    // max(m, n) * machine epsilon * largest modulus, as in the usual numerical rank test; every
+    // solver judges rank by this, taking maxModulusSquared over the coefficients only
+    static double negligibleModulus(int numOfVariables, int numOfEquations, double maxModulusSquared) {
+        return Math.max(numOfVariables, numOfEquations) * Math.ulp(1.0) * Math.sqrt(maxModulusSquared);
+    }
+
+    public double getNegligibleModulus() {
+        return negligibleModulus;
+    }
+
+    public double getNegligibleConstantModulus() {
+        return negligibleConstantModulus;
     }
 
     public int getMatrixNumOfVariables() {
@@ -55,53 +150,173 @@ class Matrix {
     }
 
     public ComplexNumber getTerm(int row, int column) {
+        checkTermIndex(row, column);
+        return matrix[row-1].getTerm(column);
+    }
+
+    public boolean isZeroTerm(int row, int column) {
+        checkTermIndex(row, column);
+        return matrix[row-1].isZeroTerm(column);
+    }
+
+    private void checkTermIndex(int row, int column) {
         if (row < 1 || row > matrixNumOfEquations) {
             throw new IndexOutOfBoundsException("Invalid row index: " + row);
         }
         if (column < 1 || column > matrixNumOfVariables) {
             throw new IndexOutOfBoundsException("Invalid column index: " + column);
         }
-
-        return matrix[row-1].getTerm(column);
     }
 
     public void print() {
+        print(System.out);
+    }
+
+    public void print(PrintStream out) {
+        StringBuilder line = new StringBuilder();
         for (int i = 0; i < matrixNumOfEquations; i++) {
-           for (int j = 1; j <= matrixNumOfVariables + 1; j++ ) {
-               System.out.print(matrix[i].getTerm(j).toString(true) + " ");
-           }
-            System.out.println();
+            line.setLength(0);
+            for (int j = 1; j <= matrixNumOfVariables + 1; j++ ) {
+                ComplexFormatter.append(line, matrix[i].getReal(j), matrix[i].getImaginary(j), ComplexFormatter.SHORT_PATTERN, true).append(' ');
+            }
+            out.println(line);
         }
     }
 
     public void printResults() {
+        printResults(System.out);
+    }
+
+    public void printResults(PrintStream out) {
+        StringBuilder line = new StringBuilder();
         for (int row = 1; row <= matrixNumOfVariables; row++) {
-            ComplexNumber result = getRow(row).getConstantTerm();
-            System.out.println(result.toString( "#0.000", false));
+            LinearEquation equation = getRow(row);
+            line.setLength(0);
+            out.println(ComplexFormatter.append(line, equation.getReal(matrixNumOfVariables + 1),
+                    equation.getImaginary(matrixNumOfVariables + 1), ComplexFormatter.RESULT_PATTERN, false));
+        }
+    }
+
+    // coefficients without the constant column in current row order, interleaved (re, im) and row-major
+    public double[] getCoefficientData() {
+        int coeffStride = 2 * matrixNumOfVariables;
+        double[] coefficients = new double[coeffStride * matrixNumOfEquations];
+        for (int row = 0; row < matrixNumOfEquations; row++) {
+            matrix[row].copyCoefficientsTo(coefficients, row * coeffStride);
+        }
+        return coefficients;
+    }
+
+    // constant terms in current row order, interleaved (re, im)
+    public double[] getConstantTermsData() {
+        double[] constants = new double[2 * matrixNumOfEquations];
+        for (int row = 0; row < matrixNumOfEquations; row++) {
+            constants[2 * row]     = matrix[row].getReal(matrixNumOfVariables + 1);
+            constants[2 * row + 1] = matrix[row].getImaginary(matrixNumOfVariables + 1);
+        }
+        return constants;
+    }
+
+    public boolean isReal() {
+        for (int i = 1; i < data.length; i += 2) {
+            if (data[i] != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int size() {
+        if (matrixNumOfEquations != matrixNumOfVariables) {
+            throw new InputMismatchException("Not a square system: " + matrixNumOfEquations
+                    + " equations in " + matrixNumOfVariables + " variables");
+        }
+        return matrixNumOfVariables;
+    }
+
+    @Override
+    public void apply(double[] x, double[] y) {
+        for (int row = 0; row < matrixNumOfEquations; row++) {
+            matrix[row].dotCoefficients(x, y, 2 * row);
+        }
+    }
+
+    @Override
+    public double[] diagonal() {
+        double[] diagonal = new double[2 * size()];
+        for (int row = 0; row < matrixNumOfEquations; row++) {
+            diagonal[2 * row]     = matrix[row].getReal(row + 1);
+            diagonal[2 * row + 1] = matrix[row].getImaginary(row + 1);
+        }
+        return diagonal;
+    }
+
+    @Override
+    public void gaussSeidelSweep(double[] constants, double[] x) {
+        double[] rowSum = new double[2];
+        for (int row = 0; row < size(); row++) {
+            LinearEquation equation = matrix[row];
+            double diagonalRe = equation.getReal(row + 1);
+            double diagonalIm = equation.getImaginary(row + 1);
+
+            // b_i - sum over j != i of a_ij x_j
+            equation.dotCoefficients(x, rowSum, 0);
+            double re = constants[2 * row]     - rowSum[0] + (diagonalRe*x[2 * row] - diagonalIm*x[2 * row + 1]);
+            double im = constants[2 * row + 1] - rowSum[1] + (diagonalRe*x[2 * row + 1] + diagonalIm*x[2 * row]);
+
+            double modulus = diagonalRe*diagonalRe + diagonalIm*diagonalIm;
+            x[2 * row]     = (re*diagonalRe + im*diagonalIm) / modulus;
+            x[2 * row + 1] = (im*diagonalRe - re*diagonalIm) / modulus;
         }
     }
 
     public ComplexNumber getConstantTermsSum() {
         ComplexNumber constantTermsSum = new ComplexNumber(0, 0);
-        for (int row = 1; row < matrixNumOfEquations; row++) {
+        for (int row = 1; row <= matrixNumOfEquations; row++) {
             constantTermsSum = constantTermsSum.add(getRow(row).getConstantTerm());
         }
         return constantTermsSum;
     }
 
     public int findNonZeroRowInCol(int column) {
-        for (int row = column; row <= matrixNumOfEquations; row++) { // look below current row
-            if (!getTerm(row, column).isZero()) {
+        return findNonZeroRowInCol(column, column); // look below current row
+    }
+
+    public int findNonZeroRowInCol(int firstRow, int column) {
+        for (int row = firstRow; row <= matrixNumOfEquations; row++) {
+            if (!matrix[row-1].isNegligibleTerm(column, negligibleModulus)) {
                 return row;
             }
         }
         return -1; // returns -1 if not row found
     }
 
+    // row at or below the diagonal with the largest modulus in this column, for partial pivoting
+    public int findPivotRowInCol(int column) {
+        return findPivotRowInCol(column, column);
+    }
+
+    public int findPivotRowInCol(int firstRow, int column) {
+        int pivotRow = -1;
+        double maxModulus = negligibleModulus*negligibleModulus;
+        for (int row = firstRow; row <= matrixNumOfEquations; row++) {
+            LinearEquation equation = matrix[row-1];
+            double re = equation.getReal(column);
+            double im = equation.getImaginary(column);
+            double modulus = re*re + im*im;
+            if (modulus > maxModulus) {
+                maxModulus = modulus;
+                pivotRow = row;
+            }
+        }
+        return pivotRow; // returns -1 if column is zero from firstRow down
+    }
+
     public int findLeadingNonZeroRow() {
         int row;
         for (int col = 1; col <= matrixNumOfVariables; col++) {
-            row = findNonZeroRowInCol(col);
+            row = findNonZeroRowInCol(1, col);
             if (row != -1) {
                 return row;
             }
@@ -109,19 +324,6 @@ class Matrix {
         return -1; // returns -1 if not row found
     }
 
-    public int findLeadingNonZeroCol(){
-        return findLeadingNonZeroCol(1);
-    }
-
-    public int findLeadingNonZeroCol(int fromCol) {
-        for (int col = fromCol; col <= matrixNumOfVariables; col++) {
-            if (-1 != findNonZeroRowInCol(col)) {
-                return col;
-            }
-        }
-        return -1; // returns -1 if not row found
-    }
-
     public void swapRows(int rowOne, int rowTwo) {
         if (rowOne < 1 || rowOne > matrixNumOfEquations) {
             throw new IndexOutOfBoundsException("Invalid row index: " + rowOne);
@@ -136,16 +338,9 @@ class Matrix {
         matrix[rowOne] = matrix[rowTwo];
         matrix[rowTwo] = temp;
     }
-    public void swapColumns(int colOne, int colTwo) {
-        for (int row = 1; row < matrixNumOfVariables; row++) {
-            ComplexNumber temp = matrix[row].getTerm(colOne);
-            matrix[row].setCoeff(colOne, matrix[row].getTerm(colTwo));
-            matrix[row].setCoeff(colTwo, temp);
-        }
-    }
     public boolean isInconsistent() {
         for (int row = 0; row < matrixNumOfEquations; row++) {
-            if(matrix[row].isInconsistent()) {
+            if(matrix[row].isInconsistent(negligibleModulus, negligibleConstantModulus)) {
                 return true;
             }
         }
@@ -155,61 +350,10 @@ class Matrix {
     public int numOfFreeVariables() {
         int numOfFreeVariables = matrixNumOfVariables;
         for (LinearEquation equation: matrix) {
-            if (equation.hasNonZeroCoeffs()) {
+            if (equation.hasNonZeroCoeffs(negligibleModulus)) {
                 numOfFreeVariables--;
             }
         }
         return numOfFreeVariables;
     }
 }
-
-
-interface Command {
-    boolean execute();
-    boolean undo();
-}
-
-class SwapColumns implements Command {
-    Matrix matrix;
-
-    private int colOne;
-    private int colTwo;
-
-    public SwapColumns(Matrix matrix, int colOne, int colTwo) {
-        this.matrix = matrix;
-        this.colOne = colOne;
-        this.colTwo = colTwo;
-    }
-
-    @Override
-    public boolean execute() {
-        matrix.swapColumns(colOne, colTwo);
-        System.out.println("Command pushed executed");
-
-        return true;
-    }
-
-    @Override
-    public boolean undo() {
-        matrix.swapRows(colOne, colTwo);
-        return true;
-    }
-}
-
-class CommandHistory {
-    private static Stack<Command> commandHistory = new Stack<>();
-
-    public static void push(Command command) {
-        commandHistory.push(command);
-        System.out.println("Command pushed to stack");
-    }
-
-    public static Command pop() {
-        return commandHistory.pop();
-    }
-
-    public static boolean isCommandHistoryEmpty() {
-        return commandHistory.isEmpty();
-    }
-
-}
\ No newline at end of file
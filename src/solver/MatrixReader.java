@@ -0,0 +1,160 @@
+package solver;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.InputMismatchException;
+
+// Buffered whitespace tokenizer for the text matrix format. Terms are parsed in place
+// in the read buffer, so loading allocates nothing per coefficient.
+class MatrixReader implements Closeable {
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final InputStream input;
+    private byte[] buffer = new byte[BUFFER_SIZE];
+    private int position;
+    private int limit;
+    private long bytesRead;
+
+    public MatrixReader(InputStream input) {
+        this.input = input;
+    }
+
+    public long getBytesRead() {
+        return bytesRead;
+    }
+
+    // rest of the current line without its terminator, or null at end of input
+    public String readLine() throws IOException {
+        StringBuilder line = new StringBuilder();
+        while (true) {
+            if (position == limit && !fill()) {
+                return line.length() == 0 ? null : line.toString();
+            }
+            byte b = buffer[position++];
+            if (b == '\n') {
+                break;
+            }
+            line.append((char) (b & 0xff));
+        }
+
+        int length = line.length();
+        if (length > 0 && line.charAt(length - 1) == '\r') {
+            line.setLength(length - 1);
+        }
+        return line.toString();
+    }
+
+    // parses the next whitespace separated term into destination[index], destination[index + 1];
+    // false at end of input
+    public boolean readTerm(double[] destination, int index) throws IOException {
+        if (!skipWhitespace()) {
+            return false;
+        }
+
+        int start = position;
+        while (true) {
+            while (position < limit && !isWhitespace(buffer[position])) {
+                position++;
+            }
+            if (position < limit) {
+                break;
+            }
+
+            // term runs past the buffer: move it to the front and read more
+            int length = position - start;
+            if (length == buffer.length) {
+                byte[] larger = new byte[buffer.length * 2];
+                System.arraycopy(buffer, start, larger, 0, length);
+                buffer = larger;
+            } else {
+                System.arraycopy(buffer, start, buffer, 0, length);
+            }
+            position = length;
+            limit = length;
+            start = 0;
+            if (!fill()) {
+                break;
+            }
+        }
+
+        ComplexNumberParser.parse(buffer, start, position, destination, index);
+        return true;
+    }
+
+    // next whitespace separated token as a non-negative int
+    public int readInt() throws IOException {
+        if (!skipWhitespace()) {
+            throw new EOFException("Expected an integer at end of input");
+        }
+
+        long value = 0;
+        while (true) {
+            while (position < limit && !isWhitespace(buffer[position])) {
+                byte b = buffer[position++];
+                if (b < '0' || b > '9' || value > Integer.MAX_VALUE) {
+                    throw new InputMismatchException("Invalid integer in input");
+                }
+                value = value * 10 + (b - '0');
+            }
+            if (position < limit || !fill()) {
+                break;
+            }
+        }
+        if (value > Integer.MAX_VALUE) {
+            throw new InputMismatchException("Invalid integer in input");
+        }
+        return (int) value;
+    }
+
+    // reads up to count terms into consecutive (re, im) pairs; returns how many were read
+    public int readTerms(double[] destination, int index, int count) throws IOException {
+        for (int i = 0; i < count; i++) {
+            if (!readTerm(destination, index + 2 * i)) {
+                return i;
+            }
+        }
+        return count;
+    }
+
+    private boolean skipWhitespace() throws IOException {
+        while (true) {
+            while (position < limit) {
+                if (!isWhitespace(buffer[position])) {
+                    return true;
+                }
+                position++;
+            }
+            if (!fill()) {
+                return false;
+            }
+        }
+    }
+
+    // appends input after limit; callers either consumed the whole buffer or
+    // moved the unfinished term to the front. false at end of input
+    private boolean fill() throws IOException {
+        if (limit == buffer.length) {
+            position = 0;
+            limit = 0;
+        }
+
+        int read = input.read(buffer, limit, buffer.length - limit);
+        if (read <= 0) {
+            return false;
+        }
+        limit += read;
+        bytesRead += read;
+        return true;
+    }
+
+    private static boolean isWhitespace(byte b) {
+        return b == ' ' || b == '\n' || b == '\r' || b == '\t' || b == '\f' || b == 0x0b;
+    }
+
+    @Override
+    public void close() throws IOException {
+        input.close();
+    }
+}
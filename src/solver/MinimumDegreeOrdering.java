@@ -0,0 +1,136 @@
+package solver;
+
+import java.util.Arrays;
+import java.util.PriorityQueue;
+
+// Fill-reducing ordering for sparse LU: minimum degree on the pattern of A + A^T, the
+// choice KLU makes for circuit matrices. Eliminates the vertex of lowest current degree,
+// joins its neighbours into a clique, and repeats. Degrees are exact (kept in a lazy heap)
+// rather than the approximate bounds of AMD, which is fine at the fill levels sparse
+// circuit and network systems produce.
+final class MinimumDegreeOrdering {
+
+    private MinimumDegreeOrdering() {
+    }
+
+    // order[k] = column to eliminate k-th; square matrices only
+    public static int[] order(SparseMatrix system) {
+        int size = system.getNumOfVariables();
+        int[][] adjacency = symmetricPattern(system);
+        int[] degrees = new int[size];
+        PriorityQueue<long[]> queue = new PriorityQueue<>(Math.max(1, size),
+                (a, b) -> a[0] != b[0] ? Long.compare(a[0], b[0]) : Long.compare(a[1], b[1]));
+        for (int vertex = 0; vertex < size; vertex++) {
+            degrees[vertex] = adjacency[vertex].length;
+            queue.add(new long[]{degrees[vertex], vertex});
+        }
+
+        boolean[] eliminated = new boolean[size];
+        int[] mark = new int[size];
+        Arrays.fill(mark, -1);
+        int[] merged = new int[size];
+        int[] order = new int[size];
+        int stamp = 0;
+
+        for (int k = 0; k < size; k++) {
+            int pivot;
+            while (true) {
+                long[] head = queue.poll();
+                pivot = (int) head[1];
+                if (!eliminated[pivot] && head[0] == degrees[pivot]) {
+                    break; // skip stale entries
+                }
+            }
+            eliminated[pivot] = true;
+            order[k] = pivot;
+
+            // neighbours of the pivot become a clique
+            int[] neighbours = liveNeighbours(adjacency[pivot], eliminated);
+            for (int neighbour : neighbours) {
+                int count = 0;
+                stamp++;
+                mark[neighbour] = stamp;
+                for (int other : adjacency[neighbour]) {
+                    if (!eliminated[other] && mark[other] != stamp) {
+                        mark[other] = stamp;
+                        merged[count++] = other;
+                    }
+                }
+                for (int other : neighbours) {
+                    if (mark[other] != stamp) {
+                        mark[other] = stamp;
+                        merged[count++] = other;
+                    }
+                }
+                adjacency[neighbour] = Arrays.copyOf(merged, count);
+
+                if (count != degrees[neighbour]) {
+                    degrees[neighbour] = count;
+                    queue.add(new long[]{count, neighbour});
+                }
+            }
+            adjacency[pivot] = null;
+        }
+        return order;
+    }
+
+    private static int[] liveNeighbours(int[] adjacent, boolean[] eliminated) {
+        int count = 0;
+        int[] live = new int[adjacent.length];
+        for (int vertex : adjacent) {
+            if (!eliminated[vertex]) {
+                live[count++] = vertex;
+            }
+        }
+        return Arrays.copyOf(live, count);
+    }
+
+    // adjacency lists of A + A^T without the diagonal
+    private static int[][] symmetricPattern(SparseMatrix system) {
+        int size = system.getNumOfVariables();
+        int[] columnStarts = system.getColumnStarts();
+        int[] rowIndices = system.getRowIndices();
+
+        int[] counts = new int[size];
+        for (int column = 0; column < size; column++) {
+            for (int entry = columnStarts[column]; entry < columnStarts[column + 1]; entry++) {
+                int row = rowIndices[entry];
+                if (row != column) {
+                    counts[row]++;
+                    counts[column]++;
+                }
+            }
+        }
+
+        int[][] adjacency = new int[size][];
+        for (int vertex = 0; vertex < size; vertex++) {
+            adjacency[vertex] = new int[counts[vertex]];
+        }
+        Arrays.fill(counts, 0);
+        for (int column = 0; column < size; column++) {
+            for (int entry = columnStarts[column]; entry < columnStarts[column + 1]; entry++) {
+                int row = rowIndices[entry];
+                if (row != column) {
+                    adjacency[row][counts[row]++] = column;
+                    adjacency[column][counts[column]++] = row;
+                }
+            }
+        }
+
+        // drop duplicates from entries present in both A and A^T
+        int[] mark = new int[size];
+        Arrays.fill(mark, -1);
+        for (int vertex = 0; vertex < size; vertex++) {
+            int count = 0;
+            int[] adjacent = adjacency[vertex];
+            for (int other : adjacent) {
+                if (mark[other] != vertex) {
+                    mark[other] = vertex;
+                    adjacent[count++] = other;
+                }
+            }
+            adjacency[vertex] = Arrays.copyOf(adjacent, count);
+        }
+        return adjacency;
+    }
+}
@@ -0,0 +1,395 @@
+package solver;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.InputMismatchException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+// PA = LU of a square system kept in a memory-mapped scratch file instead of the heap.
+// The coefficients are stored as panels of whole columns, each panel its rows one after
+// another. Factoring is left-looking: panel j is loaded, brought up to date with every
+// panel to its left, factored with partial pivoting and written back, so only three panels
+// are on the heap at once: panel j, the panel being applied to it and the next one, which
+// a background thread copies in from the mapping meanwhile. The panel width comes from the
+// heap budget. Row swaps are applied to each panel as it is loaded, never to panels already
+// factored, and the solve applies them to the constants panel by panel in the same order.
+class OutOfCoreLU implements Closeable {
+    private static final int RESIDENT_PANELS = 3;
+    private static final long MAX_PANEL_BYTES = Integer.MAX_VALUE - 15; // a panel is one mapping and one array
+
+    private final int size;
+    private final int panelWidth;
+    private final int numOfPanels;
+    private final Path scratchPath;
+    private final FileChannel scratch;
+    private final double[] constants; // interleaved (re, im); kept on the heap, 16 bytes a row
+    private final int[] pivots; // pivots[k]: row swapped with row k when eliminating column k
+    private final double negligibleModulus;
+    private final ExecutorService prefetcher = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "panel-prefetch");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private boolean singular;
+
+    // copies the rows into the scratch file; heapBudget in bytes bounds the resident panels
+    public OutOfCoreLU(RowReader rows, long heapBudget, File scratchDirectory) throws IOException {
+        if (rows.getNumOfEquations() != rows.getNumOfVariables()) {
+            throw new InputMismatchException("Out-of-core LU needs a square system, got "
+                    + rows.getNumOfEquations() + " equations in " + rows.getNumOfVariables() + " variables");
+        }
+        size = rows.getNumOfVariables();
+        long widthForBudget = heapBudget / (RESIDENT_PANELS * 16L * size);
+        panelWidth = (int) Math.max(1, Math.min(Math.min(widthForBudget, size), MAX_PANEL_BYTES / (16L * size)));
+        numOfPanels = (size + panelWidth - 1) / panelWidth;
+        constants = new double[2 * size];
+        pivots = new int[size];
+
+        scratchPath = Files.createTempFile(scratchDirectory.toPath(), "solver-lu", ".panels");
+        scratch = FileChannel.open(scratchPath, StandardOpenOption.READ, StandardOpenOption.WRITE,
+                StandardOpenOption.DELETE_ON_CLOSE);
+        scratchPath.toFile().deleteOnExit();
+
+        // a short or malformed input must not leave the scratch file open until the JVM exits
+        double maxModulusSquared = 0;
+        try {
+            // every panel mapped while the rows are scattered across them
+            DoubleBuffer[] panels = new DoubleBuffer[numOfPanels];
+            for (int panel = 0; panel < numOfPanels; panel++) {
+                panels[panel] = map(panel);
+            }
+            double[] row = new double[2 * (size + 1)];
+            for (int i = 0; i < size; i++) {
+                rows.readRow(row);
+                for (int t = 0; t < 2 * size; t += 2) { // coefficients only
+                    maxModulusSquared = Math.max(maxModulusSquared, row[t]*row[t] + row[t + 1]*row[t + 1]);
+                }
+                for (int panel = 0; panel < numOfPanels; panel++) {
+                    int width = width(panel);
+                    panels[panel].put(2 * i * width, row, 2 * first(panel), 2 * width);
+                }
+                constants[2 * i]     = row[2 * size];
+                constants[2 * i + 1] = row[2 * size + 1];
+            }
+        } catch (IOException | RuntimeException scatterError) {
+            scratch.close();
+            throw scatterError;
+        }
+        negligibleModulus = Matrix.negligibleModulus(size, size, maxModulusSquared);
+    }
+
+    // a dense text or binary system file
+    public static RowReader openRows(File inputFile) throws IOException {
+        if (BinaryMatrixFile.isBinaryFile(inputFile)) {
+            return BinaryMatrixFile.openRows(inputFile);
+        }
+        if (SparseMatrix.isSparseFile(inputFile)) {
+            throw new InputMismatchException("Out-of-core mode takes dense systems; sparse ones are solved by sparse LU");
+        }
+        return new TextRowReader(new MatrixReader(new FileInputStream(inputFile)));
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int getPanelWidth() {
+        return panelWidth;
+    }
+
+    public boolean isSingular() {
+        return singular;
+    }
+
+    public int getNumOfRowSwaps() {
+        int swaps = 0;
+        for (int column = 0; column < size; column++) {
+            if (pivots[column] != column) {
+                swaps++;
+            }
+        }
+        return swaps;
+    }
+
+    public void factor() throws IOException {
+        double[] current = new double[2 * size * panelWidth];
+        double[][] applied = {new double[2 * size * panelWidth], new double[2 * size * panelWidth]};
+        for (int j = 0; j < numOfPanels; j++) {
+            read(j, current);
+            Future<double[]> next = j > 0 ? prefetch(0, applied[0]) : null;
+            for (int k = 0; k < j; k++) {
+                double[] left = await(next);
+                next = k + 1 < j ? prefetch(k + 1, applied[(k + 1) % 2]) : null;
+                applyPanel(k, left, j, current);
+            }
+            factorPanel(j, current);
+            write(j, current);
+        }
+    }
+
+    // x with Ax = the constants that were read in
+    public double[] solve() throws IOException {
+        if (singular) {
+            throw new ArithmeticException("Matrix is singular");
+        }
+        double[] x = constants.clone();
+        double[][] buffers = {new double[2 * size * panelWidth], new double[2 * size * panelWidth]};
+
+        // forward substitution with unit L, swapping each panel's rows just before using it
+        Future<double[]> next = prefetch(0, buffers[0]);
+        for (int k = 0; k < numOfPanels; k++) {
+            double[] panel = await(next);
+            next = k + 1 < numOfPanels ? prefetch(k + 1, buffers[(k + 1) % 2]) : null;
+            int first = first(k);
+            int width = width(k);
+            for (int column = first; column < first + width; column++) {
+                swap(x, 2, column, pivots[column]);
+            }
+            for (int column = first; column < first + width; column++) {
+                double re = x[2 * column];
+                double im = x[2 * column + 1];
+                if (re == 0 && im == 0) {
+                    continue;
+                }
+                int offset = 2 * (column - first);
+                for (int i = column + 1; i < size; i++) {
+                    int index = 2 * i * width + offset;
+                    subtractProduct(x, 2 * i, panel[index], panel[index + 1], re, im);
+                }
+            }
+        }
+
+        // back substitution with U, last panel first
+        next = prefetch(numOfPanels - 1, buffers[0]);
+        for (int k = numOfPanels - 1; k >= 0; k--) {
+            double[] panel = await(next);
+            next = k > 0 ? prefetch(k - 1, buffers[(numOfPanels - k) % 2]) : null;
+            int first = first(k);
+            int width = width(k);
+            for (int column = first + width - 1; column >= first; column--) {
+                int offset = 2 * (column - first);
+                int pivotIndex = 2 * column * width + offset;
+                divide(x, 2 * column, panel[pivotIndex], panel[pivotIndex + 1]);
+                double re = x[2 * column];
+                double im = x[2 * column + 1];
+                for (int i = 0; i < column; i++) {
+                    int index = 2 * i * width + offset;
+                    subtractProduct(x, 2 * i, panel[index], panel[index + 1], re, im);
+                }
+            }
+        }
+        return x;
+    }
+
+    // brings panel j up to date with factored panel k: its row swaps, U_kj = inverse(L_kk) A_kj,
+    // then A_j -= L_k U_kj below panel k
+    private void applyPanel(int k, double[] left, int j, double[] current) {
+        int first = first(k);
+        int width = width(k);
+        int currentWidth = width(j);
+        for (int column = first; column < first + width; column++) {
+            swap(current, 2 * currentWidth, column, pivots[column]);
+        }
+        for (int column = first; column < first + width; column++) {
+            int offset = 2 * (column - first);
+            int source = 2 * column * currentWidth;
+            for (int i = column + 1; i < size; i++) {
+                int index = 2 * i * width + offset;
+                subtractMultipleOfRow(current, 2 * i * currentWidth, source, 2 * currentWidth, left[index], left[index + 1]);
+            }
+        }
+    }
+
+    // unblocked right-looking LU of the panel's columns from its diagonal down
+    private void factorPanel(int j, double[] panel) {
+        int first = first(j);
+        int width = width(j);
+        int rowStride = 2 * width;
+        double negligibleSquared = negligibleModulus*negligibleModulus;
+        for (int column = first; column < first + width; column++) {
+            int offset = 2 * (column - first);
+            int pivotRow = column;
+            double maxModulus = -1;
+            for (int i = column; i < size; i++) {
+                int index = i * rowStride + offset;
+                double modulus = panel[index]*panel[index] + panel[index + 1]*panel[index + 1];
+                if (modulus > maxModulus) {
+                    maxModulus = modulus;
+                    pivotRow = i;
+                }
+            }
+            pivots[column] = pivotRow;
+            if (maxModulus <= negligibleSquared) {
+                singular = true; // nothing to eliminate in this column
+                pivots[column] = column;
+                continue;
+            }
+            swap(panel, rowStride, column, pivotRow);
+
+            // 1/pivot = conj(pivot)/|pivot|^2
+            int pivotIndex = column * rowStride + offset;
+            double inverseRe =  panel[pivotIndex]     / maxModulus;
+            double inverseIm = -panel[pivotIndex + 1] / maxModulus;
+            for (int i = column + 1; i < size; i++) {
+                int index = i * rowStride + offset;
+                double termRe = panel[index];
+                double termIm = panel[index + 1];
+                if (termRe == 0 && termIm == 0) {
+                    continue;
+                }
+                double multiplierRe = termRe*inverseRe - termIm*inverseIm;
+                double multiplierIm = termRe*inverseIm + termIm*inverseRe;
+                panel[index]     = multiplierRe;
+                panel[index + 1] = multiplierIm;
+                subtractMultipleOfRow(panel, index + 2, pivotIndex + 2, rowStride - offset - 2, multiplierRe, multiplierIm);
+            }
+        }
+    }
+
+    private int first(int panel) {
+        return panel * panelWidth;
+    }
+
+    private int width(int panel) {
+        return Math.min(panelWidth, size - first(panel));
+    }
+
+    private DoubleBuffer map(int panel) throws IOException {
+        long offset = 16L * size * first(panel);
+        return scratch.map(FileChannel.MapMode.READ_WRITE, offset, 16L * size * width(panel))
+                .order(ByteOrder.nativeOrder()).asDoubleBuffer();
+    }
+
+    private void read(int panel, double[] buffer) throws IOException {
+        map(panel).get(0, buffer, 0, 2 * size * width(panel));
+    }
+
+    private void write(int panel, double[] buffer) throws IOException {
+        map(panel).put(0, buffer, 0, 2 * size * width(panel));
+    }
+
+    private Future<double[]> prefetch(int panel, double[] buffer) {
+        return prefetcher.submit(() -> {
+            read(panel, buffer);
+            return buffer;
+        });
+    }
+
+    private static double[] await(Future<double[]> panel) throws IOException {
+        try {
+            return panel.get();
+        } catch (ExecutionException failure) {
+            if (failure.getCause() instanceof IOException) {
+                throw (IOException) failure.getCause();
+            }
+            throw new IOException("Reading a panel failed", failure.getCause());
+        } catch (InterruptedException interrupted) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while reading a panel");
+        }
+    }
+
+    // swaps rows one and two of row-major data with rowStride doubles per row
+    private static void swap(double[] data, int rowStride, int one, int two) {
+        if (one == two) {
+            return;
+        }
+        for (int t = 0; t < rowStride; t++) {
+            double temp = data[one * rowStride + t];
+            data[one * rowStride + t] = data[two * rowStride + t];
+            data[two * rowStride + t] = temp;
+        }
+    }
+
+    // x[index] -= (aRe + aIm i) * (bRe + bIm i)
+    private static void subtractProduct(double[] x, int index, double aRe, double aIm, double bRe, double bIm) {
+        x[index]     -= aRe*bRe - aIm*bIm;
+        x[index + 1] -= aRe*bIm + aIm*bRe;
+    }
+
+    // x[index] /= (re + im i)
+    private static void divide(double[] x, int index, double re, double im) {
+        double modulus = re*re + im*im;
+        double inverseRe =  re / modulus;
+        double inverseIm = -im / modulus;
+        double termRe = x[index];
+        double termIm = x[index + 1];
+        x[index]     = termRe*inverseRe - termIm*inverseIm;
+        x[index + 1] = termRe*inverseIm + termIm*inverseRe;
+    }
+
+    // data[target..] -= (re + im*i) * data[source..]
+    private static void subtractMultipleOfRow(double[] data, int target, int source, int length, double re, double im) {
+        if (re == 0 && im == 0) {
+            return;
+        }
+        // adding -factor * source is subtracting factor * source, to the bit
+        ComplexKernels.axpy(-re, -im, data, source, data, target, length);
+    }
+
+    @Override
+    public void close() throws IOException {
+        prefetcher.shutdownNow();
+        scratch.close(); // deletes the scratch file
+    }
+
+    // the text format row by row; missing terms read as zero, as in Matrix(File)
+    private static class TextRowReader implements RowReader {
+        private final MatrixReader reader;
+        private final int numOfVariables;
+        private final int numOfEquations;
+        private boolean ended;
+
+        TextRowReader(MatrixReader reader) throws IOException {
+            this.reader = reader;
+            String header = reader.readLine();
+            if (header == null) {
+                reader.close();
+                throw new InputMismatchException("Empty input");
+            }
+            String[] sizes = header.trim().split("\\s+");
+            numOfVariables = Integer.parseInt(sizes[0]);
+            numOfEquations = sizes.length == 2 ? Integer.parseInt(sizes[1]) : numOfVariables;
+            if (numOfVariables < 1 || numOfEquations < 1) {
+                reader.close();
+                throw new IndexOutOfBoundsException("Invalid matrix size: " + numOfVariables + "x" + numOfEquations);
+            }
+        }
+
+        @Override
+        public int getNumOfVariables() {
+            return numOfVariables;
+        }
+
+        @Override
+        public int getNumOfEquations() {
+            return numOfEquations;
+        }
+
+        @Override
+        public void readRow(double[] row) throws IOException {
+            int termsRead = ended ? 0 : reader.readTerms(row, 0, numOfVariables + 1);
+            if (termsRead < numOfVariables + 1) {
+                ended = true;
+                Arrays.fill(row, 2 * termsRead, row.length, 0);
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            reader.close();
+        }
+    }
+}
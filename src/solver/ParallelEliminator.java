@@ -0,0 +1,116 @@
+package solver;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+// Applies "row += factor * pivot row" to a range of rows in chunks on a ForkJoinPool.
+// Each row is updated by exactly the same arithmetic as the sequential loop, so the
+// result does not depend on the parallelism level.
+class ParallelEliminator {
+    public static final int DEFAULT_SEQUENTIAL_THRESHOLD = 1 << 15; // terms touched per task
+
+    private final ForkJoinPool pool;
+    private final int sequentialThreshold;
+
+    public ParallelEliminator(int parallelism, int sequentialThreshold) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Invalid parallelism: " + parallelism);
+        }
+        this.pool = parallelism == 1 ? null : new ForkJoinPool(parallelism);
+        this.sequentialThreshold = Math.max(1, sequentialThreshold);
+    }
+
+    public ParallelEliminator(int parallelism) {
+        this(parallelism, DEFAULT_SEQUENTIAL_THRESHOLD);
+    }
+
+    public int getParallelism() {
+        return pool == null ? 1 : pool.getParallelism();
+    }
+
+    // rows firstRow..lastRow (1-based, inclusive) each get factors[2k] + factors[2k+1]*i times
+    // pivotRow added, k = row - firstRow; zero factors are skipped
+    public void eliminate(Matrix system, int pivotRow, int firstRow, int lastRow, double[] factors) {
+        if (firstRow > lastRow) {
+            return;
+        }
+        LinearEquation pivotEquation = system.getRow(pivotRow);
+        run(firstRow, lastRow, system.getMatrixNumOfVariables() + 1, (fromRow, toRow) -> {
+            for (int row = fromRow; row <= toRow; row++) {
+                int index = 2 * (row - firstRow);
+                double factorRe = factors[index];
+                double factorIm = factors[index + 1];
+                if (factorRe != 0 || factorIm != 0) {
+                    system.getRow(row).addMultipleOfRow(pivotEquation, factorRe, factorIm);
+                }
+            }
+        });
+    }
+
+    // real rows of rowLength doubles starting at data[rowOffsets[row]]: rows firstRow..lastRow
+    // (0-based, inclusive) each get factors[row - firstRow] times pivotRow added; zero factors
+    // are skipped
+    public void eliminate(double[] data, int[] rowOffsets, int rowLength, int pivotRow, int firstRow, int lastRow,
+                          double[] factors) {
+        if (firstRow > lastRow) {
+            return;
+        }
+        int pivotOffset = rowOffsets[pivotRow];
+        run(firstRow, lastRow, rowLength, (fromRow, toRow) -> {
+            for (int row = fromRow; row <= toRow; row++) {
+                double factor = factors[row - firstRow];
+                if (factor != 0) {
+                    ComplexKernels.axpy(factor, data, pivotOffset, data, rowOffsets[row], rowLength);
+                }
+            }
+        });
+    }
+
+    public void shutdown() {
+        if (pool != null) {
+            pool.shutdown();
+        }
+    }
+
+    private void run(int firstRow, int lastRow, int rowLength, RowRange rows) {
+        int rowsPerTask = Math.max(1, sequentialThreshold / rowLength);
+        if (pool == null || lastRow - firstRow + 1 <= rowsPerTask) {
+            rows.eliminate(firstRow, lastRow);
+        } else {
+            pool.invoke(new EliminationTask(rows, firstRow, lastRow, rowsPerTask));
+        }
+    }
+
+    // the update of rows fromRow..toRow, inclusive
+    private interface RowRange {
+        void eliminate(int fromRow, int toRow);
+    }
+
+    private static class EliminationTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final transient RowRange rows;
+        private final int fromRow;
+        private final int toRow;
+        private final int rowsPerTask;
+
+        EliminationTask(RowRange rows, int fromRow, int toRow, int rowsPerTask) {
+            this.rows = rows;
+            this.fromRow = fromRow;
+            this.toRow = toRow;
+            this.rowsPerTask = rowsPerTask;
+        }
+
+        @Override
+        protected void compute() {
+            if (toRow - fromRow + 1 <= rowsPerTask) {
+                rows.eliminate(fromRow, toRow);
+                return;
+            }
+
+            int middle = (fromRow + toRow) >>> 1;
+            invokeAll(new EliminationTask(rows, fromRow, middle, rowsPerTask),
+                      new EliminationTask(rows, middle + 1, toRow, rowsPerTask));
+        }
+    }
+}
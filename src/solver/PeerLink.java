@@ -0,0 +1,119 @@
+package solver;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.util.InputMismatchException;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+// One end of a socket between two processes of a distributed solve. Messages are a tag and
+// an array of doubles, framed as <tag int><count int><count doubles>, big-endian. A daemon
+// thread reads incoming messages into a queue as they arrive, so a send never waits for the
+// other side to call receive and two processes can exchange rows without deadlocking.
+class PeerLink implements Closeable {
+    private static final int CLOSED = -1; // queued by the reader when the connection ends
+
+    private final Socket socket;
+    private final DataOutputStream output;
+    private final BlockingQueue<Message> received = new LinkedBlockingQueue<>();
+    private byte[] sendBuffer = new byte[0];
+    private long bytesSent;
+    private long messagesSent;
+
+    public PeerLink(Socket socket, String name) throws IOException {
+        this.socket = socket;
+        socket.setTcpNoDelay(true);
+        output = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream(), 1 << 16));
+        DataInputStream input = new DataInputStream(new BufferedInputStream(socket.getInputStream(), 1 << 16));
+        Thread reader = new Thread(() -> readMessages(input), name);
+        reader.setDaemon(true);
+        reader.start();
+    }
+
+    public void send(int tag, double[] data) throws IOException {
+        send(tag, data, 0, data.length);
+    }
+
+    public synchronized void send(int tag, double[] data, int offset, int length) throws IOException {
+        if (sendBuffer.length < 8 * length) {
+            sendBuffer = new byte[8 * length];
+        }
+        ByteBuffer.wrap(sendBuffer).asDoubleBuffer().put(data, offset, length);
+        output.writeInt(tag);
+        output.writeInt(length);
+        output.write(sendBuffer, 0, 8 * length);
+        output.flush();
+        bytesSent += 8 + 8L * length;
+        messagesSent++;
+    }
+
+    // the next message, which must carry this tag; waits for it to arrive
+    public double[] receive(int tag) throws IOException {
+        Message message;
+        try {
+            message = received.take();
+        } catch (InterruptedException interrupted) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted waiting for message " + tag);
+        }
+        if (message.tag == CLOSED) {
+            throw new EOFException("Connection closed waiting for message " + tag);
+        }
+        if (message.tag != tag) {
+            throw new InputMismatchException("Expected message " + tag + ", got " + message.tag);
+        }
+        return message.data;
+    }
+
+    public synchronized long getBytesSent() {
+        return bytesSent;
+    }
+
+    public synchronized long getMessagesSent() {
+        return messagesSent;
+    }
+
+    @Override
+    public void close() throws IOException {
+        socket.close();
+    }
+
+    private void readMessages(DataInputStream input) {
+        byte[] buffer = new byte[0];
+        try {
+            while (true) {
+                int tag = input.readInt();
+                int length = input.readInt();
+                if (length < 0) {
+                    throw new InputMismatchException("Invalid message length: " + length);
+                }
+                if (buffer.length < 8 * length) {
+                    buffer = new byte[8 * length];
+                }
+                input.readFully(buffer, 0, 8 * length);
+                double[] data = new double[length];
+                ByteBuffer.wrap(buffer, 0, 8 * length).asDoubleBuffer().get(data);
+                received.add(new Message(tag, data));
+            }
+        } catch (IOException | RuntimeException connectionEnded) {
+            received.add(new Message(CLOSED, null));
+        }
+    }
+
+    private static class Message {
+        final int tag;
+        final double[] data;
+
+        Message(int tag, double[] data) {
+            this.tag = tag;
+            this.data = data;
+        }
+    }
+}
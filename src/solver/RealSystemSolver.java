@@ -0,0 +1,268 @@
+package solver;
+
+import java.io.PrintStream;
+
+// Gaussian and Gauss-Jordan elimination for systems without imaginary parts. Same steps as
+// SystemSolver's complex Gauss-Jordan, on one double per term instead of an interleaved
+// (re, im) pair: half the storage, and one multiply-add per term instead of a complex one.
+// Rows sit one after another in a single array and are swapped through rowOffsets; the row
+// updates go through the same ParallelEliminator, so -threads applies here too.
+class RealSystemSolver {
+    private final int numOfVariables;
+    private final int numOfEquations;
+    private final int rowLength; // coefficients followed by the constant term
+    private final double[] data;
+    private final int[] rowOffsets; // start of each row in data; swapped instead of the rows
+    private final double negligibleModulus;
+    private final double negligibleConstantModulus;
+    private final ParallelEliminator eliminator;
+    private final SolveLog log;
+    private final SolveMetrics metrics;
+    private final int[] columnOrder; // column eliminated at each position; swapped instead of the columns
+
+    public RealSystemSolver(Matrix system) {
+        this(system, new ParallelEliminator(1), new SolveLog(SolveLog.Verbosity.trace, System.out), new SolveMetrics());
+    }
+
+    // copies the real parts; the complex Matrix can be dropped afterwards
+    public RealSystemSolver(Matrix system, ParallelEliminator eliminator, SolveLog log, SolveMetrics metrics) {
+        this.eliminator = eliminator;
+        this.log = log;
+        this.metrics = metrics;
+        numOfVariables = system.getMatrixNumOfVariables();
+        numOfEquations = system.getMatrixNumOfEquations();
+        negligibleModulus = system.getNegligibleModulus();
+        negligibleConstantModulus = system.getNegligibleConstantModulus();
+        rowLength = numOfVariables + 1;
+        data = new double[rowLength * numOfEquations];
+        rowOffsets = new int[numOfEquations];
+        columnOrder = new int[numOfVariables];
+        for (int position = 0; position < numOfVariables; position++) {
+            columnOrder[position] = position;
+        }
+        for (int row = 0; row < numOfEquations; row++) {
+            rowOffsets[row] = row * rowLength;
+            LinearEquation equation = system.getRow(row + 1);
+            for (int column = 0; column < rowLength; column++) {
+                data[rowOffsets[row] + column] = equation.getReal(column + 1);
+            }
+        }
+    }
+
+    // solution as interleaved (re, im) pairs with zero imaginary parts, as Main writes it
+    public double[] getSolution() {
+        double[] solution = new double[2 * numOfVariables];
+        for (int row = 0; row < numOfVariables; row++) {
+            solution[2 * columnOrder[row]] = term(row, numOfVariables); // undoes the column order in one pass
+        }
+        return solution;
+    }
+
+    public Main.SystemResult solve() {
+        metrics.begin(SolveMetrics.Phase.forwardElimination);
+        Main.SystemResult classified = toRowEchelonForm();
+        metrics.end(SolveMetrics.Phase.forwardElimination);
+        if (classified != null) {
+            return classified;
+        }
+
+        metrics.begin(SolveMetrics.Phase.backSubstitution);
+        toReducedRowEchelonForm();
+        metrics.end(SolveMetrics.Phase.backSubstitution);
+        return Main.SystemResult.solved;
+    }
+
+    // Gaussian elimination; the result when there is no unique solution, null otherwise
+    private Main.SystemResult toRowEchelonForm() {
+        if (log.isTracing()) {
+            log.trace("-----Input matrix (real)----");
+            print();
+        }
+        log.summary("-----Performing Gaussian elimination----");
+
+        if (findNonZeroPosition(0) == -1) {
+            // all coefficients are zero: solvable only if every constant is zero too
+            for (int row = 0; row < numOfEquations; row++) {
+                if (term(row, numOfVariables) != 0) {
+                    log.summary("No solutions");
+                    return Main.SystemResult.noSolution;
+                }
+            }
+            log.summary("Infinitely many solutions");
+            return Main.SystemResult.infiniteSolutions;
+        }
+
+        // Get Row Echelon Form through Gaussian elimination
+        double[] factors = new double[numOfEquations];
+        for (int pivot = 0; pivot < numOfVariables; pivot++) {
+            int column = columnOrder[pivot];
+            int newRow = findPivotRowInCol(pivot, column);
+
+            // if there are no non-zero terms in this column
+            if (newRow == -1) {
+                int positionToSwap = findNonZeroPosition(pivot);
+                if (positionToSwap == -1) {
+                    // no more columns with non-zero elements
+                    break;
+                }
+                columnOrder[pivot] = columnOrder[positionToSwap];
+                columnOrder[positionToSwap] = column;
+                metrics.countColumnSwap();
+                column = columnOrder[pivot];
+                newRow = findPivotRowInCol(pivot, column);
+            }
+            if (newRow != pivot) {
+                int temp = rowOffsets[pivot];
+                rowOffsets[pivot] = rowOffsets[newRow];
+                rowOffsets[newRow] = temp;
+                metrics.countRowSwap();
+            }
+
+            double normalizationFactor = 1 / term(pivot, column);
+            if (normalizationFactor != 1) {
+                ComplexKernels.scale(normalizationFactor, data, rowOffsets[pivot], rowLength);
+                metrics.countRealRowOperation(rowLength);
+                if (log.isTracing()) {
+                    log.tracef("%s * R%d -> R%d\n", termToString(normalizationFactor), pivot + 1, pivot + 1);
+                }
+            }
+
+            double pivotTerm = term(pivot, column);
+            for (int currentRow = pivot + 1; currentRow < numOfEquations; currentRow++) {
+                double factor = -(term(currentRow, column) / pivotTerm);
+                factors[currentRow - pivot - 1] = factor;
+                if (factor != 0) {
+                    metrics.countRealRowOperation(rowLength);
+                    if (log.isTracing()) {
+                        printRowOp(pivot, currentRow, factor);
+                    }
+                }
+            }
+            eliminator.eliminate(data, rowOffsets, rowLength, pivot, pivot + 1, numOfEquations - 1, factors);
+        }
+
+        if (log.isTracing()) {
+            log.trace("-----Row Echelon----");
+            print();
+        }
+        if (isInconsistent()) {
+            log.summary("No solutions - inconsistent");
+            return Main.SystemResult.noSolution;
+        }
+        int numOfFreeVariables = numOfFreeVariables();
+        if (numOfFreeVariables > 0) {
+            log.summaryf("Infinitely many solutions - has %d free variables\n", numOfFreeVariables);
+            return Main.SystemResult.infiniteSolutions;
+        }
+        return null;
+    }
+
+    // Gauss-Jordan elimination of a row echelon form with a unique solution
+    private void toReducedRowEchelonForm() {
+        log.summary("-----Performing Gauss-Jordan elimination----");
+        double[] factors = new double[numOfVariables];
+        for (int currentColumn = numOfVariables - 1; currentColumn > 0; currentColumn--) {
+            int column = columnOrder[currentColumn];
+            for (int currentRow = currentColumn - 1; currentRow >= 0; currentRow--) {
+                double factor = -term(currentRow, column);
+                factors[currentRow] = factor;
+                if (factor != 0) {
+                    metrics.countRealRowOperation(rowLength);
+                    if (log.isTracing()) {
+                        printRowOp(currentColumn, currentRow, factor);
+                    }
+                }
+            }
+            eliminator.eliminate(data, rowOffsets, rowLength, currentColumn, 0, currentColumn - 1, factors);
+        }
+        if (log.isTracing()) {
+            log.trace("-----Reduced Row Echelon----");
+            print();
+        }
+    }
+
+    private double term(int row, int column) {
+        return data[rowOffsets[row] + column];
+    }
+
+    private boolean isNegligible(double term) {
+        return Math.abs(term) <= negligibleModulus;
+    }
+
+    // largest magnitude from firstRow down, -1 if negligible
+    private int findPivotRowInCol(int firstRow, int column) {
+        int pivotRow = -1;
+        double max = negligibleModulus;
+        for (int row = firstRow; row < numOfEquations; row++) {
+            double magnitude = Math.abs(term(row, column));
+            if (magnitude > max) {
+                max = magnitude;
+                pivotRow = row;
+            }
+        }
+        return pivotRow;
+    }
+
+    // first position from fromPosition on whose column has a non-negligible term at or below
+    // row fromPosition; -1 if there is none
+    private int findNonZeroPosition(int fromPosition) {
+        for (int position = fromPosition; position < numOfVariables; position++) {
+            int column = columnOrder[position];
+            for (int row = fromPosition; row < numOfEquations; row++) {
+                if (!isNegligible(term(row, column))) {
+                    return position;
+                }
+            }
+        }
+        return -1;
+    }
+
+    private boolean isInconsistent() {
+        for (int row = 0; row < numOfEquations; row++) {
+            if (Math.abs(term(row, numOfVariables)) > negligibleConstantModulus && !hasNonZeroCoeffs(row)) {
+                return true; // e.g. 0 0 0 | 5
+            }
+        }
+        return false;
+    }
+
+    private int numOfFreeVariables() {
+        int numOfFreeVariables = numOfVariables;
+        for (int row = 0; row < numOfEquations; row++) {
+            if (hasNonZeroCoeffs(row)) {
+                numOfFreeVariables--;
+            }
+        }
+        return numOfFreeVariables;
+    }
+
+    private boolean hasNonZeroCoeffs(int row) {
+        for (int column = 0; column < numOfVariables; column++) {
+            if (!isNegligible(term(row, column))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void print() {
+        PrintStream out = log.getStream();
+        StringBuilder line = new StringBuilder();
+        for (int row = 0; row < numOfEquations; row++) {
+            line.setLength(0);
+            for (int column = 0; column < rowLength; column++) {
+                ComplexFormatter.append(line, term(row, column), 0, ComplexFormatter.SHORT_PATTERN, true).append(' ');
+            }
+            out.println(line);
+        }
+    }
+
+    // 0-based indices, printed 1-based like Main
+    private void printRowOp(int pivot, int currentRow, double factor) {
+        log.tracef("%s * R%d + R%d -> R%d\n", termToString(factor), pivot + 1, currentRow + 1, currentRow + 1);
+    }
+
+    private static String termToString(double term) {
+        return ComplexFormatter.toString(term, 0, ComplexFormatter.SHORT_PATTERN, false);
+    }
+}
@@ -0,0 +1,15 @@
+package solver;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+// A system read one augmented row at a time, for systems too large to load whole.
+interface RowReader extends Closeable {
+
+    int getNumOfVariables();
+
+    int getNumOfEquations();
+
+    // the next row's coefficients and constant term, interleaved (re, im), into row
+    void readRow(double[] row) throws IOException;
+}
@@ -0,0 +1,71 @@
+package solver;
+
+import java.io.PrintStream;
+
+// Step log of a solve at one of three levels:
+//   silent:  nothing
+//   summary: which method ran and how it ended, a handful of lines per solve
+//   trace:   every row operation and the matrix after each stage
+// Trace lines cost a ComplexNumber format each, so the elimination loops check isTracing()
+// before building them rather than formatting into a stream that drops them.
+class SolveLog {
+    enum Verbosity {
+        silent,
+        summary,
+        trace,
+    }
+
+    public static final SolveLog SILENT = new SolveLog(Verbosity.silent, null);
+
+    private final Verbosity verbosity;
+    private final PrintStream out;
+
+    public SolveLog(Verbosity verbosity, PrintStream out) {
+        this.verbosity = verbosity;
+        this.out = out;
+    }
+
+    public boolean isTracing() {
+        return verbosity == Verbosity.trace;
+    }
+
+    public boolean isSummarizing() {
+        return verbosity != Verbosity.silent;
+    }
+
+    // for printing whole matrices; only use when isTracing()
+    public PrintStream getStream() {
+        return out;
+    }
+
+    public void trace(CharSequence line) {
+        if (isTracing()) {
+            out.println(line);
+        }
+    }
+
+    public void tracef(String format, Object... args) {
+        if (isTracing()) {
+            out.printf(format, args);
+        }
+    }
+
+    public void summary(String line) {
+        if (isSummarizing()) {
+            out.println(line);
+        }
+    }
+
+    public void summaryf(String format, Object... args) {
+        if (isSummarizing()) {
+            out.printf(format, args);
+        }
+    }
+
+    // writes out what is buffered; waits for an AsyncTraceSink to finish
+    public void close() {
+        if (out != null) {
+            out.close();
+        }
+    }
+}
@@ -0,0 +1,240 @@
+package solver;
+
+import java.io.FileNotFoundException;
+import java.io.PrintStream;
+import java.util.Locale;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+// Phase timings and operation counts of one solve. Counters are plain fields bumped once
+// per row operation, and each phase costs two nanoTime calls plus a JFR event that does
+// nothing unless a recording is running, so the metrics are always collected and only
+// written out when asked for (-metrics).
+class SolveMetrics {
+    enum Phase {
+        parse,
+        forwardElimination,
+        backSubstitution,
+        iteration,
+        output,
+    }
+
+    private final long[] phaseNanos = new long[Phase.values().length];
+    private final long[] phaseStarts = new long[Phase.values().length];
+    private final PhaseEvent[] phaseEvents = new PhaseEvent[Phase.values().length];
+
+    private String path = "none"; // which solver ran: gaussJordan, real, lu, sparseLU or the iterative method
+    private int numOfVariables;
+    private int numOfEquations;
+    private long rowSwaps;
+    private long columnSwaps;
+    private long rowOperations;
+    private long flops; // of the direct methods, in real operations: a complex multiply-add is 8
+    private long iterations;
+    private double residual = Double.NaN; // relative, of the iterative and refined solves
+    private long bytesRead;
+    private long bytesWritten;
+
+    public void begin(Phase phase) {
+        PhaseEvent event = new PhaseEvent();
+        event.begin();
+        phaseEvents[phase.ordinal()] = event;
+        phaseStarts[phase.ordinal()] = System.nanoTime();
+    }
+
+    public void end(Phase phase) {
+        phaseNanos[phase.ordinal()] += System.nanoTime() - phaseStarts[phase.ordinal()];
+        PhaseEvent event = phaseEvents[phase.ordinal()];
+        phaseEvents[phase.ordinal()] = null;
+        if (event != null && event.shouldCommit()) {
+            event.phase = phase.name();
+            event.commit();
+        }
+    }
+
+    public void setPath(String path) {
+        this.path = path;
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    public void setSize(int numOfVariables, int numOfEquations) {
+        this.numOfVariables = numOfVariables;
+        this.numOfEquations = numOfEquations;
+    }
+
+    public void countRowSwap() {
+        rowSwaps++;
+    }
+
+    public void countRowSwaps(long count) {
+        rowSwaps += count;
+    }
+
+    public void countColumnSwap() {
+        columnSwaps++;
+    }
+
+    // one row += factor * pivot row, or row *= factor, over termsPerRow complex terms
+    public void countComplexRowOperation(int termsPerRow) {
+        rowOperations++;
+        flops += 8L * termsPerRow;
+    }
+
+    public void countRealRowOperation(int termsPerRow) {
+        rowOperations++;
+        flops += 2L * termsPerRow;
+    }
+
+    public void countFlops(long count) {
+        flops += count;
+    }
+
+    public void countIterations(long count) {
+        iterations += count;
+    }
+
+    public void setResidual(double residual) {
+        this.residual = residual;
+    }
+
+    public void countBytesRead(long count) {
+        bytesRead += count;
+    }
+
+    public void countBytesWritten(long count) {
+        bytesWritten += count;
+    }
+
+    public long getPhaseNanos(Phase phase) {
+        return phaseNanos[phase.ordinal()];
+    }
+
+    public long getRowSwaps() {
+        return rowSwaps;
+    }
+
+    public long getColumnSwaps() {
+        return columnSwaps;
+    }
+
+    public long getRowOperations() {
+        return rowOperations;
+    }
+
+    public long getFlops() {
+        return flops;
+    }
+
+    // the summary as a JFR event, when a recording wants it
+    public void commitSummary() {
+        SolveEvent event = new SolveEvent();
+        if (!event.shouldCommit()) {
+            return;
+        }
+        event.path = path;
+        event.numOfVariables = numOfVariables;
+        event.numOfEquations = numOfEquations;
+        event.rowSwaps = rowSwaps;
+        event.columnSwaps = columnSwaps;
+        event.rowOperations = rowOperations;
+        event.flops = flops;
+        event.iterations = iterations;
+        event.residual = residual;
+        event.bytesRead = bytesRead;
+        event.bytesWritten = bytesWritten;
+        event.commit();
+    }
+
+    // one line of JSON; phase times in milliseconds
+    public String toJson() {
+        StringBuilder json = new StringBuilder("{");
+        json.append("\"path\":\"").append(path).append('"');
+        json.append(",\"variables\":").append(numOfVariables);
+        json.append(",\"equations\":").append(numOfEquations);
+        for (Phase phase : Phase.values()) {
+            json.append(",\"").append(phase.name()).append("Ms\":")
+                    .append(String.format(Locale.ROOT, "%.3f", phaseNanos[phase.ordinal()] / 1e6));
+        }
+        json.append(",\"rowSwaps\":").append(rowSwaps);
+        json.append(",\"columnSwaps\":").append(columnSwaps);
+        json.append(",\"rowOperations\":").append(rowOperations);
+        json.append(",\"flops\":").append(flops);
+        json.append(",\"iterations\":").append(iterations);
+        if (!Double.isNaN(residual)) {
+            json.append(",\"residual\":").append(String.format(Locale.ROOT, "%.3e", residual));
+        }
+        json.append(",\"bytesRead\":").append(bytesRead);
+        json.append(",\"bytesWritten\":").append(bytesWritten);
+        return json.append('}').toString();
+    }
+
+    // "-" is stderr
+    public void writeJson(String filePath) {
+        if (filePath.equals("-")) {
+            System.err.println(toJson());
+            return;
+        }
+        try (PrintStream out = new PrintStream(filePath)) {
+            out.println(toJson());
+        } catch (FileNotFoundException fileNotFound) {
+            System.out.println("Metrics file exception: " + fileNotFound.getMessage());
+        }
+    }
+}
+
+@Name("solver.Phase")
+@Label("Solver Phase")
+@Category("Linear Solver")
+@Description("One phase of a solve: parse, forward elimination, back substitution, iteration or output")
+class PhaseEvent extends Event {
+    @Label("Phase")
+    String phase;
+}
+
+@Name("solver.Solve")
+@Label("Solve Summary")
+@Category("Linear Solver")
+class SolveEvent extends Event {
+    @Label("Path")
+    String path;
+
+    @Label("Variables")
+    int numOfVariables;
+
+    @Label("Equations")
+    int numOfEquations;
+
+    @Label("Row Swaps")
+    long rowSwaps;
+
+    @Label("Column Swaps")
+    long columnSwaps;
+
+    @Label("Row Operations")
+    long rowOperations;
+
+    @Label("Floating Point Operations")
+    long flops;
+
+    @Label("Iterations")
+    long iterations;
+
+    @Label("Relative Residual")
+    double residual;
+
+    @Label("Bytes Read")
+    @DataAmount
+    long bytesRead;
+
+    @Label("Bytes Written")
+    @DataAmount
+    long bytesWritten;
+}
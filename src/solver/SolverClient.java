@@ -0,0 +1,118 @@
+package solver;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Load generator for SolverServer: sends one input file over and over on several
+// connections, each keeping up to pipelineDepth requests unanswered, and reports
+// latency percentiles from send to response.
+//
+//   java solver.SolverClient <port> <inputfile> [requests] [connections] [pipelineDepth]
+public class SolverClient {
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 2) {
+            System.out.println("Syntax: <port> <inputfile> [requests] [connections] [pipelineDepth]");
+            System.exit(-1);
+        }
+        int port = Integer.parseInt(args[0]);
+        byte[] system = Files.readAllBytes(Paths.get(args[1]));
+        int requests = args.length > 2 ? Integer.parseInt(args[2]) : 10000;
+        int connections = args.length > 3 ? Integer.parseInt(args[3]) : 4;
+        int pipelineDepth = args.length > 4 ? Integer.parseInt(args[4]) : 16;
+
+        byte[] request = frame(system);
+        long[] latencies = new long[requests];
+        AtomicInteger errors = new AtomicInteger();
+        Thread[] threads = new Thread[connections];
+        long start = System.nanoTime();
+        for (int c = 0; c < connections; c++) {
+            // requests c, c + connections, ... go out on connection c
+            int first = c;
+            threads[c] = new Thread(() -> {
+                try {
+                    run(port, request, latencies, first, connections, pipelineDepth, errors);
+                } catch (IOException | InterruptedException failure) {
+                    System.out.println("Connection " + first + ": " + failure);
+                }
+            });
+            threads[c].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        Arrays.sort(latencies);
+        System.out.printf("%d requests in %.3f s: %.1f requests/s, %d errors\n",
+                requests, seconds, requests / seconds, errors.get());
+        System.out.printf("latency p50 %.3f ms, p99 %.3f ms, max %.3f ms\n",
+                percentile(latencies, 0.50) / 1e6, percentile(latencies, 0.99) / 1e6, latencies[requests - 1] / 1e6);
+    }
+
+    private static void run(int port, byte[] request, long[] latencies, int first, int step,
+                            int pipelineDepth, AtomicInteger errors) throws IOException, InterruptedException {
+        Semaphore window = new Semaphore(pipelineDepth);
+        BlockingQueue<Long> sendTimes = new ArrayBlockingQueue<>(pipelineDepth);
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), port)) {
+            socket.setTcpNoDelay(true);
+            OutputStream output = new BufferedOutputStream(socket.getOutputStream());
+            Thread sender = new Thread(() -> {
+                try {
+                    for (int i = first; i < latencies.length; i += step) {
+                        window.acquire();
+                        sendTimes.put(System.nanoTime());
+                        output.write(request);
+                        if (window.availablePermits() == 0 || i + step >= latencies.length) {
+                            output.flush();
+                        }
+                    }
+                    output.flush();
+                } catch (IOException | InterruptedException failure) {
+                    System.out.println("Send failed: " + failure);
+                }
+            });
+            sender.start();
+
+            InputStream input = new BufferedInputStream(socket.getInputStream());
+            for (int i = first; i < latencies.length; i += step) {
+                String header = SolverServer.readHeaderLine(input);
+                if (header == null) {
+                    throw new IOException("Connection closed by the server");
+                }
+                String[] statusAndLength = header.split(" ");
+                input.readNBytes(Integer.parseInt(statusAndLength[1]));
+                latencies[i] = System.nanoTime() - sendTimes.take();
+                window.release();
+                if (!statusAndLength[0].equals("ok")) {
+                    errors.incrementAndGet();
+                }
+            }
+            sender.join();
+        }
+    }
+
+    private static byte[] frame(byte[] body) {
+        byte[] header = (body.length + "\n").getBytes(StandardCharsets.US_ASCII);
+        byte[] frame = Arrays.copyOf(header, header.length + body.length);
+        System.arraycopy(body, 0, frame, header.length, body.length);
+        return frame;
+    }
+
+    private static long percentile(long[] sorted, double fraction) {
+        return sorted[Math.min(sorted.length - 1, (int) Math.ceil(fraction * sorted.length) - 1)];
+    }
+}
@@ -0,0 +1,270 @@
+package solver;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.InputMismatchException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+// Keeps one warm JVM solving systems sent over a loopback TCP socket. Every request and
+// response is a frame:
+//
+//   request:  <length>\n<length bytes: a system in the dense or sparse text format>
+//   response: ok <length>\n<length bytes: the result as writeToFile writes it>
+//             error <length>\n<length bytes: what went wrong>
+//
+// A client may pipeline requests on a connection; responses come back in request order.
+// At most queueCapacity systems are queued or running across all connections. Past that
+// the server stops reading requests, so TCP flow control blocks the clients' sends.
+class SolverServer implements Closeable {
+    public static final int DEFAULT_QUEUE_CAPACITY = 256;
+    private static final int MAX_PIPELINE_DEPTH = 64; // unanswered requests read per connection
+    private static final int MAX_FRAME_LENGTH = 1 << 28;
+
+    private final ServerSocket serverSocket;
+    private final ExecutorService workers;
+    private final Semaphore queueSlots;
+    private final int blockSize;
+    private final String method;
+    private final IterativeSolver iterativeSolver;
+    private final FactorizationCache cache; // null for none; shared by all connections
+    private final ParallelEliminator eliminator = new ParallelEliminator(1); // no pool, safe to share
+
+    // port 0 picks a free port
+    public SolverServer(int port, int numOfWorkers, int queueCapacity,
+                        int blockSize, String method, IterativeSolver iterativeSolver,
+                        FactorizationCache cache) throws IOException {
+        if (numOfWorkers < 1) {
+            throw new IllegalArgumentException("Invalid number of workers: " + numOfWorkers);
+        }
+        if (queueCapacity < 1) {
+            throw new IllegalArgumentException("Invalid queue capacity: " + queueCapacity);
+        }
+        this.serverSocket = new ServerSocket(port, 50, InetAddress.getLoopbackAddress());
+        this.workers = Executors.newFixedThreadPool(numOfWorkers);
+        this.queueSlots = new Semaphore(queueCapacity);
+        this.blockSize = blockSize;
+        this.method = method;
+        this.iterativeSolver = iterativeSolver;
+        this.cache = cache;
+    }
+
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    // accepts connections until closed
+    public void serve() throws IOException {
+        while (!serverSocket.isClosed()) {
+            Socket socket;
+            try {
+                socket = serverSocket.accept();
+            } catch (IOException acceptError) {
+                if (serverSocket.isClosed()) {
+                    return;
+                }
+                throw acceptError;
+            }
+            socket.setTcpNoDelay(true);
+            Thread reader = new Thread(() -> handle(socket), "solver-connection-" + socket.getPort());
+            reader.setDaemon(true);
+            reader.start();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        serverSocket.close();
+        workers.shutdownNow();
+    }
+
+    // reads requests on this thread and writes responses, in order, on another
+    private void handle(Socket socket) {
+        BlockingQueue<Future<byte[]>> pending = new ArrayBlockingQueue<>(MAX_PIPELINE_DEPTH);
+        Thread writer = new Thread(() -> writeResponses(socket, pending), Thread.currentThread().getName() + "-writer");
+        writer.setDaemon(true);
+        writer.start();
+
+        try {
+            // not closed here: closing it would close the socket under the writer, which closes it when done
+            InputStream input = new BufferedInputStream(socket.getInputStream());
+            while (true) {
+                String header = readHeaderLine(input);
+                if (header == null) {
+                    break;
+                }
+                int length;
+                try {
+                    length = Integer.parseInt(header.trim());
+                } catch (NumberFormatException badHeader) {
+                    enqueue(pending, CompletableFuture.completedFuture(errorFrame("Invalid frame header: " + header)), writer);
+                    break; // cannot find the next frame
+                }
+                if (length < 0 || length > MAX_FRAME_LENGTH) {
+                    enqueue(pending, CompletableFuture.completedFuture(errorFrame("Invalid frame length: " + length)), writer);
+                    break;
+                }
+                byte[] request = input.readNBytes(length);
+                if (request.length < length) {
+                    break; // connection closed mid-frame
+                }
+
+                queueSlots.acquire(); // backpressure: wait here while the queue is full
+                Future<byte[]> response;
+                try {
+                    response = workers.submit(() -> {
+                        try {
+                            return respond(request);
+                        } finally {
+                            queueSlots.release();
+                        }
+                    });
+                } catch (RuntimeException rejected) {
+                    queueSlots.release(); // shutting down
+                    throw rejected;
+                }
+                enqueue(pending, response, writer);
+            }
+        } catch (IOException | RuntimeException connectionError) {
+            // the client went away, or the server is closing: answer what was already read
+        } catch (InterruptedException interrupted) {
+            Thread.currentThread().interrupt();
+        } finally {
+            try {
+                enqueue(pending, CompletableFuture.completedFuture(null), writer);
+            } catch (IOException | InterruptedException writerGone) {
+                // nothing left to tell
+            }
+        }
+    }
+
+    // waits for room in the pending queue, giving up once the writer has stopped
+    private static void enqueue(BlockingQueue<Future<byte[]>> pending, Future<byte[]> response, Thread writer)
+            throws IOException, InterruptedException {
+        while (!pending.offer(response, 100, TimeUnit.MILLISECONDS)) {
+            if (!writer.isAlive()) {
+                throw new EOFException("Connection closed");
+            }
+        }
+    }
+
+    private void writeResponses(Socket socket, BlockingQueue<Future<byte[]>> pending) {
+        try (socket;
+             OutputStream output = new BufferedOutputStream(socket.getOutputStream())) {
+            while (true) {
+                byte[] response;
+                try {
+                    response = pending.take().get();
+                } catch (ExecutionException failure) {
+                    response = errorFrame(String.valueOf(failure.getCause()));
+                }
+                if (response == null) {
+                    break; // end of the requests
+                }
+                output.write(response);
+                if (pending.isEmpty()) {
+                    output.flush(); // pipelined responses go out together
+                }
+            }
+        } catch (IOException | InterruptedException connectionError) {
+            // client gone; its remaining responses are dropped
+        }
+    }
+
+    private byte[] respond(byte[] request) {
+        SystemSolution solution;
+        try {
+            solution = solve(request, new SystemSolver(eliminator, blockSize, method, iterativeSolver, SolveLog.SILENT, cache));
+        } catch (IOException | RuntimeException badRequest) {
+            return errorFrame(String.valueOf(badRequest));
+        }
+
+        StringWriter result = new StringWriter();
+        try (PrintWriter printWriter = new PrintWriter(result)) {
+            Main.writeResult(printWriter, solution.getSolution(), solution.getResult());
+        }
+        return frame("ok", result.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    // one system in the dense or sparse text format
+    static SystemSolution solve(byte[] request, SystemSolver solver) throws IOException {
+        MatrixReader reader = new MatrixReader(new ByteArrayInputStream(request));
+        if (isSparse(request)) {
+            return solver.solve(new SparseMatrix(reader));
+        }
+        Matrix system = Matrix.read(reader);
+        if (system == null) {
+            throw new InputMismatchException("Empty request");
+        }
+        return solver.solve(system);
+    }
+
+    private static boolean isSparse(byte[] request) {
+        int start = 0;
+        while (start < request.length && Character.isWhitespace(request[start])) {
+            start++;
+        }
+        byte[] header = SparseMatrix.FORMAT_HEADER.getBytes(StandardCharsets.US_ASCII);
+        if (request.length - start < header.length) {
+            return false;
+        }
+        for (int i = 0; i < header.length; i++) {
+            if (request[start + i] != header[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static byte[] errorFrame(String message) {
+        return frame("error", message.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static byte[] frame(String status, byte[] body) {
+        byte[] header = (status + " " + body.length + "\n").getBytes(StandardCharsets.US_ASCII);
+        byte[] frame = new byte[header.length + body.length];
+        System.arraycopy(header, 0, frame, 0, header.length);
+        System.arraycopy(body, 0, frame, header.length, body.length);
+        return frame;
+    }
+
+    // header line without its terminator; null at a clean end of input
+    static String readHeaderLine(InputStream input) throws IOException {
+        StringBuilder line = new StringBuilder();
+        while (true) {
+            int b = input.read();
+            if (b == -1) {
+                if (line.length() == 0) {
+                    return null;
+                }
+                throw new EOFException("Connection closed in a frame header");
+            }
+            if (b == '\n') {
+                return line.toString();
+            }
+            if (line.length() > 64) {
+                throw new InputMismatchException("Frame header too long");
+            }
+            line.append((char) b);
+        }
+    }
+}
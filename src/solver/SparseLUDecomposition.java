@@ -0,0 +1,360 @@
+package solver;
+
+import java.util.Arrays;
+import java.util.InputMismatchException;
+
+// Left-looking sparse LU (Gilbert-Peierls) of A Q = P^T L U, with Q a minimum degree column
+// ordering. Each column is a sparse triangular solve against the L built so far, visiting
+// only the rows reachable from the column's non-zeros, so work and memory follow the
+// non-zeros of the factors rather than n^2. The pivot stays on the diagonal of the ordering
+// while it is within PIVOT_TOLERANCE of the column's largest term and not negligible itself,
+// otherwise the largest term is taken. A column with nothing but negligible terms left gets no pivot and its
+// variable is free, so the factorization also reveals the rank of singular and rectangular
+// systems; rectangular ones keep their natural column order.
+class SparseLUDecomposition {
+    private static final double PIVOT_TOLERANCE = 0.001;
+
+    private final int numOfVariables;
+    private final int numOfEquations;
+    private final int[] columnOrder;  // columnOrder[k] = variable eliminated at step k, pivoted ones first
+    private final int[] pivotRows;    // pivotRows[k] = equation pivoted at step k, k < rank
+    private final int[] stepOfRow;    // inverse of pivotRows, -1 while not pivotal
+    private final double negligibleModulus;
+    private int rank;
+    private long flops; // of the factorization, 8 per complex multiply-add
+
+    // L without its unit diagonal, by step, with equation indices; U by step, with step indices
+    private final SparseColumns lower;
+    private final SparseColumns upper;
+    private final double[] diagonal;  // interleaved (re, im) U(k, k)
+
+    public SparseLUDecomposition(SparseMatrix system) {
+        numOfVariables = system.getNumOfVariables();
+        numOfEquations = system.getNumOfEquations();
+        negligibleModulus = system.getNegligibleModulus();
+        if (numOfVariables == numOfEquations) {
+            columnOrder = MinimumDegreeOrdering.order(system);
+        } else {
+            columnOrder = new int[numOfVariables];
+            for (int column = 0; column < numOfVariables; column++) {
+                columnOrder[column] = column;
+            }
+        }
+        int maxRank = Math.min(numOfVariables, numOfEquations);
+        pivotRows = new int[maxRank];
+        stepOfRow = new int[numOfEquations];
+        Arrays.fill(stepOfRow, -1);
+        lower = new SparseColumns(maxRank, system.getNumOfNonZeros());
+        upper = new SparseColumns(maxRank, system.getNumOfNonZeros());
+        diagonal = new double[2 * maxRank];
+        factor(system);
+    }
+
+    public int size() {
+        return numOfVariables;
+    }
+
+    public int getRank() {
+        return rank;
+    }
+
+    // some variable has no pivot, or there are fewer equations than variables
+    public boolean isSingular() {
+        return rank < numOfVariables;
+    }
+
+    public long getFlops() {
+        return flops;
+    }
+
+    // non-zeros in L and U together, diagonal included
+    public long getNumOfFactorNonZeros() {
+        return (long) lower.size() + upper.size() + rank;
+    }
+
+    private void factor(SparseMatrix system) {
+        int[] columnStarts = system.getColumnStarts();
+        int[] rowIndices = system.getRowIndices();
+        double[] values = system.getValues();
+
+        double[] work = new double[2 * numOfEquations]; // dense scatter of the current column, by equation
+        int[] reach = new int[numOfEquations];          // rows reached by the triangular solve, topological order at the end
+        int[] stack = new int[numOfEquations];
+        int[] edgePosition = new int[numOfEquations];
+        int[] visited = new int[numOfEquations];
+        Arrays.fill(visited, -1);
+        double negligibleSquared = negligibleModulus*negligibleModulus;
+        int[] freeColumns = new int[numOfVariables];
+        int numOfFreeColumns = 0;
+
+        for (int k = 0; k < numOfVariables; k++) {
+            int column = columnOrder[k];
+
+            // rows reachable from A(:, column) through L, in reverse topological order
+            int top = numOfEquations;
+            for (int entry = columnStarts[column]; entry < columnStarts[column + 1]; entry++) {
+                int row = rowIndices[entry];
+                if (visited[row] != k) {
+                    top = depthFirstSearch(row, k, top, reach, stack, edgePosition, visited);
+                }
+            }
+
+            for (int entry = columnStarts[column]; entry < columnStarts[column + 1]; entry++) {
+                int row = rowIndices[entry];
+                work[2 * row]     = values[2 * entry];
+                work[2 * row + 1] = values[2 * entry + 1];
+            }
+
+            // x = L \ A(:, column), only over the reached rows
+            for (int position = top; position < numOfEquations; position++) {
+                int row = reach[position];
+                int step = stepOfRow[row];
+                if (step < 0) {
+                    continue;
+                }
+
+                double re = work[2 * row];
+                double im = work[2 * row + 1];
+                if (re == 0 && im == 0) {
+                    continue;
+                }
+                for (int entry = lower.starts[step]; entry < lower.starts[step + 1]; entry++) {
+                    int target = 2 * lower.indices[entry];
+                    double lowerRe = lower.values[2 * entry];
+                    double lowerIm = lower.values[2 * entry + 1];
+                    work[target]     -= lowerRe*re - lowerIm*im;
+                    work[target + 1] -= lowerRe*im + lowerIm*re;
+                }
+                flops += 8L * (lower.starts[step + 1] - lower.starts[step]);
+            }
+
+            // pivot: the ordering's diagonal if large enough and not itself negligible, else the
+            // largest non-pivotal term; the column is free only when that one is negligible too
+            int pivotRow = -1;
+            double maxModulus = -1;
+            double diagonalModulus = -1;
+            for (int position = top; position < numOfEquations; position++) {
+                int row = reach[position];
+                if (stepOfRow[row] >= 0) {
+                    continue;
+                }
+                double modulus = work[2 * row]*work[2 * row] + work[2 * row + 1]*work[2 * row + 1];
+                if (modulus > maxModulus) {
+                    maxModulus = modulus;
+                    pivotRow = row;
+                }
+                if (row == column) {
+                    diagonalModulus = modulus;
+                }
+            }
+            if (diagonalModulus > negligibleSquared && diagonalModulus >= PIVOT_TOLERANCE * PIVOT_TOLERANCE * maxModulus) {
+                pivotRow = column;
+                maxModulus = diagonalModulus;
+            }
+
+            if (pivotRow < 0 || maxModulus <= negligibleSquared) {
+                // no pivot: a free variable, and what is left of its column is rounding residue
+                freeColumns[numOfFreeColumns++] = column;
+                clear(work, reach, top);
+                continue;
+            }
+
+            // U(:, rank) above the diagonal
+            for (int position = top; position < numOfEquations; position++) {
+                int row = reach[position];
+                int step = stepOfRow[row];
+                if (step >= 0 && (work[2 * row] != 0 || work[2 * row + 1] != 0)) {
+                    upper.add(step, work[2 * row], work[2 * row + 1]);
+                }
+            }
+            upper.endColumn(rank);
+
+            double pivotRe = work[2 * pivotRow];
+            double pivotIm = work[2 * pivotRow + 1];
+            diagonal[2 * rank]     = pivotRe;
+            diagonal[2 * rank + 1] = pivotIm;
+            pivotRows[rank] = pivotRow;
+            stepOfRow[pivotRow] = rank;
+            columnOrder[rank] = column; // never ahead of k, so the columns still to come are untouched
+
+            // L(:, rank) = remaining terms / pivot
+            double inverseRe =  pivotRe / maxModulus;
+            double inverseIm = -pivotIm / maxModulus;
+            for (int position = top; position < numOfEquations; position++) {
+                int row = reach[position];
+                if (stepOfRow[row] >= 0) {
+                    continue;
+                }
+                double re = work[2 * row];
+                double im = work[2 * row + 1];
+                if (re != 0 || im != 0) {
+                    lower.add(row, re*inverseRe - im*inverseIm, re*inverseIm + im*inverseRe);
+                }
+            }
+            lower.endColumn(rank);
+            rank++;
+
+            clear(work, reach, top);
+        }
+        System.arraycopy(freeColumns, 0, columnOrder, rank, numOfFreeColumns);
+    }
+
+    // iterative DFS from row through the columns of L; pushes finished rows below top
+    private int depthFirstSearch(int start, int k, int top, int[] reach, int[] stack, int[] edgePosition, int[] visited) {
+        int head = 0;
+        stack[0] = start;
+        visited[start] = k;
+        edgePosition[start] = -1;
+        while (head >= 0) {
+            int row = stack[head];
+            int step = stepOfRow[row];
+            if (edgePosition[row] < 0) {
+                edgePosition[row] = step < 0 ? 0 : lower.starts[step];
+            }
+
+            boolean descended = false;
+            if (step >= 0) {
+                int end = lower.starts[step + 1];
+                for (int entry = edgePosition[row]; entry < end; entry++) {
+                    int next = lower.indices[entry];
+                    if (visited[next] != k) {
+                        edgePosition[row] = entry + 1;
+                        visited[next] = k;
+                        edgePosition[next] = -1;
+                        stack[++head] = next;
+                        descended = true;
+                        break;
+                    }
+                }
+            }
+            if (!descended) {
+                head--;
+                reach[--top] = row;
+            }
+        }
+        return top;
+    }
+
+    private static void clear(double[] work, int[] reach, int top) {
+        for (int position = top; position < reach.length; position++) {
+            work[2 * reach[position]]     = 0;
+            work[2 * reach[position] + 1] = 0;
+        }
+    }
+
+    // solved when the rank is full and every equation left without a pivot has a negligible
+    // constant after elimination; noSolution when one does not, infiniteSolutions otherwise
+    public Main.SystemResult classify(double[] constants, double negligibleConstantModulus) {
+        double[] work = constants.clone();
+        forwardSubstitute(work, new double[2 * rank]);
+        double negligibleSquared = negligibleConstantModulus*negligibleConstantModulus;
+        for (int row = 0; row < numOfEquations; row++) {
+            if (stepOfRow[row] < 0 && work[2 * row]*work[2 * row] + work[2 * row + 1]*work[2 * row + 1] > negligibleSquared) {
+                return Main.SystemResult.noSolution; // e.g. 0 0 0 | 5
+            }
+        }
+        return isSingular() ? Main.SystemResult.infiniteSolutions : Main.SystemResult.solved;
+    }
+
+    // solves Ax = b for one interleaved constant vector, by equation; returns x by variable.
+    // Equations without a pivot are not looked at: classify tells whether they hold
+    public double[] solve(double[] constants) {
+        if (isSingular()) {
+            throw new ArithmeticException("Matrix is singular");
+        }
+
+        double[] work = constants.clone();
+        double[] y = new double[2 * numOfVariables];
+        forwardSubstitute(work, y);
+
+        // backward: U z = y, column by column
+        for (int k = numOfVariables - 1; k >= 0; k--) {
+            double pivotRe = diagonal[2 * k];
+            double pivotIm = diagonal[2 * k + 1];
+            double modulus = pivotRe*pivotRe + pivotIm*pivotIm;
+            double re = y[2 * k];
+            double im = y[2 * k + 1];
+            re = (re*pivotRe + im*pivotIm) / modulus;
+            im = (y[2 * k + 1]*pivotRe - y[2 * k]*pivotIm) / modulus;
+            y[2 * k]     = re;
+            y[2 * k + 1] = im;
+            if (re == 0 && im == 0) {
+                continue;
+            }
+            for (int entry = upper.starts[k]; entry < upper.starts[k + 1]; entry++) {
+                int target = 2 * upper.indices[entry];
+                double upperRe = upper.values[2 * entry];
+                double upperIm = upper.values[2 * entry + 1];
+                y[target]     -= upperRe*re - upperIm*im;
+                y[target + 1] -= upperRe*im + upperIm*re;
+            }
+        }
+
+        // undo the column ordering
+        double[] solution = new double[2 * numOfVariables];
+        for (int k = 0; k < numOfVariables; k++) {
+            solution[2 * columnOrder[k]]     = y[2 * k];
+            solution[2 * columnOrder[k] + 1] = y[2 * k + 1];
+        }
+        return solution;
+    }
+
+    // L y = P b over the pivoted steps, working by equation in work, which the constants are
+    // copied into; y gets one term per step
+    private void forwardSubstitute(double[] work, double[] y) {
+        if (work.length != 2 * numOfEquations) {
+            throw new InputMismatchException("Constant vector has " + work.length / 2
+                    + " terms, expected " + numOfEquations);
+        }
+        for (int k = 0; k < rank; k++) {
+            int row = pivotRows[k];
+            double re = work[2 * row];
+            double im = work[2 * row + 1];
+            y[2 * k]     = re;
+            y[2 * k + 1] = im;
+            if (re == 0 && im == 0) {
+                continue;
+            }
+            for (int entry = lower.starts[k]; entry < lower.starts[k + 1]; entry++) {
+                int target = 2 * lower.indices[entry];
+                double lowerRe = lower.values[2 * entry];
+                double lowerIm = lower.values[2 * entry + 1];
+                work[target]     -= lowerRe*re - lowerIm*im;
+                work[target + 1] -= lowerRe*im + lowerIm*re;
+            }
+        }
+    }
+
+    // growable column-compressed storage, filled one column at a time
+    private static class SparseColumns {
+        final int[] starts;
+        int[] indices;
+        double[] values;
+        private int size;
+
+        SparseColumns(int numOfColumns, int capacity) {
+            starts = new int[numOfColumns + 1];
+            indices = new int[Math.max(16, capacity)];
+            values = new double[2 * indices.length];
+        }
+
+        int size() {
+            return size;
+        }
+
+        void add(int index, double re, double im) {
+            if (size == indices.length) {
+                indices = Arrays.copyOf(indices, 2 * size);
+                values = Arrays.copyOf(values, 4 * size);
+            }
+            indices[size] = index;
+            values[2 * size]     = re;
+            values[2 * size + 1] = im;
+            size++;
+        }
+
+        void endColumn(int column) {
+            starts[column + 1] = size;
+        }
+    }
+}
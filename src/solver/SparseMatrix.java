@@ -0,0 +1,367 @@
+package solver;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.InputMismatchException;
+
+// Coefficients in compressed sparse column form with interleaved (re, im) values, plus a
+// dense constant vector. Read from the sparse text format:
+//
+//   sparse <numOfVariables> [<numOfEquations>]
+//   <row> <column> <value>
+//   ...
+//
+// with 1-based indices; column numOfVariables + 1 holds constant terms and repeated
+// entries are summed.
+class SparseMatrix implements LinearOperator {
+    public static final String FORMAT_HEADER = "sparse";
+
+    private int numOfVariables;
+    private int numOfEquations;
+    private int[] columnStarts; // entries of column j are columnStarts[j] until columnStarts[j + 1]
+    private int[] rowIndices;   // 0-based, ascending within each column
+    private double[] values;    // interleaved (re, im), one pair per entry
+    private double[] constants; // interleaved (re, im), one pair per equation
+    private double negligibleModulus;
+    private double negligibleConstantModulus;
+    private SparseMatrix transpose; // row-wise view for Gauss-Seidel, built on first use
+
+    public SparseMatrix(File inputFile) {
+        try (MatrixReader reader = new MatrixReader(new FileInputStream(inputFile))) {
+            read(reader);
+        } catch (FileNotFoundException fileNotFound) {
+            System.out.println("File not found: " + inputFile);
+        } catch (IOException readError) {
+            System.out.println("Error reading " + inputFile + ": " + readError.getMessage());
+        }
+    }
+
+    // the rest of the reader's input, header line first
+    SparseMatrix(MatrixReader reader) throws IOException {
+        read(reader);
+    }
+
+    private void read(MatrixReader reader) throws IOException {
+        String[] firstLine = reader.readLine().trim().split("\\s+");
+        if (!FORMAT_HEADER.equals(firstLine[0]) || firstLine.length < 2) {
+            throw new InputMismatchException("Expected \"" + FORMAT_HEADER + " <variables> [<equations>]\" header");
+        }
+        numOfVariables = Integer.parseInt(firstLine[1]);
+        numOfEquations = firstLine.length > 2 ? Integer.parseInt(firstLine[2]) : numOfVariables;
+        if (numOfVariables < 1 || numOfEquations < 1) {
+            throw new IndexOutOfBoundsException("Invalid matrix size: " + numOfVariables + "x" + numOfEquations);
+        }
+
+        TripletList triplets = new TripletList();
+        constants = new double[2 * numOfEquations];
+        double[] term = new double[2];
+        while (true) {
+            int row;
+            try {
+                row = reader.readInt();
+            } catch (EOFException endOfInput) {
+                break;
+            }
+            int column = reader.readInt();
+            if (!reader.readTerm(term, 0)) {
+                throw new InputMismatchException("Missing value for entry " + row + " " + column);
+            }
+            if (row < 1 || row > numOfEquations) {
+                throw new IndexOutOfBoundsException("Invalid row index: " + row);
+            }
+            if (column < 1 || column > numOfVariables + 1) {
+                throw new IndexOutOfBoundsException("Invalid column index: " + column);
+            }
+
+            if (column == numOfVariables + 1) {
+                constants[2 * (row - 1)]     += term[0];
+                constants[2 * (row - 1) + 1] += term[1];
+            } else {
+                triplets.add(row - 1, column - 1, term[0], term[1]);
+            }
+        }
+        compress(triplets);
+    }
+
+    public static boolean isSparseFile(File inputFile) {
+        try (MatrixReader reader = new MatrixReader(new FileInputStream(inputFile))) {
+            String firstLine = reader.readLine();
+            return firstLine != null && firstLine.trim().startsWith(FORMAT_HEADER);
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    public int getNumOfVariables() {
+        return numOfVariables;
+    }
+
+    public int getNumOfEquations() {
+        return numOfEquations;
+    }
+
+    public int getNumOfNonZeros() {
+        return columnStarts[numOfVariables];
+    }
+
+    int[] getColumnStarts() {
+        return columnStarts;
+    }
+
+    int[] getRowIndices() {
+        return rowIndices;
+    }
+
+    double[] getValues() {
+        return values;
+    }
+
+    public double[] getConstantTermsData() {
+        return constants.clone();
+    }
+
+    public double getNegligibleModulus() {
+        return negligibleModulus;
+    }
+
+    public double getNegligibleConstantModulus() {
+        return negligibleConstantModulus;
+    }
+
+    @Override
+    public int size() {
+        if (numOfEquations != numOfVariables) {
+            throw new InputMismatchException("Not a square system: " + numOfEquations
+                    + " equations in " + numOfVariables + " variables");
+        }
+        return numOfVariables;
+    }
+
+    @Override
+    public void apply(double[] x, double[] y) {
+        Arrays.fill(y, 0);
+        for (int column = 0; column < numOfVariables; column++) {
+            double xRe = x[2 * column];
+            double xIm = x[2 * column + 1];
+            if (xRe == 0 && xIm == 0) {
+                continue;
+            }
+            for (int entry = columnStarts[column]; entry < columnStarts[column + 1]; entry++) {
+                int target = 2 * rowIndices[entry];
+                double re = values[2 * entry];
+                double im = values[2 * entry + 1];
+                y[target]     += re*xRe - im*xIm;
+                y[target + 1] += re*xIm + im*xRe;
+            }
+        }
+    }
+
+    @Override
+    public double[] diagonal() {
+        double[] diagonal = new double[2 * size()];
+        for (int column = 0; column < numOfVariables; column++) {
+            for (int entry = columnStarts[column]; entry < columnStarts[column + 1]; entry++) {
+                if (rowIndices[entry] == column) {
+                    diagonal[2 * column]     = values[2 * entry];
+                    diagonal[2 * column + 1] = values[2 * entry + 1];
+                }
+            }
+        }
+        return diagonal;
+    }
+
+    @Override
+    public void gaussSeidelSweep(double[] constants, double[] x) {
+        if (transpose == null) {
+            transpose = transpose();
+        }
+
+        // columns of the transpose are the rows of this matrix
+        for (int row = 0; row < size(); row++) {
+            double re = constants[2 * row];
+            double im = constants[2 * row + 1];
+            double diagonalRe = 0;
+            double diagonalIm = 0;
+            for (int entry = transpose.columnStarts[row]; entry < transpose.columnStarts[row + 1]; entry++) {
+                int column = transpose.rowIndices[entry];
+                double termRe = transpose.values[2 * entry];
+                double termIm = transpose.values[2 * entry + 1];
+                if (column == row) {
+                    diagonalRe = termRe;
+                    diagonalIm = termIm;
+                    continue;
+                }
+                re -= termRe*x[2 * column] - termIm*x[2 * column + 1];
+                im -= termRe*x[2 * column + 1] + termIm*x[2 * column];
+            }
+
+            double modulus = diagonalRe*diagonalRe + diagonalIm*diagonalIm;
+            if (modulus == 0) {
+                throw new ArithmeticException("Zero on the diagonal, row " + (row + 1));
+            }
+            x[2 * row]     = (re*diagonalRe + im*diagonalIm) / modulus;
+            x[2 * row + 1] = (im*diagonalRe - re*diagonalIm) / modulus;
+        }
+    }
+
+    // A^T in the same compressed column form (so its columns are our rows); constants are not carried over
+    private SparseMatrix transpose() {
+        SparseMatrix result = new SparseMatrix();
+        result.numOfVariables = numOfEquations;
+        result.numOfEquations = numOfVariables;
+        result.columnStarts = new int[numOfEquations + 1];
+        result.rowIndices = new int[rowIndices.length];
+        result.values = new double[values.length];
+        result.constants = new double[2 * numOfVariables];
+        result.negligibleModulus = negligibleModulus;
+
+        for (int row : rowIndices) {
+            result.columnStarts[row + 1]++;
+        }
+        for (int row = 0; row < numOfEquations; row++) {
+            result.columnStarts[row + 1] += result.columnStarts[row];
+        }
+        int[] next = Arrays.copyOf(result.columnStarts, numOfEquations);
+        for (int column = 0; column < numOfVariables; column++) {
+            for (int entry = columnStarts[column]; entry < columnStarts[column + 1]; entry++) {
+                int target = next[rowIndices[entry]]++;
+                result.rowIndices[target] = column;
+                result.values[2 * target]     = values[2 * entry];
+                result.values[2 * target + 1] = values[2 * entry + 1];
+            }
+        }
+        return result;
+    }
+
+    private SparseMatrix() {
+    }
+
+    // dense copy, for the general Gauss-Jordan path
+    public Matrix toMatrix() {
+        int rowStride = 2 * (numOfVariables + 1);
+        double[] data = new double[rowStride * numOfEquations];
+        for (int column = 0; column < numOfVariables; column++) {
+            for (int entry = columnStarts[column]; entry < columnStarts[column + 1]; entry++) {
+                int index = rowIndices[entry] * rowStride + 2 * column;
+                data[index]     = values[2 * entry];
+                data[index + 1] = values[2 * entry + 1];
+            }
+        }
+        for (int row = 0; row < numOfEquations; row++) {
+            data[row * rowStride + rowStride - 2] = constants[2 * row];
+            data[row * rowStride + rowStride - 1] = constants[2 * row + 1];
+        }
+        return new Matrix(numOfVariables, numOfEquations, data);
+    }
+
+    // triplets to CSC, summing duplicates and dropping exact zeros
+    private void compress(TripletList triplets) {
+        int[] counts = new int[numOfVariables + 1];
+        for (int t = 0; t < triplets.size; t++) {
+            counts[triplets.columns[t] + 1]++;
+        }
+        for (int column = 0; column < numOfVariables; column++) {
+            counts[column + 1] += counts[column];
+        }
+
+        // bucket by column; duplicates are merged and rows sorted column by column below
+        int[] byColumn = new int[triplets.size];
+        int[] next = counts.clone();
+        for (int t = 0; t < triplets.size; t++) {
+            byColumn[next[triplets.columns[t]]++] = t;
+        }
+
+        columnStarts = new int[numOfVariables + 1];
+        rowIndices = new int[triplets.size];
+        values = new double[2 * triplets.size];
+        int[] lastEntryOfRow = new int[numOfEquations];
+        Arrays.fill(lastEntryOfRow, -1);
+        int size = 0;
+        for (int column = 0; column < numOfVariables; column++) {
+            int columnStart = size;
+            for (int k = counts[column]; k < counts[column + 1]; k++) {
+                int t = byColumn[k];
+                int row = triplets.rows[t];
+                int entry = lastEntryOfRow[row];
+                if (entry < columnStart) { // first time this row shows up in this column
+                    entry = size++;
+                    lastEntryOfRow[row] = entry;
+                    rowIndices[entry] = row;
+                }
+                values[2 * entry]     += triplets.values[2 * t];
+                values[2 * entry + 1] += triplets.values[2 * t + 1];
+            }
+
+            size = dropZerosAndSort(columnStart, size);
+            columnStarts[column + 1] = size;
+        }
+
+        rowIndices = Arrays.copyOf(rowIndices, size);
+        values = Arrays.copyOf(values, 2 * size);
+
+        double maxModulusSquared = 0;
+        for (int i = 0; i < values.length; i += 2) {
+            maxModulusSquared = Math.max(maxModulusSquared, values[i]*values[i] + values[i + 1]*values[i + 1]);
+        }
+        double maxConstantModulusSquared = 0;
+        for (int i = 0; i < constants.length; i += 2) {
+            maxConstantModulusSquared = Math.max(maxConstantModulusSquared, constants[i]*constants[i] + constants[i + 1]*constants[i + 1]);
+        }
+        // as Matrix: coefficients and constants each against their own largest term
+        negligibleModulus = Matrix.negligibleModulus(numOfVariables, numOfEquations, maxModulusSquared);
+        negligibleConstantModulus = Matrix.negligibleModulus(numOfVariables, numOfEquations, maxConstantModulusSquared);
+    }
+
+    // insertion sort by row of entries [start, end), dropping exact zeros; returns the new end
+    private int dropZerosAndSort(int start, int end) {
+        int size = start;
+        for (int entry = start; entry < end; entry++) {
+            double re = values[2 * entry];
+            double im = values[2 * entry + 1];
+            if (re == 0 && im == 0) {
+                continue;
+            }
+
+            int row = rowIndices[entry];
+            int position = size++;
+            while (position > start && rowIndices[position - 1] > row) {
+                rowIndices[position] = rowIndices[position - 1];
+                values[2 * position]     = values[2 * position - 2];
+                values[2 * position + 1] = values[2 * position - 1];
+                position--;
+            }
+            rowIndices[position] = row;
+            values[2 * position]     = re;
+            values[2 * position + 1] = im;
+        }
+        for (int entry = size; entry < end; entry++) {
+            values[2 * entry] = 0;
+            values[2 * entry + 1] = 0;
+        }
+        return size;
+    }
+
+    private static class TripletList {
+        int size;
+        int[] rows = new int[16];
+        int[] columns = new int[16];
+        double[] values = new double[32];
+
+        void add(int row, int column, double re, double im) {
+            if (size == rows.length) {
+                rows = Arrays.copyOf(rows, 2 * size);
+                columns = Arrays.copyOf(columns, 2 * size);
+                values = Arrays.copyOf(values, 4 * size);
+            }
+            rows[size] = row;
+            columns[size] = column;
+            values[2 * size]     = re;
+            values[2 * size + 1] = im;
+            size++;
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package solver;
+
+// The outcome of one solve: how the system was classified, and the solution when it has one.
+class SystemSolution {
+    private final Main.SystemResult result;
+    private final double[] solution;
+
+    SystemSolution(Main.SystemResult result, double[] solution) {
+        this.result = result;
+        this.solution = solution;
+    }
+
+    public Main.SystemResult getResult() {
+        return result;
+    }
+
+    // interleaved (re, im) values of the variables; null unless solved
+    public double[] getSolution() {
+        return solution;
+    }
+}
@@ -0,0 +1,692 @@
+package solver;
+
+import java.io.File;
+import java.io.IOException;
+
+// One solve of one system: picks banded or sparse LU, iterative, blocked LU, the real fast
+// path or complex Gauss-Jordan, and logs the steps to its own SolveLog. Holds no state shared
+// with other solves, so batch workers each run their own; only the factorization cache, which
+// is synchronized, may be shared.
+class SystemSolver {
+    private static final int MAX_REFINEMENT_STEPS = 30;
+
+    private final ParallelEliminator eliminator;
+    private final int blockSize; // 0: no blocked LU
+    private final String method; // direct, or the name of the iterative method
+    private final IterativeSolver iterativeSolver; // null for direct
+    private final SolveLog log;
+    private final FactorizationCache cache; // null: factor every time
+    private final boolean mixedPrecision; // single precision LU refined in double before any other direct path
+    private final SolveMetrics metrics = new SolveMetrics();
+
+    public SystemSolver(ParallelEliminator eliminator, int blockSize, String method,
+                        IterativeSolver iterativeSolver, SolveLog log) {
+        this(eliminator, blockSize, method, iterativeSolver, log, null);
+    }
+
+    // with a cache, square non-singular systems go through LU so their factors can be reused
+    public SystemSolver(ParallelEliminator eliminator, int blockSize, String method,
+                        IterativeSolver iterativeSolver, SolveLog log, FactorizationCache cache) {
+        this(eliminator, blockSize, method, iterativeSolver, log, cache, false);
+    }
+
+    public SystemSolver(ParallelEliminator eliminator, int blockSize, String method,
+                        IterativeSolver iterativeSolver, SolveLog log, FactorizationCache cache,
+                        boolean mixedPrecision) {
+        this.eliminator = eliminator;
+        this.blockSize = blockSize;
+        this.method = method;
+        this.iterativeSolver = iterativeSolver;
+        this.log = log;
+        this.cache = cache;
+        this.mixedPrecision = mixedPrecision;
+    }
+
+    public SolveMetrics getMetrics() {
+        return metrics;
+    }
+
+    public SystemSolution solve(SparseMatrix sparseSystem) {
+        metrics.setSize(sparseSystem.getNumOfVariables(), sparseSystem.getNumOfEquations());
+        if (iterativeSolver != null
+                && sparseSystem.getNumOfEquations() == sparseSystem.getNumOfVariables()) {
+            return solveIteratively(sparseSystem, sparseSystem.getConstantTermsData());
+        }
+        if (sparseSystem.getNumOfEquations() == sparseSystem.getNumOfVariables()) {
+            int[] bandwidths = BandMatrix.bandwidths(sparseSystem, BandMatrix.maxWidth(sparseSystem.size()));
+            if (bandwidths != null) {
+                SystemSolution solution = solveBanded(new BandMatrix(sparseSystem, bandwidths[0], bandwidths[1]));
+                if (solution != null) {
+                    return solution;
+                }
+            }
+        }
+        // singular and rectangular systems are classified on the sparse factors, never densified
+        return solveSparse(sparseSystem);
+    }
+
+    public SystemSolution solve(Matrix system) {
+        metrics.setSize(system.getMatrixNumOfVariables(), system.getMatrixNumOfEquations());
+        // iterative methods need a square system; anything else is classified by the direct path
+        if (iterativeSolver != null && system.getMatrixNumOfEquations() == system.getMatrixNumOfVariables()) {
+            return solveIteratively(system, system.getConstantTermsData());
+        }
+
+        // the structure checks below pick a path only when mixed precision, a block size or a
+        // cache has not named one; the thread count sizes the pool whatever the path
+        boolean modeRequested = mixedPrecision || blockSize > 0 || cache != null;
+
+        // tridiagonal and narrow-banded systems: O(n b^2) on the band alone
+        if (!modeRequested && system.getMatrixNumOfEquations() == system.getMatrixNumOfVariables()) {
+            int[] bandwidths = BandMatrix.bandwidths(system, BandMatrix.maxWidth(system.size()));
+            if (bandwidths != null) {
+                SystemSolution solution = solveBanded(new BandMatrix(system, bandwidths[0], bandwidths[1]));
+                if (solution != null) {
+                    return solution;
+                }
+            }
+        }
+
+        // Hermitian: Cholesky, or L D L^H when indefinite, on one triangle
+        if (!modeRequested && HermitianDecomposition.isHermitian(system)) {
+            SystemSolution solution = solveHermitian(system);
+            if (solution != null) {
+                return solution;
+            }
+        }
+
+        if (mixedPrecision && system.getMatrixNumOfEquations() == system.getMatrixNumOfVariables()) {
+            SystemSolution solution = solveByMixedPrecision(system);
+            if (solution != null) {
+                return solution;
+            }
+        }
+
+        // blocked LU for square non-singular systems, Gauss-Jordan below otherwise
+        if (blockSize > 0 || cache != null) {
+            SystemSolution solution = solveByLU(system);
+            if (solution != null) {
+                return solution;
+            }
+        }
+
+        // no imaginary parts anywhere: solve on plain doubles
+        if (system.isReal()) {
+            metrics.setPath("real");
+            RealSystemSolver realSolver = new RealSystemSolver(system, eliminator, log, metrics);
+            system = null; // let the complex storage go before solving
+            Main.SystemResult result = realSolver.solve();
+            double[] solution = null;
+            if (result == Main.SystemResult.solved) {
+                solution = realSolver.getSolution();
+                printResults(solution);
+            }
+            return new SystemSolution(result, solution);
+        }
+
+        return solveByGaussJordan(system);
+    }
+
+    // a dense system too large for the heap, read straight from its file into an out-of-core
+    // LU; singular systems are reported as an error, since classifying them needs the whole
+    // matrix in memory
+    public SystemSolution solveOutOfCore(File inputFile, long heapBudget, File scratchDirectory) throws IOException {
+        metrics.setPath("outOfCore");
+        OutOfCoreLU decomposition;
+        try (RowReader rows = OutOfCoreLU.openRows(inputFile)) {
+            metrics.setSize(rows.getNumOfVariables(), rows.getNumOfEquations());
+            metrics.begin(SolveMetrics.Phase.parse);
+            decomposition = new OutOfCoreLU(rows, heapBudget, scratchDirectory);
+            metrics.end(SolveMetrics.Phase.parse);
+        }
+        metrics.countBytesRead(inputFile.length());
+
+        try (decomposition) {
+            int size = decomposition.size();
+            log.summaryf("-----Performing out-of-core LU decomposition, panels of %d columns----\n",
+                    decomposition.getPanelWidth());
+            metrics.begin(SolveMetrics.Phase.forwardElimination);
+            decomposition.factor();
+            metrics.end(SolveMetrics.Phase.forwardElimination);
+            metrics.countFlops((long) LUDecomposition.flops(size));
+            metrics.countRowSwaps(decomposition.getNumOfRowSwaps());
+            if (decomposition.isSingular()) {
+                log.summary("Singular coefficient matrix");
+                return new SystemSolution(Main.SystemResult.error, null);
+            }
+
+            metrics.begin(SolveMetrics.Phase.backSubstitution);
+            double[] solution = decomposition.solve();
+            metrics.end(SolveMetrics.Phase.backSubstitution);
+            metrics.countFlops(8L * size * size);
+            printResults(solution);
+            return new SystemSolution(Main.SystemResult.solved, solution);
+        }
+    }
+
+    // a dense system factored and solved by numOfWorkers worker JVMs, each holding its blocks
+    // of a 2-D block-cyclic layout (block size from -block); as out of core, singular systems
+    // are reported as an error. Logs each worker's compute and communication time, and the
+    // share of the workers' time spent computing, to compare runs on 1 to N workers.
+    public SystemSolution solveDistributed(File inputFile, int numOfWorkers) throws IOException {
+        metrics.setPath("distributed");
+        int distributedBlockSize = blockSize > 0 ? blockSize : DistributedLU.DEFAULT_BLOCK_SIZE;
+        try (DistributedLU decomposition = new DistributedLU(numOfWorkers);
+             RowReader rows = OutOfCoreLU.openRows(inputFile)) {
+            int size = rows.getNumOfVariables();
+            metrics.setSize(size, rows.getNumOfEquations());
+            log.summaryf("-----Performing distributed LU decomposition, %d workers, block size %d----\n",
+                    numOfWorkers, distributedBlockSize);
+            long start = System.nanoTime();
+            double[] solution = decomposition.solve(rows, distributedBlockSize);
+            long wallNanos = System.nanoTime() - start;
+            metrics.countBytesRead(inputFile.length());
+            metrics.countFlops((long) LUDecomposition.flops(size) + 8L * size * size);
+
+            BlockCyclicLayout layout = decomposition.getLayout();
+            log.summaryf("%d x %d process grid, %.1f ms reading and scattering, %.1f ms in all\n",
+                    layout.getGridRows(), layout.getGridColumns(),
+                    decomposition.getScatterNanos() / 1e6, wallNanos / 1e6);
+            long computeNanos = 0;
+            long busiestNanos = 0;
+            for (DistributedLU.NodeStatistics node : decomposition.getNodeStatistics()) {
+                log.summaryf("Worker %d (%d,%d): compute %.1f ms, communication %.1f ms, %d messages, %.1f MB sent\n",
+                        node.getRank(), node.getGridRow(), node.getGridColumn(),
+                        node.getComputeNanos() / 1e6, node.getCommunicationNanos() / 1e6,
+                        node.getMessagesSent(), node.getBytesSent() / 1e6);
+                computeNanos += node.getComputeNanos();
+                busiestNanos = Math.max(busiestNanos, node.getFactorNanos() + node.getSubstitutionNanos());
+            }
+            if (busiestNanos > 0) {
+                log.summaryf("Parallel efficiency %.1f%%\n", 100.0 * computeNanos / ((double) numOfWorkers * busiestNanos));
+            }
+
+            if (solution == null) {
+                log.summary("Singular coefficient matrix");
+                return new SystemSolution(Main.SystemResult.error, null);
+            }
+            printResults(solution);
+            return new SystemSolution(Main.SystemResult.solved, solution);
+        }
+    }
+
+    // complex Gauss-Jordan whatever the system looks like; the reference the other paths are tested against
+    SystemSolution solveByGaussJordan(Matrix system) {
+        metrics.setPath("gaussJordan");
+
+        // columnOrder[position] is the column eliminated at that position (1-based); swapping
+        // two entries stands in for swapping the columns
+        int numOfVariables = system.getMatrixNumOfVariables();
+        int[] columnOrder = new int[numOfVariables + 1];
+        for (int position = 1; position <= numOfVariables; position++) {
+            columnOrder[position] = position;
+        }
+
+        metrics.begin(SolveMetrics.Phase.forwardElimination);
+        SystemSolution classified = toRowEchelonForm(system, columnOrder);
+        metrics.end(SolveMetrics.Phase.forwardElimination);
+        if (classified != null) {
+            return classified;
+        }
+
+        metrics.begin(SolveMetrics.Phase.backSubstitution);
+        SystemSolution solution = toReducedRowEchelonForm(system, columnOrder);
+        metrics.end(SolveMetrics.Phase.backSubstitution);
+        return solution;
+    }
+
+    // Gaussian elimination; the result when there is no unique solution, null otherwise
+    private SystemSolution toRowEchelonForm(Matrix system, int[] columnOrder) {
+
+        if (log.isTracing()) {
+            log.trace("-----Input matrix----");
+            system.print(log.getStream());
+        }
+        log.summary("-----Performing Gaussian elimination----");
+
+        // find row with leading non-zero element
+        int leadingRow = system.findLeadingNonZeroRow();
+
+        // if all columns and rows are zeros
+        if (leadingRow == -1) {
+            // are all constant terms zero too?
+            ComplexNumber constantTermsSum = system.getConstantTermsSum();
+            if (constantTermsSum.isZero()) {
+                log.summary("Infinitely many solutions");
+                return new SystemSolution(Main.SystemResult.infiniteSolutions, null);
+            } else {
+                log.summary("No solutions");
+                return new SystemSolution(Main.SystemResult.noSolution, null);
+            }
+        } else if (leadingRow > 1) {
+            system.swapRows(1, leadingRow);
+            metrics.countRowSwap();
+        }
+
+        int numOfVariables = system.getMatrixNumOfVariables();
+
+        // Get Row Echelon Form through Gaussian elimination
+        for (int pivot = 1 ; pivot <= numOfVariables; pivot++) {
+
+            // partial pivoting: swap in the row with the largest modulus term in this column
+            int column = columnOrder[pivot];
+            int newRow = system.findPivotRowInCol(pivot, column);
+
+            // if there are no non-zero terms in this column
+            if (newRow == -1) {
+                // find element in a later column and take that column next
+                int positionToSwap = findNonZeroPosition(system, columnOrder, pivot);
+                if (positionToSwap == -1) {
+                    // no more columns with non-zero elements
+                    break;
+                }
+                columnOrder[pivot] = columnOrder[positionToSwap];
+                columnOrder[positionToSwap] = column;
+                metrics.countColumnSwap();
+                column = columnOrder[pivot];
+                newRow = system.findPivotRowInCol(pivot, column);
+            }
+            if (newRow != pivot) {
+                system.swapRows(pivot, newRow);
+                metrics.countRowSwap();
+            }
+
+            LinearEquation pivotRow = system.getRow(pivot);
+
+            // multiply pivot by factor that makes it =1, i.e. its inverse conj(p)/|p|^2
+            double pivotRe = pivotRow.getReal(column);
+            double pivotIm = pivotRow.getImaginary(column);
+            double pivotModulusSquared = pivotRe*pivotRe + pivotIm*pivotIm;
+            double normalizationRe = pivotRe / pivotModulusSquared;
+            double normalizationIm = -pivotIm / pivotModulusSquared;
+            if (normalizationRe != 1 || normalizationIm != 0) {
+                pivotRow.scale(normalizationRe, normalizationIm);
+                metrics.countComplexRowOperation(numOfVariables + 1);
+                if (log.isTracing()) {
+                    log.tracef("%s * R%d -> R%d\n", ComplexFormatter.toString(normalizationRe, normalizationIm, ComplexFormatter.SHORT_PATTERN, false), pivot, pivot);
+                }
+            }
+
+            // Perform row ops to get all terms below it =0
+            pivotRe = pivotRow.getReal(column);
+            pivotIm = pivotRow.getImaginary(column);
+            pivotModulusSquared = pivotRe*pivotRe + pivotIm*pivotIm;
+            int numOfEquations = system.getMatrixNumOfEquations();
+            double[] factors = new double[2 * Math.max(0, numOfEquations - pivot)];
+            for (int currentRow = pivot+1; currentRow <= numOfEquations; currentRow++) {
+                LinearEquation row = system.getRow(currentRow);
+                double termRe = row.getReal(column);
+                double termIm = row.getImaginary(column);
+
+                // factor = -(term / pivot) = -(term * conj(pivot)) / |pivot|^2
+                int index = 2 * (currentRow - pivot - 1);
+                factors[index]     = -((termRe*pivotRe + termIm*pivotIm) / pivotModulusSquared);
+                factors[index + 1] = -((termIm*pivotRe - termRe*pivotIm) / pivotModulusSquared);
+
+                if (factors[index] != 0 || factors[index + 1] != 0) {
+                    metrics.countComplexRowOperation(numOfVariables + 1);
+                    if (log.isTracing()) {
+                        printRowOp(pivot, currentRow, factors[index], factors[index + 1]);
+                    }
+                }
+            }
+            eliminator.eliminate(system, pivot, pivot + 1, numOfEquations, factors);
+        }
+
+        if (log.isTracing()) {
+            log.trace("-----Row Echelon----");
+            system.print(log.getStream());
+        }
+        if (system.isInconsistent()) {
+            log.summary("No solutions - inconsistent");
+            return new SystemSolution(Main.SystemResult.noSolution, null);
+        }
+        if (system.numOfFreeVariables() > 0) {
+            log.summaryf("Infinitely many solutions - has %d free variables\n" , system.numOfFreeVariables());
+            return new SystemSolution(Main.SystemResult.infiniteSolutions, null);
+        }
+        return null;
+    }
+
+    // Gauss-Jordan elimination of a row echelon form with a unique solution
+    private SystemSolution toReducedRowEchelonForm(Matrix system, int[] columnOrder) {
+        int numOfVariables = system.getMatrixNumOfVariables();
+        log.summary("-----Performing Gauss-Jordan elimination----");
+
+        // perform Gauss-Jordan elimination for Reduced Row Echelon Form
+        for (int currentColumn = numOfVariables; currentColumn > 0; currentColumn--) {
+            int column = columnOrder[currentColumn];
+            double[] factors = new double[2 * (currentColumn - 1)];
+            for (int currentRow = currentColumn - 1; currentRow > 0; currentRow--) {
+                LinearEquation row = system.getRow(currentRow);
+                int index = 2 * (currentRow - 1);
+                factors[index]     = -row.getReal(column);
+                factors[index + 1] = -row.getImaginary(column);
+
+                if (factors[index] != 0 || factors[index + 1] != 0) {
+                    metrics.countComplexRowOperation(numOfVariables + 1);
+                    if (log.isTracing()) {
+                        printRowOp(currentColumn, currentRow, factors[index], factors[index + 1]);
+                    }
+                }
+            }
+            eliminator.eliminate(system, currentColumn, 1, currentColumn - 1, factors);
+        }
+        if (log.isTracing()) {
+            log.trace("-----Reduced Row Echelon----");
+            system.print(log.getStream());
+        }
+
+        // row i now holds the variable of column columnOrder[i]: undo the permutation in one pass
+        double[] solution = new double[2 * numOfVariables];
+        for (int position = 1; position <= numOfVariables; position++) {
+            LinearEquation row = system.getRow(position);
+            int index = 2 * (columnOrder[position] - 1);
+            solution[index]     = row.getReal(numOfVariables + 1);
+            solution[index + 1] = row.getImaginary(numOfVariables + 1);
+        }
+
+        printResults(solution);
+        return new SystemSolution(Main.SystemResult.solved, solution);
+    }
+
+    // first position from fromPosition on whose column has a non-negligible term at or below
+    // row fromPosition; -1 if there is none
+    private static int findNonZeroPosition(Matrix system, int[] columnOrder, int fromPosition) {
+        for (int position = fromPosition; position < columnOrder.length; position++) {
+            if (system.findNonZeroRowInCol(fromPosition, columnOrder[position]) != -1) {
+                return position;
+            }
+        }
+        return -1;
+    }
+
+    // any shape: the factorization reveals the rank, and the equations left without a pivot
+    // tell whether the constants are consistent
+    private SystemSolution solveSparse(SparseMatrix system) {
+        metrics.setPath("sparseLU");
+        log.summaryf("-----Performing sparse LU decomposition, %d non-zeros----\n", system.getNumOfNonZeros());
+        metrics.begin(SolveMetrics.Phase.forwardElimination);
+        SparseLUDecomposition decomposition = new SparseLUDecomposition(system);
+        metrics.end(SolveMetrics.Phase.forwardElimination);
+        metrics.countFlops(decomposition.getFlops());
+        log.summaryf("Rank %d, %d non-zeros in L and U\n", decomposition.getRank(), decomposition.getNumOfFactorNonZeros());
+
+        double[] constants = system.getConstantTermsData();
+        Main.SystemResult result = decomposition.classify(constants, system.getNegligibleConstantModulus());
+        if (result == Main.SystemResult.noSolution) {
+            log.summary("No solutions - inconsistent");
+            return new SystemSolution(result, null);
+        }
+        if (result == Main.SystemResult.infiniteSolutions) {
+            log.summaryf("Infinitely many solutions - has %d free variables\n",
+                    system.getNumOfVariables() - decomposition.getRank());
+            return new SystemSolution(result, null);
+        }
+
+        metrics.begin(SolveMetrics.Phase.backSubstitution);
+        double[] solution = decomposition.solve(constants);
+        metrics.end(SolveMetrics.Phase.backSubstitution);
+        metrics.countFlops(8 * decomposition.getNumOfFactorNonZeros()); // one multiply-add per factor term
+        printResults(solution);
+        return new SystemSolution(Main.SystemResult.solved, solution);
+    }
+
+    private SystemSolution solveIteratively(LinearOperator operator, double[] constants) {
+        metrics.setPath(method);
+        log.summaryf("-----Solving iteratively, %s----\n", method);
+        metrics.begin(SolveMetrics.Phase.iteration);
+        IterativeResult result = iterativeSolver.solve(operator, constants);
+        metrics.end(SolveMetrics.Phase.iteration);
+        metrics.countIterations(result.getIterations());
+        metrics.setResidual(result.getResidual());
+        log.summaryf("%d iterations, relative residual %.3e\n", result.getIterations(), result.getResidual());
+        if (!result.isConverged()) {
+            log.summary("No convergence");
+            return new SystemSolution(Main.SystemResult.noConvergence, null);
+        }
+
+        printResults(result.getSolution());
+        return new SystemSolution(Main.SystemResult.solved, result.getSolution());
+    }
+
+    // Thomas algorithm when tridiagonal and diagonally dominant, banded LU with partial
+    // pivoting otherwise; null when singular, left to the general paths to classify
+    private SystemSolution solveBanded(BandMatrix band) {
+        int size = band.size();
+        int lowerBandwidth = band.getLowerBandwidth();
+        int upperBandwidth = band.getUpperBandwidth();
+        double[] constants = band.getConstantTermsData();
+        if (band.isDiagonallyDominantTridiagonal()) {
+            metrics.setPath("tridiagonal");
+            log.summary("-----Performing Thomas algorithm----");
+            metrics.begin(SolveMetrics.Phase.forwardElimination);
+            double[] solution = BandLUDecomposition.solveTridiagonal(band, constants);
+            metrics.end(SolveMetrics.Phase.forwardElimination);
+            if (solution != null) {
+                metrics.countFlops(32L * size); // 4 complex multiply-adds per row
+                printResults(solution);
+                return new SystemSolution(Main.SystemResult.solved, solution);
+            }
+            log.summary("Negligible pivot, trying banded LU");
+        }
+
+        metrics.setPath("banded");
+        log.summaryf("-----Performing banded LU decomposition, bandwidths %d and %d----\n", lowerBandwidth, upperBandwidth);
+        metrics.begin(SolveMetrics.Phase.forwardElimination);
+        BandLUDecomposition decomposition = new BandLUDecomposition(band);
+        metrics.end(SolveMetrics.Phase.forwardElimination);
+        metrics.countFlops((long) BandLUDecomposition.flops(size, lowerBandwidth, upperBandwidth));
+        metrics.countRowSwaps(decomposition.getNumOfRowSwaps());
+        if (decomposition.isSingular()) {
+            log.summary("Singular coefficient matrix");
+            return null;
+        }
+
+        metrics.begin(SolveMetrics.Phase.backSubstitution);
+        double[] solution = decomposition.solve(constants);
+        metrics.end(SolveMetrics.Phase.backSubstitution);
+        metrics.countFlops(8L * size * (2 * lowerBandwidth + upperBandwidth + 1));
+        printResults(solution);
+        return new SystemSolution(Main.SystemResult.solved, solution);
+    }
+
+    // null when neither factorization holds up, for the general paths to take over
+    private SystemSolution solveHermitian(Matrix system) {
+        int size = system.size();
+        log.summary("-----Performing Hermitian decomposition----");
+        metrics.begin(SolveMetrics.Phase.forwardElimination);
+        HermitianDecomposition decomposition = new HermitianDecomposition(system);
+        metrics.end(SolveMetrics.Phase.forwardElimination);
+        metrics.countFlops((long) HermitianDecomposition.flops(size));
+        if (decomposition.isPositiveDefinite()) {
+            metrics.setPath("cholesky");
+            log.summary("Positive definite, Cholesky");
+        } else if (decomposition.isFailed()) {
+            log.summary("Negligible pivot in L D L^H, falling back to LU");
+            return null;
+        } else {
+            metrics.setPath("ldlh");
+            log.summary("Indefinite, L D L^H");
+        }
+
+        metrics.begin(SolveMetrics.Phase.backSubstitution);
+        double[] constants = system.getConstantTermsData();
+        double[] solution = decomposition.solve(constants);
+        metrics.end(SolveMetrics.Phase.backSubstitution);
+        metrics.countFlops(16L * size * size);
+        // no pivoting in L D L^H: take its solution only if it solves the system
+        if (!decomposition.isPositiveDefinite()
+                && backwardError(system, solution, constants) > size * Math.ulp(1.0)) {
+            log.summary("L D L^H unstable, falling back to LU");
+            return null;
+        }
+        printResults(solution);
+        return new SystemSolution(Main.SystemResult.solved, solution);
+    }
+
+    // |b - Ax|inf / (|A|inf |x|inf + |b|inf), by moduli
+    private static double backwardError(Matrix system, double[] solution, double[] constants) {
+        double[] residual = new double[constants.length];
+        system.apply(solution, residual);
+        for (int t = 0; t < residual.length; t++) {
+            residual[t] = constants[t] - residual[t];
+        }
+        double scale = infinityNorm(system) * maxModulus(solution) + maxModulus(constants);
+        return scale == 0 ? 0 : maxModulus(residual) / scale;
+    }
+
+    // LU in single precision, then x += A^-1 r with the residual r = b - Ax taken in double
+    // against the original matrix, until the backward error is down to double precision.
+    // Null when the float factors are singular or the refinement stalls, which happens once
+    // the condition number nears 1 / float epsilon; the double precision paths take over.
+    private SystemSolution solveByMixedPrecision(Matrix system) {
+        int luBlockSize = blockSize > 0 ? blockSize : LUDecomposition.DEFAULT_BLOCK_SIZE;
+        metrics.setPath("mixedLU");
+        log.summaryf("-----Performing single precision LU decomposition, block size %d----\n", luBlockSize);
+        metrics.begin(SolveMetrics.Phase.forwardElimination);
+        FloatLUDecomposition decomposition = new FloatLUDecomposition(system, luBlockSize);
+        metrics.end(SolveMetrics.Phase.forwardElimination);
+        int size = decomposition.size();
+        metrics.countFlops((long) LUDecomposition.flops(size));
+        metrics.countRowSwaps(countTranspositions(decomposition.getPermutation()));
+        if (decomposition.isSingular()) {
+            log.summary("Singular in single precision, falling back to double precision");
+            return null;
+        }
+
+        metrics.begin(SolveMetrics.Phase.iteration);
+        double[] constants = system.getConstantTermsData();
+        double[] solution = decomposition.solve(constants);
+        double[] residual = new double[2 * size];
+        double matrixNorm = infinityNorm(system);
+        double constantNorm = maxModulus(constants);
+        double tolerance = Math.sqrt(size) * Math.ulp(1.0) / 2;
+        double backwardError = Double.POSITIVE_INFINITY;
+        int steps = 0;
+        while (true) {
+            system.apply(solution, residual);
+            for (int t = 0; t < residual.length; t++) {
+                residual[t] = constants[t] - residual[t];
+            }
+            double previousError = backwardError;
+            double scale = matrixNorm * maxModulus(solution) + constantNorm;
+            backwardError = scale == 0 ? 0 : maxModulus(residual) / scale;
+            metrics.countFlops(8L * size * size);
+            if (backwardError <= tolerance || backwardError > previousError / 2
+                    || steps == MAX_REFINEMENT_STEPS || !Double.isFinite(backwardError)) {
+                break;
+            }
+            double[] correction = decomposition.solve(residual);
+            for (int t = 0; t < solution.length; t++) {
+                solution[t] += correction[t];
+            }
+            steps++;
+        }
+        metrics.end(SolveMetrics.Phase.iteration);
+        metrics.countIterations(steps);
+        log.summaryf("%d refinement steps, relative residual %.3e\n", steps, backwardError);
+        if (!(backwardError <= tolerance)) {
+            log.summary("Refinement did not converge, falling back to double precision");
+            return null;
+        }
+        metrics.setResidual(backwardError);
+
+        printResults(solution);
+        return new SystemSolution(Main.SystemResult.solved, solution);
+    }
+
+    private static double infinityNorm(Matrix system) {
+        double[] row = new double[2 * system.getMatrixNumOfVariables()];
+        double norm = 0;
+        for (int i = 1; i <= system.getMatrixNumOfEquations(); i++) {
+            system.getRow(i).copyCoefficientsTo(row, 0);
+            double rowSum = 0;
+            for (int t = 0; t < row.length; t += 2) {
+                rowSum += Math.hypot(row[t], row[t + 1]);
+            }
+            norm = Math.max(norm, rowSum);
+        }
+        return norm;
+    }
+
+    private static double maxModulus(double[] vector) {
+        double max = 0;
+        for (int t = 0; t < vector.length; t += 2) {
+            max = Math.max(max, Math.hypot(vector[t], vector[t + 1]));
+        }
+        return max;
+    }
+
+    // null when the system is not square or singular
+    private SystemSolution solveByLU(Matrix system) {
+        if (system.getMatrixNumOfEquations() != system.getMatrixNumOfVariables()) {
+            return null;
+        }
+
+        // the fingerprint is O(n^2), like the substitution a hit leaves to do
+        metrics.begin(SolveMetrics.Phase.forwardElimination);
+        String key = cache != null ? FactorizationCache.fingerprint(system) : null;
+        LUDecomposition decomposition = cache != null ? cache.get(key) : null;
+        if (decomposition != null) {
+            metrics.end(SolveMetrics.Phase.forwardElimination);
+            metrics.setPath("cachedLU");
+            log.summary("-----Using cached LU decomposition----");
+        } else {
+            int luBlockSize = blockSize > 0 ? blockSize : LUDecomposition.DEFAULT_BLOCK_SIZE;
+            metrics.setPath("lu");
+            log.summaryf("-----Performing LU decomposition, block size %d----\n", luBlockSize);
+            decomposition = new LUDecomposition(system, luBlockSize);
+            metrics.end(SolveMetrics.Phase.forwardElimination);
+            metrics.countFlops((long) LUDecomposition.flops(decomposition.size()));
+            metrics.countRowSwaps(countTranspositions(decomposition.getPermutation()));
+            if (decomposition.isSingular()) {
+                log.summary("Singular coefficient matrix");
+                return null;
+            }
+            if (cache != null) {
+                cache.put(key, decomposition);
+            }
+        }
+        int size = decomposition.size();
+
+        metrics.begin(SolveMetrics.Phase.backSubstitution);
+        double[] solution = decomposition.solve(system.getConstantTermsData());
+        metrics.end(SolveMetrics.Phase.backSubstitution);
+        metrics.countFlops(8L * size * size); // L and U solves, n^2 / 2 multiply-adds each
+        printResults(solution);
+        return new SystemSolution(Main.SystemResult.solved, solution);
+    }
+
+    // row swaps making up a permutation: its size less its number of cycles
+    private static int countTranspositions(int[] permutation) {
+        boolean[] seen = new boolean[permutation.length];
+        int transpositions = 0;
+        for (int start = 0; start < permutation.length; start++) {
+            for (int i = start; !seen[i]; i = permutation[i]) {
+                seen[i] = true;
+                if (i != start) {
+                    transpositions++;
+                }
+            }
+        }
+        return transpositions;
+    }
+
+    private void printResults(double[] solution) {
+        if (!log.isTracing()) {
+            return;
+        }
+        log.trace("-----Final Result----");
+        StringBuilder line = new StringBuilder();
+        for (int i = 0; i < solution.length; i += 2) {
+            line.setLength(0);
+            log.trace(ComplexFormatter.append(line, solution[i], solution[i + 1], ComplexFormatter.RESULT_PATTERN, false));
+        }
+    }
+
+    private void printRowOp(int currentColumn, int currentRow, double factorRe, double factorIm) {
+        // printNeatMinuses(factor); // neater formatting
+        log.tracef("%s * R%d + R%d -> R%d\n", ComplexFormatter.toString(factorRe, factorIm, ComplexFormatter.SHORT_PATTERN, false), currentColumn, currentRow, currentRow);
+    }
+}
@@ -0,0 +1,175 @@
+package solver;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorShuffle;
+import jdk.incubator.vector.VectorSpecies;
+
+// The vector half of ComplexKernels, the only class that touches jdk.incubator.vector, so
+// that without the module just this class fails to load. A vector holds whole (re, im) pairs;
+// (re + im*i) * x is x * re plus x with each pair swapped times (-im, im), lane by lane.
+final class VectorComplexKernels {
+    private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+    private static final VectorShuffle<Double> SWAP_PAIRS = VectorShuffle.fromOp(SPECIES, lane -> lane ^ 1);
+    private static final DoubleVector MINUS_PLUS = alternating(-1, 1);
+    private static final DoubleVector PLUS_MINUS = alternating(1, -1);
+    private static final VectorSpecies<Float> FLOAT_SPECIES = FloatVector.SPECIES_PREFERRED;
+    private static final VectorShuffle<Float> FLOAT_SWAP_PAIRS = VectorShuffle.fromOp(FLOAT_SPECIES, lane -> lane ^ 1);
+    private static final FloatVector FLOAT_MINUS_PLUS = alternatingFloats(-1, 1);
+    private static final FloatVector FLOAT_PLUS_MINUS = alternatingFloats(1, -1);
+
+    private VectorComplexKernels() {
+    }
+
+    // a one-lane species cannot hold a pair
+    static boolean isSupported() {
+        return SPECIES.length() >= 2;
+    }
+
+    static void axpy(double re, double im, double[] x, int xOffset, double[] y, int yOffset, int length) {
+        DoubleVector factorRe = DoubleVector.broadcast(SPECIES, re);
+        DoubleVector factorIm = MINUS_PLUS.mul(im);
+        int bound = SPECIES.loopBound(length);
+        int t = 0;
+        for (; t < bound; t += SPECIES.length()) {
+            DoubleVector source = DoubleVector.fromArray(SPECIES, x, xOffset + t);
+            DoubleVector product = source.mul(factorRe).add(source.rearrange(SWAP_PAIRS).mul(factorIm));
+            DoubleVector.fromArray(SPECIES, y, yOffset + t).add(product).intoArray(y, yOffset + t);
+        }
+        ComplexKernels.scalarAxpy(re, im, x, xOffset + t, y, yOffset + t, length - t);
+    }
+
+    static void scale(double re, double im, double[] x, int offset, int length) {
+        DoubleVector factorRe = DoubleVector.broadcast(SPECIES, re);
+        DoubleVector factorIm = MINUS_PLUS.mul(im);
+        int bound = SPECIES.loopBound(length);
+        int t = 0;
+        for (; t < bound; t += SPECIES.length()) {
+            DoubleVector term = DoubleVector.fromArray(SPECIES, x, offset + t);
+            term.mul(factorRe).add(term.rearrange(SWAP_PAIRS).mul(factorIm)).intoArray(x, offset + t);
+        }
+        ComplexKernels.scalarScale(re, im, x, offset + t, length - t);
+    }
+
+    // real rows: every lane is a term of its own
+    static void axpy(double factor, double[] x, int xOffset, double[] y, int yOffset, int length) {
+        DoubleVector factors = DoubleVector.broadcast(SPECIES, factor);
+        int bound = SPECIES.loopBound(length);
+        int t = 0;
+        for (; t < bound; t += SPECIES.length()) {
+            DoubleVector product = DoubleVector.fromArray(SPECIES, x, xOffset + t).mul(factors);
+            DoubleVector.fromArray(SPECIES, y, yOffset + t).add(product).intoArray(y, yOffset + t);
+        }
+        ComplexKernels.scalarAxpy(factor, x, xOffset + t, y, yOffset + t, length - t);
+    }
+
+    static void scale(double factor, double[] x, int offset, int length) {
+        int bound = SPECIES.loopBound(length);
+        int t = 0;
+        for (; t < bound; t += SPECIES.length()) {
+            DoubleVector.fromArray(SPECIES, x, offset + t).mul(factor).intoArray(x, offset + t);
+        }
+        ComplexKernels.scalarScale(factor, x, offset + t, length - t);
+    }
+
+    // lane sums of (aRe*xRe, aIm*xIm) and (aRe*xIm, aIm*xRe), folded into re and im at the end
+    static void dot(double[] a, int aOffset, double[] x, int xOffset, int length, double[] result, int index) {
+        DoubleVector sameLanes = DoubleVector.zero(SPECIES);
+        DoubleVector swappedLanes = DoubleVector.zero(SPECIES);
+        int bound = SPECIES.loopBound(length);
+        int t = 0;
+        for (; t < bound; t += SPECIES.length()) {
+            DoubleVector coefficients = DoubleVector.fromArray(SPECIES, a, aOffset + t);
+            DoubleVector values = DoubleVector.fromArray(SPECIES, x, xOffset + t);
+            sameLanes = sameLanes.add(coefficients.mul(values));
+            swappedLanes = swappedLanes.add(coefficients.mul(values.rearrange(SWAP_PAIRS)));
+        }
+        double re = sameLanes.mul(PLUS_MINUS).reduceLanes(VectorOperators.ADD);
+        double im = swappedLanes.reduceLanes(VectorOperators.ADD);
+        for (; t < length; t += 2) {
+            double aRe = a[aOffset + t];
+            double aIm = a[aOffset + t + 1];
+            re += aRe*x[xOffset + t] - aIm*x[xOffset + t + 1];
+            im += aRe*x[xOffset + t + 1] + aIm*x[xOffset + t];
+        }
+        result[index] = re;
+        result[index + 1] = im;
+    }
+
+    // a * conj(x): same lanes summed for re; swapped lanes (aRe*xIm, aIm*xRe) as (-, +) for im
+    static void dotConjugated(double[] a, int aOffset, double[] x, int xOffset, int length, double[] result, int index) {
+        DoubleVector sameLanes = DoubleVector.zero(SPECIES);
+        DoubleVector swappedLanes = DoubleVector.zero(SPECIES);
+        int bound = SPECIES.loopBound(length);
+        int t = 0;
+        for (; t < bound; t += SPECIES.length()) {
+            DoubleVector coefficients = DoubleVector.fromArray(SPECIES, a, aOffset + t);
+            DoubleVector values = DoubleVector.fromArray(SPECIES, x, xOffset + t);
+            sameLanes = sameLanes.add(coefficients.mul(values));
+            swappedLanes = swappedLanes.add(coefficients.mul(values.rearrange(SWAP_PAIRS)));
+        }
+        double re = sameLanes.reduceLanes(VectorOperators.ADD);
+        double im = swappedLanes.mul(MINUS_PLUS).reduceLanes(VectorOperators.ADD);
+        for (; t < length; t += 2) {
+            double aRe = a[aOffset + t];
+            double aIm = a[aOffset + t + 1];
+            re += aRe*x[xOffset + t] + aIm*x[xOffset + t + 1];
+            im += aIm*x[xOffset + t] - aRe*x[xOffset + t + 1];
+        }
+        result[index] = re;
+        result[index + 1] = im;
+    }
+
+    static void axpy(float re, float im, float[] x, int xOffset, float[] y, int yOffset, int length) {
+        FloatVector factorRe = FloatVector.broadcast(FLOAT_SPECIES, re);
+        FloatVector factorIm = FLOAT_MINUS_PLUS.mul(im);
+        int bound = FLOAT_SPECIES.loopBound(length);
+        int t = 0;
+        for (; t < bound; t += FLOAT_SPECIES.length()) {
+            FloatVector source = FloatVector.fromArray(FLOAT_SPECIES, x, xOffset + t);
+            FloatVector product = source.mul(factorRe).add(source.rearrange(FLOAT_SWAP_PAIRS).mul(factorIm));
+            FloatVector.fromArray(FLOAT_SPECIES, y, yOffset + t).add(product).intoArray(y, yOffset + t);
+        }
+        ComplexKernels.scalarAxpy(re, im, x, xOffset + t, y, yOffset + t, length - t);
+    }
+
+    static void dot(float[] a, int aOffset, float[] x, int xOffset, int length, float[] result, int index) {
+        FloatVector sameLanes = FloatVector.zero(FLOAT_SPECIES);
+        FloatVector swappedLanes = FloatVector.zero(FLOAT_SPECIES);
+        int bound = FLOAT_SPECIES.loopBound(length);
+        int t = 0;
+        for (; t < bound; t += FLOAT_SPECIES.length()) {
+            FloatVector coefficients = FloatVector.fromArray(FLOAT_SPECIES, a, aOffset + t);
+            FloatVector values = FloatVector.fromArray(FLOAT_SPECIES, x, xOffset + t);
+            sameLanes = sameLanes.add(coefficients.mul(values));
+            swappedLanes = swappedLanes.add(coefficients.mul(values.rearrange(FLOAT_SWAP_PAIRS)));
+        }
+        float re = sameLanes.mul(FLOAT_PLUS_MINUS).reduceLanes(VectorOperators.ADD);
+        float im = swappedLanes.reduceLanes(VectorOperators.ADD);
+        for (; t < length; t += 2) {
+            float aRe = a[aOffset + t];
+            float aIm = a[aOffset + t + 1];
+            re += aRe*x[xOffset + t] - aIm*x[xOffset + t + 1];
+            im += aRe*x[xOffset + t + 1] + aIm*x[xOffset + t];
+        }
+        result[index] = re;
+        result[index + 1] = im;
+    }
+
+    private static DoubleVector alternating(double even, double odd) {
+        double[] lanes = new double[SPECIES.length()];
+        for (int lane = 0; lane < lanes.length; lane++) {
+            lanes[lane] = lane % 2 == 0 ? even : odd;
+        }
+        return DoubleVector.fromArray(SPECIES, lanes, 0);
+    }
+
+    private static FloatVector alternatingFloats(float even, float odd) {
+        float[] lanes = new float[FLOAT_SPECIES.length()];
+        for (int lane = 0; lane < lanes.length; lane++) {
+            lanes[lane] = lane % 2 == 0 ? even : odd;
+        }
+        return FloatVector.fromArray(FLOAT_SPECIES, lanes, 0);
+    }
+}
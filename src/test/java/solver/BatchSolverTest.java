@@ -0,0 +1,63 @@
+package solver;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class BatchSolverTest {
+    private static final String UNIQUE = "2\n1 1 3\n1 -1 1\n";
+    private static final String INCONSISTENT = "2\n1 1 1\n1 1 2\n";
+    private static final String DEPENDENT = "2\n1 1 1\n2 2 2\n";
+
+    @TempDir
+    File directory;
+
+    private static String read(File file) throws IOException {
+        return Files.readString(file.toPath()).replace(System.lineSeparator(), "\n");
+    }
+
+    @Test
+    void solvesEveryFileOfADirectory() throws IOException {
+        File input = new File(directory, "in");
+        input.mkdir();
+        Files.writeString(new File(input, "a.txt").toPath(), UNIQUE);
+        Files.writeString(new File(input, "b.txt").toPath(), INCONSISTENT);
+        Files.writeString(new File(input, "c.txt").toPath(), DEPENDENT);
+        Files.writeString(new File(input, "d.txt").toPath(), "sparse 2\n1 1 1\n2 2 1\n1 3 4\n2 3 5i\n");
+        TestSystems.binaryFile(input, "e.bin", 2, 2, new double[] {2, 0, 1, 0, 5, 0, 0, 0, 1, 0, 3, 0});
+
+        File output = new File(directory, "out");
+        new BatchSolver(3, 0, "direct", null, null).solveDirectory(input, output);
+        assertEquals("2.0\n1.0\n", read(new File(output, "a.txt")));
+        assertEquals("No solutions", read(new File(output, "b.txt")));
+        assertEquals("Infinitely many solutions", read(new File(output, "c.txt")));
+        assertEquals("4.0\n+5.0i\n", read(new File(output, "d.txt")));
+        assertEquals("1.0\n3.0\n", read(new File(output, "e.bin")));
+    }
+
+    @Test
+    void solvesConcatenatedSystemsInOrder() throws IOException {
+        File input = new File(directory, "systems.txt");
+        StringBuilder systems = new StringBuilder();
+        StringBuilder expected = new StringBuilder();
+        for (int k = 0; k < 40; k++) {
+            String[] system = {UNIQUE, INCONSISTENT, DEPENDENT};
+            String[] result = {"2.0\n1.0\n", "No solutions", "Infinitely many solutions"};
+            systems.append(system[k % 3]).append('\n');
+            if (k > 0) {
+                expected.append('\n');
+            }
+            expected.append(result[k % 3]).append('\n');
+        }
+        Files.writeString(input.toPath(), systems);
+
+        File output = new File(directory, "results.txt");
+        new BatchSolver(4, 0, "direct", null, new FactorizationCache(1 << 20, null)).solveConcatenated(input, output);
+        assertEquals(expected.toString(), read(output));
+    }
+}
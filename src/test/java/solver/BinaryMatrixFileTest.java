@@ -0,0 +1,87 @@
+package solver;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class BinaryMatrixFileTest {
+
+    @TempDir
+    File directory;
+
+    private static double[] termsOf(Matrix system) {
+        int numOfVariables = system.getMatrixNumOfVariables();
+        double[] terms = new double[2 * (numOfVariables + 1) * system.getMatrixNumOfEquations()];
+        for (int row = 1; row <= system.getMatrixNumOfEquations(); row++) {
+            LinearEquation equation = system.getRow(row);
+            for (int column = 1; column <= numOfVariables + 1; column++) {
+                int index = 2 * ((row - 1) * (numOfVariables + 1) + column - 1);
+                terms[index] = equation.getReal(column);
+                terms[index + 1] = equation.getImaginary(column);
+            }
+        }
+        return terms;
+    }
+
+    @Test
+    void systemsRoundTrip() throws IOException {
+        double[] data = TestSystems.random(7, 5, true, 1);
+        File file = TestSystems.binaryFile(directory, "system.bin", 7, 5, data);
+        assertTrue(BinaryMatrixFile.isBinaryFile(file));
+        Matrix system = BinaryMatrixFile.readSystem(file);
+        assertEquals(5, system.getMatrixNumOfVariables());
+        assertEquals(7, system.getMatrixNumOfEquations());
+        assertArrayEquals(data, termsOf(system));
+    }
+
+    @Test
+    void solutionsRoundTrip() throws IOException {
+        File file = new File(directory, "solution.bin");
+        double[] solution = {1.25, -3, 0, 1e-300};
+        BinaryMatrixFile.writeSolution(file, solution, Main.SystemResult.solved);
+        SystemSolution read = BinaryMatrixFile.readSolution(file);
+        assertEquals(Main.SystemResult.solved, read.getResult());
+        assertArrayEquals(solution, read.getSolution());
+
+        BinaryMatrixFile.writeSolution(file, null, Main.SystemResult.noSolution);
+        read = BinaryMatrixFile.readSolution(file);
+        assertEquals(Main.SystemResult.noSolution, read.getResult());
+        assertNull(read.getSolution());
+    }
+
+    @Test
+    void textConversionIsLossless() throws IOException {
+        double[] data = TestSystems.random(6, 6, true, 2);
+        data[0] = -0.0;
+        data[3] = 1e-300;
+        data[4] = 1.7976931348623157e308;
+        data[7] = 0; // a real term among complex ones
+        File text = TestSystems.textFile(directory, "system.txt", 6, 6, data);
+        assertFalse(BinaryMatrixFile.isBinaryFile(text));
+
+        File binary = new File(directory, "converted.bin");
+        BinaryMatrixFile.convertToBinary(text, binary);
+        double[] read = termsOf(BinaryMatrixFile.readSystem(binary));
+        for (int t = 0; t < data.length; t++) {
+            assertEquals(Double.doubleToRawLongBits(data[t]), Double.doubleToRawLongBits(read[t]), "term " + t);
+        }
+    }
+
+    @Test
+    void realSystemsReadBackReal() throws IOException {
+        double[] data = TestSystems.random(4, 4, false, 3);
+        File file = TestSystems.binaryFile(directory, "real.bin", 4, 4, data);
+        assertArrayEquals(data, termsOf(BinaryMatrixFile.readSystem(file)));
+        // half the size of the complex file, less the header
+        File complex = TestSystems.binaryFile(directory, "complex.bin", 4, 4, TestSystems.random(4, 4, true, 3));
+        assertTrue(file.length() < complex.length());
+    }
+}
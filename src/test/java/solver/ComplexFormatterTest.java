@@ -0,0 +1,64 @@
+package solver;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class ComplexFormatterTest {
+
+    private static double[] parse(CharSequence text) {
+        double[] value = new double[2];
+        ComplexNumberParser.parse(text.toString(), value, 0);
+        return value;
+    }
+
+    @Test
+    void parsesEveryForm() {
+        assertEquals("[1.5, -2.0]", Arrays.toString(parse("1.5-2i")));
+        assertEquals("[0.0, 1.0]", Arrays.toString(parse("i")));
+        assertEquals("[0.0, -1.0]", Arrays.toString(parse("-i")));
+        assertEquals("[3.0, 1.0]", Arrays.toString(parse("(3+i)")));
+        assertEquals("[0.0, 0.25]", Arrays.toString(parse("+.25i")));
+        assertEquals("[-7.0, 0.0]", Arrays.toString(parse("-7")));
+        assertEquals("[0.0, 0.0]", Arrays.toString(parse("x")));
+    }
+
+    @Test
+    void formattedTermsParseBackExactly() {
+        Random random = new Random(1);
+        StringBuilder text = new StringBuilder();
+        for (int k = 0; k < 10_000; k++) {
+            // the parser has no exponents, so magnitudes where Double.toString writes none
+            double re = random.nextInt(4) == 0 ? 0 : (random.nextBoolean() ? 1 : -1) * Math.pow(10, random.nextDouble() * 9 - 2.9);
+            double im = random.nextInt(4) == 0 ? 0 : (random.nextBoolean() ? 1 : -1) * Math.pow(10, random.nextDouble() * 9 - 2.9);
+            text.setLength(0);
+            double[] value = parse(ComplexFormatter.append(text, re, im));
+            assertEquals(re, value[0], text::toString);
+            assertEquals(im, value[1], text::toString);
+        }
+        assertEquals("-i", ComplexFormatter.append(new StringBuilder(), 0, -1).toString());
+        assertEquals("2.0+i", ComplexFormatter.append(new StringBuilder(), 2, 1).toString());
+        assertEquals("", ComplexFormatter.append(new StringBuilder(), -0.0, 0).toString());
+    }
+
+    @Test
+    void patternsLineUpAndRound() {
+        assertEquals(" 1.500+0.000i", ComplexFormatter.toString(1.5, 0, ComplexFormatter.RESULT_PATTERN, true));
+        assertEquals("-2.0-3.5i", ComplexFormatter.toString(-2, -3.5, ComplexFormatter.SHORT_PATTERN, false));
+        assertEquals(" 0.333", ComplexFormatter.toString(1.0 / 3, 0, ComplexFormatter.RESULT_PATTERN, false));
+        assertEquals("+i", ComplexFormatter.toString(0, 1, ComplexFormatter.RESULT_PATTERN, false));
+        assertEquals(" 0.000+0.000i", ComplexFormatter.toString(-0.0, 0, ComplexFormatter.RESULT_PATTERN, true));
+    }
+
+    @Test
+    void matchesComplexNumberToString() {
+        double[][] values = {{1.5, -2}, {0, 1}, {-3, 0}, {0.1, 0.2}, {0, 0}};
+        for (double[] value : values) {
+            ComplexNumber number = new ComplexNumber(value[0], value[1]);
+            assertEquals(number.toString(), ComplexFormatter.append(new StringBuilder(), value[0], value[1]).toString());
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package solver;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class DistributedLUTest {
+
+    @TempDir
+    File directory;
+
+    @Test
+    void matchesGaussJordanOnAProcessGrid() throws IOException {
+        double[] data = TestSystems.random(23, 23, true, 1);
+        File input = TestSystems.binaryFile(directory, "system.bin", 23, 23, data);
+        // 2 x 2 grid, 3 x 3 blocks: rows and columns wrap around the grid several times
+        SystemSolver solver = new SystemSolver(new ParallelEliminator(1), 3, "direct", null, SolveLog.SILENT);
+        SystemSolution solution = solver.solveDistributed(input, 4);
+        assertEquals("distributed", solver.getMetrics().getPath());
+        TestSystems.assertMatchesGaussJordan(23, data, solution, 1e-9);
+    }
+
+    @Test
+    void reportsSingularSystems() throws IOException {
+        double[] data = {1, 0, 2, 0, 3, 0, 2, 0, 4, 0, 6, 0};
+        File input = TestSystems.binaryFile(directory, "singular.bin", 2, 2, data);
+        SystemSolver solver = new SystemSolver(new ParallelEliminator(1), 1, "direct", null, SolveLog.SILENT);
+        assertEquals(Main.SystemResult.error, solver.solveDistributed(input, 2).getResult());
+    }
+
+    @Test
+    void largeConstantsDoNotMakeCoefficientsNegligible() throws IOException {
+        // x = 1e17, y = 1
+        double[] data = {1, 0, 0, 0, 1e17, 0, 0, 0, 1, 0, 1, 0};
+        File input = TestSystems.binaryFile(directory, "large.bin", 2, 2, data);
+        SystemSolver solver = new SystemSolver(new ParallelEliminator(1), 1, "direct", null, SolveLog.SILENT);
+        SystemSolution solution = solver.solveDistributed(input, 2);
+        assertEquals(Main.SystemResult.solved, solution.getResult());
+        assertEquals(1e17, solution.getSolution()[0]);
+        assertEquals(1, solution.getSolution()[2]);
+    }
+
+    @Test
+    void layoutDealsBlocksCyclically() {
+        BlockCyclicLayout layout = BlockCyclicLayout.forProcesses(10, 2, 6);
+        assertEquals(2, layout.getGridRows());
+        assertEquals(3, layout.getGridColumns());
+        int[] columnsPerProcess = new int[3];
+        for (int column = 0; column < 10; column++) {
+            int owner = layout.columnOwner(column);
+            int localColumn = layout.localColumns(column, owner);
+            assertEquals(column, layout.globalColumn(owner, localColumn));
+            columnsPerProcess[owner]++;
+        }
+        for (int gridColumn = 0; gridColumn < 3; gridColumn++) {
+            assertEquals(columnsPerProcess[gridColumn], layout.localColumns(10, gridColumn));
+        }
+    }
+}
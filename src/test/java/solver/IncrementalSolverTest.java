@@ -0,0 +1,37 @@
+package solver;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import org.junit.jupiter.api.Test;
+
+class IncrementalSolverTest {
+
+    @Test
+    void lowRankUpdatesMatchGaussJordan() {
+        int size = 40;
+        int rowStride = 2 * (size + 1);
+        double[] data = TestSystems.random(size, size, true, 1);
+        IncrementalSolver solver = new IncrementalSolver(TestSystems.matrix(size, size, data), 8);
+        TestSystems.assertMatchesGaussJordan(size, data, new SystemSolution(Main.SystemResult.solved, solver.solve()), 1e-9);
+
+        solver.setCoeff(3, 7, new ComplexNumber(2.5, -1));
+        data[2 * rowStride + 2 * 6] = 2.5;
+        data[2 * rowStride + 2 * 6 + 1] = -1;
+        solver.setConstantTerm(10, new ComplexNumber(4, 0));
+        data[9 * rowStride + 2 * size] = 4;
+        data[9 * rowStride + 2 * size + 1] = 0;
+        double[] solution = solver.solve();
+        assertEquals(1, solver.getNumOfRefactorizations()); // the one in the constructor: the edit went through Woodbury
+        TestSystems.assertMatchesGaussJordan(size, data, new SystemSolution(Main.SystemResult.solved, solution), 1e-9);
+    }
+
+    @Test
+    void singularEditsGiveNoSolution() {
+        // x + y = 3, x - y = 1; making the second row x + y leaves the system singular
+        double[] data = {1, 0, 1, 0, 3, 0, 1, 0, -1, 0, 1, 0};
+        IncrementalSolver solver = new IncrementalSolver(TestSystems.matrix(2, 2, data), 0);
+        solver.setCoeff(2, 2, new ComplexNumber(1, 0));
+        assertNull(solver.solve());
+    }
+}
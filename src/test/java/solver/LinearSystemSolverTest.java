@@ -0,0 +1,79 @@
+package solver;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+class LinearSystemSolverTest {
+    private final LinearSystemSolver solver = new LinearSystemSolver();
+
+    @Test
+    void classifiesWithRankAndFreeVariables() {
+        LinearSystemResult result = solver.solve(2, 2, new double[] {1, 0, 1, 0, 3, 0, 1, 0, -1, 0, 1, 0});
+        assertTrue(result.isSolved());
+        assertEquals(2, result.getRank());
+        assertEquals(0, result.getNumOfFreeVariables());
+        TestSystems.assertClose(new double[] {2, 0, 1, 0}, result.getSolution(), 1e-12);
+
+        result = solver.solve(2, 2, new double[] {1, 0, 1, 0, 1, 0, 2, 0, 2, 0, 2, 0});
+        assertEquals(Main.SystemResult.infiniteSolutions, result.getResult());
+        assertEquals(1, result.getRank());
+        assertEquals(1, result.getNumOfFreeVariables());
+        assertNull(result.getSolution());
+
+        result = solver.solve(2, 2, new double[] {1, 0, 1, 0, 1, 0, 1, 0, 1, 0, 2, 0});
+        assertEquals(Main.SystemResult.noSolution, result.getResult());
+        assertEquals(1, result.getRank());
+
+        // x + y + z = 1
+        result = solver.solve(1, 3, new double[] {1, 0, 1, 0, 1, 0, 1, 0});
+        assertEquals(Main.SystemResult.infiniteSolutions, result.getResult());
+        assertEquals(2, result.getNumOfFreeVariables());
+    }
+
+    @Test
+    void largeConstantsDoNotMakeCoefficientsNegligible() {
+        // x = 1e17, y = 1
+        LinearSystemResult result = solver.solve(2, 2, new double[] {1, 0, 0, 0, 1e17, 0, 0, 0, 1, 0, 1, 0});
+        assertTrue(result.isSolved());
+        assertEquals(1e17, result.getSolution()[0]);
+        assertEquals(1, result.getSolution()[2]);
+    }
+
+    @Test
+    void matchesGaussJordan() {
+        double[] data = TestSystems.random(50, 50, true, 1);
+        double[] original = data.clone();
+        LinearSystemResult result = solver.solve(50, 50, data);
+        TestSystems.assertMatchesGaussJordan(50, data, new SystemSolution(result.getResult(), result.getSolution()), 1e-9);
+        TestSystems.assertClose(original, data, 0); // the input is left as it was
+    }
+
+    @Test
+    void separateCoefficientsAndConstantsGiveTheSameSolution() {
+        int size = 20;
+        double[] data = TestSystems.random(size, size, true, 2);
+        double[] coefficients = new double[2 * size * size];
+        double[] constants = new double[2 * size];
+        for (int i = 0; i < size; i++) {
+            System.arraycopy(data, i * 2 * (size + 1), coefficients, i * 2 * size, 2 * size);
+            constants[2 * i] = data[i * 2 * (size + 1) + 2 * size];
+            constants[2 * i + 1] = data[i * 2 * (size + 1) + 2 * size + 1];
+        }
+        TestSystems.assertClose(solver.solve(size, size, data).getSolution(),
+                solver.solve(size, size, coefficients, constants).getSolution(), 0);
+    }
+
+    @Test
+    void reusesTheResultAndItsSolution() {
+        LinearSystemResult result = new LinearSystemResult();
+        double[] data = TestSystems.random(10, 10, true, 3);
+        solver.solve(10, 10, data, result);
+        double[] solution = result.getSolution();
+        assertSame(result, solver.solve(10, 10, TestSystems.random(10, 10, true, 4), result));
+        assertSame(solution, result.getSolution());
+    }
+}
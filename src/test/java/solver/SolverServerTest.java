@@ -0,0 +1,96 @@
+package solver;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class SolverServerTest {
+    private SolverServer server;
+
+    @BeforeEach
+    void start() throws IOException {
+        server = new SolverServer(0, 2, 4, 0, "direct", null, null);
+        Thread serving = new Thread(() -> {
+            try {
+                server.serve();
+            } catch (IOException serveError) {
+                // closed under the test
+            }
+        });
+        serving.setDaemon(true);
+        serving.start();
+    }
+
+    @AfterEach
+    void stop() throws IOException {
+        server.close();
+    }
+
+    private Socket connect() throws IOException {
+        Socket socket = new Socket(InetAddress.getLoopbackAddress(), server.getPort());
+        socket.setSoTimeout(30_000);
+        return socket;
+    }
+
+    private static void send(OutputStream output, String system) throws IOException {
+        byte[] body = system.getBytes(StandardCharsets.UTF_8);
+        output.write((body.length + "\n").getBytes(StandardCharsets.US_ASCII));
+        output.write(body);
+    }
+
+    // "status body"
+    private static String receive(InputStream input) throws IOException {
+        String[] header = SolverServer.readHeaderLine(input).split(" ");
+        String body = new String(input.readNBytes(Integer.parseInt(header[1])), StandardCharsets.UTF_8);
+        return header[0] + " " + body.replace(System.lineSeparator(), "\n");
+    }
+
+    @Test
+    void answersPipelinedRequestsInOrder() throws IOException {
+        try (Socket socket = connect()) {
+            OutputStream output = socket.getOutputStream();
+            InputStream input = new BufferedInputStream(socket.getInputStream());
+            // more than the queue holds, so some wait for room
+            for (int k = 0; k < 20; k++) {
+                send(output, "2\n1 1 " + (k + 2) + "\n1 -1 1\n");
+            }
+            send(output, "2\n1 1 1\n1 1 2\n");
+            send(output, "sparse 2\n1 1 2\n2 2 1\n1 3 4\n2 3 i\n");
+            output.flush();
+            for (int k = 0; k < 20; k++) {
+                double x = (k + 3) / 2.0;
+                assertEquals("ok " + x + "\n" + (x - 1) + "\n", receive(input));
+            }
+            assertEquals("ok No solutions", receive(input));
+            assertEquals("ok 2.0\n+i\n", receive(input));
+            socket.shutdownOutput();
+            assertNull(SolverServer.readHeaderLine(input));
+        }
+    }
+
+    @Test
+    void reportsBadRequestsAndBadFrames() throws IOException {
+        try (Socket socket = connect()) {
+            OutputStream output = socket.getOutputStream();
+            InputStream input = new BufferedInputStream(socket.getInputStream());
+            send(output, "2\n1 1\n");
+            output.write("not a length\n".getBytes(StandardCharsets.US_ASCII));
+            output.flush();
+            assertTrue(receive(input).startsWith("error "));
+            assertEquals("error Invalid frame header: not a length", receive(input));
+            assertNull(SolverServer.readHeaderLine(input)); // the server gives up on the connection
+        }
+    }
+}
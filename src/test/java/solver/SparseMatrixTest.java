@@ -0,0 +1,188 @@
+package solver;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class SparseMatrixTest {
+
+    @TempDir
+    File directory;
+
+    // "sparse n" and one line per entry, values with three decimals so the text reads back exactly
+    private File sparseFile(String name, int size, double[] dense) throws IOException {
+        return sparseFile(name, size, size, dense);
+    }
+
+    private File sparseFile(String name, int numOfEquations, int numOfVariables, double[] dense) throws IOException {
+        File file = new File(directory, name);
+        int rowStride = 2 * (numOfVariables + 1);
+        try (PrintWriter printWriter = new PrintWriter(file)) {
+            printWriter.println("sparse " + numOfVariables + " " + numOfEquations);
+            for (int row = 0; row < numOfEquations; row++) {
+                for (int column = 0; column <= numOfVariables; column++) {
+                    int index = row * rowStride + 2 * column;
+                    if (dense[index] != 0 || dense[index + 1] != 0) {
+                        StringBuilder line = new StringBuilder().append(row + 1).append(' ').append(column + 1).append(' ');
+                        printWriter.println(ComplexFormatter.append(line, dense[index], dense[index + 1]));
+                    }
+                }
+            }
+        }
+        return file;
+    }
+
+    // a few entries per row at random columns, a dominant diagonal and a constant in every row
+    private static double[] randomSparse(int size, long seed) {
+        Random random = new Random(seed);
+        int rowStride = 2 * (size + 1);
+        double[] dense = new double[rowStride * size];
+        for (int row = 0; row < size; row++) {
+            for (int k = 0; k < 4; k++) {
+                int column = random.nextInt(size);
+                dense[row * rowStride + 2 * column] = Math.round(random.nextDouble() * 10000 - 5000) / 1000.0;
+                dense[row * rowStride + 2 * column + 1] = Math.round(random.nextDouble() * 10000 - 5000) / 1000.0;
+            }
+            dense[row * rowStride + 2 * row] = 30 + row % 7;
+            dense[row * rowStride + 2 * size] = Math.round(random.nextDouble() * 10000 - 5000) / 1000.0;
+        }
+        return dense;
+    }
+
+    @Test
+    void readsTheSparseFormat() throws IOException {
+        double[] dense = randomSparse(20, 1);
+        File file = sparseFile("system.txt", 20, dense);
+        SparseMatrix system = new SparseMatrix(file);
+        assertEquals(20, system.getNumOfVariables());
+        assertEquals(20, system.getNumOfEquations());
+        Matrix expanded = system.toMatrix();
+        for (int row = 1; row <= 20; row++) {
+            for (int column = 1; column <= 21; column++) {
+                int index = (row - 1) * 42 + 2 * (column - 1);
+                assertEquals(dense[index], expanded.getRow(row).getReal(column));
+                assertEquals(dense[index + 1], expanded.getRow(row).getImaginary(column));
+            }
+        }
+    }
+
+    @Test
+    void sparseLUMatchesGaussJordan() throws IOException {
+        double[] dense = randomSparse(80, 2);
+        SystemSolver solver = TestSystems.solver();
+        SystemSolution solution = solver.solve(new SparseMatrix(sparseFile("system.txt", 80, dense)));
+        assertEquals("sparseLU", solver.getMetrics().getPath());
+        TestSystems.assertMatchesGaussJordan(80, dense, solution, 1e-9);
+    }
+
+    @Test
+    void pivotsOffTheDiagonalWhenTheDiagonalIsNegligible() throws IOException {
+        // rows 0 and 5 only meet columns 0 and 5; column 0 holds a diagonal below the rank
+        // threshold and a term well above it, within the pivot tolerance of each other, so the
+        // column still has a pivot. The rest is a diagonal plus a far term per row, not a band.
+        int size = 60;
+        int rowStride = 2 * (size + 1);
+        double[] dense = new double[rowStride * size];
+        for (int row = 0; row < size; row++) {
+            dense[row * rowStride + 2 * size] = 1;
+            if (row == 0 || row == 5) {
+                continue;
+            }
+            dense[row * rowStride + 2 * row] = 30;
+            int far = (row + size / 2) % size;
+            if (far != 0 && far != 5) {
+                dense[row * rowStride + 2 * far] = 1;
+            }
+        }
+        dense[0] = 1e-13;
+        dense[5 * rowStride] = 1e-11;
+        dense[2 * 5] = 1;
+        dense[5 * rowStride + 2 * 5] = 1;
+
+        // the parser takes no exponents, so the terms are written out in full
+        File file = new File(directory, "system.txt");
+        try (PrintWriter printWriter = new PrintWriter(file)) {
+            printWriter.println("sparse " + size + " " + size);
+            for (int row = 0; row < size; row++) {
+                for (int column = 0; column <= size; column++) {
+                    double term = dense[row * rowStride + 2 * column];
+                    if (term != 0) {
+                        printWriter.println((row + 1) + " " + (column + 1) + " " + BigDecimal.valueOf(term).toPlainString());
+                    }
+                }
+            }
+        }
+        SystemSolver solver = TestSystems.solver();
+        SystemSolution solution = solver.solve(new SparseMatrix(file));
+        assertEquals("sparseLU", solver.getMetrics().getPath());
+        TestSystems.assertMatchesGaussJordan(size, dense, solution, 1e-9);
+    }
+
+    @Test
+    void classifiesSingularSparseSystems() throws IOException {
+        // x + y = 1 twice, and z = 1: infinitely many
+        double[] dependent = {1, 0, 1, 0, 0, 0, 1, 0, 1, 0, 1, 0, 0, 0, 1, 0, 0, 0, 0, 0, 1, 0, 1, 0};
+        assertEquals(Main.SystemResult.infiniteSolutions,
+                TestSystems.solver().solve(new SparseMatrix(sparseFile("dependent.txt", 3, dependent))).getResult());
+
+        double[] inconsistent = dependent.clone();
+        inconsistent[14] = 2; // x + y = 2 in the second row
+        assertEquals(Main.SystemResult.noSolution,
+                TestSystems.solver().solve(new SparseMatrix(sparseFile("inconsistent.txt", 3, inconsistent))).getResult());
+    }
+
+    @Test
+    void classifiesSingularSystemsOnTheSparseFactors() throws IOException {
+        int size = 60;
+        int rowStride = 2 * (size + 1);
+        double[] dependent = randomSparse(size, 3);
+        for (int t = 0; t < rowStride; t++) {
+            dependent[(size - 1) * rowStride + t] = dependent[t] + dependent[rowStride + t]; // last row = first + second
+        }
+        SystemSolver solver = TestSystems.solver();
+        assertEquals(Main.SystemResult.infiniteSolutions,
+                solver.solve(new SparseMatrix(sparseFile("dependent.txt", size, dependent))).getResult());
+        assertEquals("sparseLU", solver.getMetrics().getPath());
+        assertEquals(Main.SystemResult.infiniteSolutions, TestSystems.gaussJordan(size, size, dependent).getResult());
+
+        double[] inconsistent = dependent.clone();
+        inconsistent[size * rowStride - 2] += 1;
+        solver = TestSystems.solver();
+        assertEquals(Main.SystemResult.noSolution,
+                solver.solve(new SparseMatrix(sparseFile("inconsistent.txt", size, inconsistent))).getResult());
+        assertEquals("sparseLU", solver.getMetrics().getPath());
+    }
+
+    @Test
+    void classifiesRectangularSystemsOnTheSparseFactors() throws IOException {
+        // the square system plus a last equation, the sum of the first two: consistent
+        int size = 40;
+        int rowStride = 2 * (size + 1);
+        double[] square = randomSparse(size, 4);
+        double[] overdetermined = Arrays.copyOf(square, square.length + rowStride);
+        for (int t = 0; t < rowStride; t++) {
+            overdetermined[size * rowStride + t] = square[t] + square[rowStride + t];
+        }
+        SystemSolver solver = TestSystems.solver();
+        SystemSolution solution = solver.solve(new SparseMatrix(sparseFile("overdetermined.txt", size + 1, size, overdetermined)));
+        assertEquals("sparseLU", solver.getMetrics().getPath());
+        TestSystems.assertMatchesGaussJordan(size, square, solution, 1e-9);
+
+        overdetermined[overdetermined.length - 2] += 1;
+        assertEquals(Main.SystemResult.noSolution, TestSystems.solver()
+                .solve(new SparseMatrix(sparseFile("contradiction.txt", size + 1, size, overdetermined))).getResult());
+
+        // the first size - 1 equations only
+        double[] underdetermined = Arrays.copyOf(square, square.length - rowStride);
+        assertEquals(Main.SystemResult.infiniteSolutions, TestSystems.solver()
+                .solve(new SparseMatrix(sparseFile("underdetermined.txt", size - 1, size, underdetermined))).getResult());
+    }
+}
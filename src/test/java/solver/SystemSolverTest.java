@@ -0,0 +1,281 @@
+package solver;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class SystemSolverTest {
+    private static final double TOLERANCE = 1e-9;
+
+    @TempDir
+    File directory;
+
+    // x + y = 3, x - y = 1
+    private static final double[] UNIQUE = {1, 0, 1, 0, 3, 0, 1, 0, -1, 0, 1, 0};
+    // x + y = 1, x + y = 2
+    private static final double[] INCONSISTENT = {1, 0, 1, 0, 1, 0, 1, 0, 1, 0, 2, 0};
+    // x + y = 1, 2x + 2y = 2
+    private static final double[] DEPENDENT = {1, 0, 1, 0, 1, 0, 2, 0, 2, 0, 2, 0};
+
+    private static SystemSolution solve(SystemSolver solver, int numOfEquations, int numOfVariables, double[] data) {
+        return solver.solve(TestSystems.matrix(numOfEquations, numOfVariables, data));
+    }
+
+    private static SystemSolver[] directSolvers() throws IOException {
+        ParallelEliminator eliminator = new ParallelEliminator(1);
+        return new SystemSolver[] {
+                new SystemSolver(eliminator, 0, "direct", null, SolveLog.SILENT),
+                new SystemSolver(eliminator, 4, "direct", null, SolveLog.SILENT),
+                new SystemSolver(eliminator, 0, "direct", null, SolveLog.SILENT, new FactorizationCache(1 << 20, null)),
+                new SystemSolver(eliminator, 0, "direct", null, SolveLog.SILENT, null, true),
+        };
+    }
+
+    // i times the system: the same solution, but complex, so Gauss-Jordan rather than the real path
+    private static double[] timesI(double[] data) {
+        double[] rotated = new double[data.length];
+        for (int t = 0; t < data.length; t += 2) {
+            rotated[t] = -data[t + 1];
+            rotated[t + 1] = data[t];
+        }
+        return rotated;
+    }
+
+    @Test
+    void classifiesOnEveryDirectPath() throws IOException {
+        for (SystemSolver solver : directSolvers()) {
+            for (boolean complex : new boolean[] {false, true}) {
+                SystemSolution unique = solve(solver, 2, 2, complex ? timesI(UNIQUE) : UNIQUE);
+                assertEquals(Main.SystemResult.solved, unique.getResult());
+                TestSystems.assertClose(new double[] {2, 0, 1, 0}, unique.getSolution(), TOLERANCE);
+
+                SystemSolution none = solve(solver, 2, 2, complex ? timesI(INCONSISTENT) : INCONSISTENT);
+                assertEquals(Main.SystemResult.noSolution, none.getResult());
+                assertNull(none.getSolution());
+
+                SystemSolution infinite = solve(solver, 2, 2, complex ? timesI(DEPENDENT) : DEPENDENT);
+                assertEquals(Main.SystemResult.infiniteSolutions, infinite.getResult());
+                assertNull(infinite.getSolution());
+            }
+        }
+    }
+
+    @Test
+    void largeConstantsDoNotMakeCoefficientsNegligible() throws IOException {
+        // x = 1e17, y = 1: a threshold taken over the constants too called the coefficients zero
+        double[] data = {1, 0, 0, 0, 1e17, 0, 0, 0, 1, 0, 1, 0};
+        for (SystemSolver solver : directSolvers()) {
+            for (boolean complex : new boolean[] {false, true}) {
+                SystemSolution solution = solve(solver, 2, 2, complex ? timesI(data) : data);
+                assertEquals(Main.SystemResult.solved, solution.getResult());
+                // mixed precision refines to a normwise backward error, so y is only as good as a float next to x
+                assertEquals(1e17, solution.getSolution()[0], 1e17 * TOLERANCE);
+                assertEquals(1, solution.getSolution()[2], 1e-6);
+            }
+        }
+    }
+
+    @Test
+    void classifiesRectangularSystems() {
+        // x = 1, y = 2, x + y = 3: consistent, overdetermined
+        double[] overdetermined = {1, 0, 0, 0, 1, 0, 0, 0, 1, 0, 2, 0, 1, 0, 1, 0, 3, 0};
+        SystemSolution solution = solve(TestSystems.solver(), 3, 2, overdetermined);
+        assertEquals(Main.SystemResult.solved, solution.getResult());
+        TestSystems.assertClose(new double[] {1, 0, 2, 0}, solution.getSolution(), TOLERANCE);
+
+        overdetermined[overdetermined.length - 2] = 4;
+        assertEquals(Main.SystemResult.noSolution, solve(TestSystems.solver(), 3, 2, overdetermined).getResult());
+
+        // x + y + z = 1: underdetermined
+        double[] underdetermined = {1, 0, 1, 0, 1, 0, 1, 0};
+        assertEquals(Main.SystemResult.infiniteSolutions, solve(TestSystems.solver(), 1, 3, underdetermined).getResult());
+    }
+
+    @Test
+    void gaussJordanPathIsTakenForGeneralComplexSystems() {
+        SystemSolver solver = TestSystems.solver();
+        solve(solver, 30, 30, TestSystems.random(30, 30, true, 1));
+        assertEquals("gaussJordan", solver.getMetrics().getPath());
+    }
+
+    @Test
+    void realPathMatchesGaussJordan() {
+        double[] data = TestSystems.random(40, 40, false, 2);
+        SystemSolver solver = TestSystems.solver();
+        SystemSolution solution = solve(solver, 40, 40, data);
+        assertEquals("real", solver.getMetrics().getPath());
+        TestSystems.assertMatchesGaussJordan(40, data, solution, TOLERANCE);
+    }
+
+    @Test
+    void parallelEliminationMatchesSequential() {
+        double[] data = TestSystems.random(60, 60, true, 3);
+        ParallelEliminator eliminator = new ParallelEliminator(4, 1);
+        try {
+            SystemSolution parallel = new SystemSolver(eliminator, 0, "direct", null, SolveLog.SILENT)
+                    .solve(TestSystems.matrix(60, 60, data));
+            TestSystems.assertMatchesGaussJordan(60, data, parallel, 0);
+        } finally {
+            eliminator.shutdown();
+        }
+    }
+
+    @Test
+    void parallelRealEliminationMatchesSequential() {
+        double[] data = TestSystems.random(80, 80, false, 14);
+        SystemSolution sequential = solve(TestSystems.solver(), 80, 80, data);
+        ParallelEliminator eliminator = new ParallelEliminator(4, 1);
+        try {
+            SystemSolver solver = new SystemSolver(eliminator, 0, "direct", null, SolveLog.SILENT);
+            SystemSolution parallel = solve(solver, 80, 80, data);
+            assertEquals("real", solver.getMetrics().getPath());
+            TestSystems.assertClose(sequential.getSolution(), parallel.getSolution(), 0);
+        } finally {
+            eliminator.shutdown();
+        }
+    }
+
+    @Test
+    void blockedLUMatchesGaussJordan() {
+        double[] data = TestSystems.random(70, 70, true, 4);
+        SystemSolver solver = new SystemSolver(new ParallelEliminator(1), 16, "direct", null, SolveLog.SILENT);
+        SystemSolution solution = solve(solver, 70, 70, data);
+        assertEquals("lu", solver.getMetrics().getPath());
+        TestSystems.assertMatchesGaussJordan(70, data, solution, TOLERANCE);
+    }
+
+    @Test
+    void cachedLUMatchesGaussJordan() throws IOException {
+        double[] data = TestSystems.random(30, 30, true, 5);
+        FactorizationCache cache = new FactorizationCache(1 << 20, null);
+        ParallelEliminator eliminator = new ParallelEliminator(1);
+        solve(new SystemSolver(eliminator, 0, "direct", null, SolveLog.SILENT, cache), 30, 30, data);
+
+        // same coefficients, new constants
+        double[] edited = data.clone();
+        for (int i = 0; i < 30; i++) {
+            edited[i * 62 + 60] += i;
+        }
+        SystemSolver solver = new SystemSolver(eliminator, 0, "direct", null, SolveLog.SILENT, cache);
+        SystemSolution solution = solve(solver, 30, 30, edited);
+        assertEquals("cachedLU", solver.getMetrics().getPath());
+        TestSystems.assertMatchesGaussJordan(30, edited, solution, TOLERANCE);
+    }
+
+    @Test
+    void mixedPrecisionMatchesGaussJordan() {
+        double[] data = TestSystems.shiftDiagonal(TestSystems.random(50, 50, true, 6), 50, 20);
+        SystemSolver solver = new SystemSolver(new ParallelEliminator(1), 0, "direct", null, SolveLog.SILENT, null, true);
+        SystemSolution solution = solve(solver, 50, 50, data);
+        assertEquals("mixedLU", solver.getMetrics().getPath());
+        TestSystems.assertMatchesGaussJordan(50, data, solution, TOLERANCE);
+    }
+
+    @Test
+    void tridiagonalAndBandedMatchGaussJordan() {
+        double[] tridiagonal = TestSystems.band(TestSystems.shiftDiagonal(TestSystems.random(40, 40, true, 7), 40, 20), 40, 1, 1);
+        SystemSolver solver = TestSystems.solver();
+        SystemSolution solution = solve(solver, 40, 40, tridiagonal);
+        assertEquals("tridiagonal", solver.getMetrics().getPath());
+        TestSystems.assertMatchesGaussJordan(40, tridiagonal, solution, TOLERANCE);
+
+        double[] banded = TestSystems.band(TestSystems.random(40, 40, true, 8), 40, 3, 2);
+        solver = TestSystems.solver();
+        solution = solve(solver, 40, 40, banded);
+        assertEquals("banded", solver.getMetrics().getPath());
+        TestSystems.assertMatchesGaussJordan(40, banded, solution, TOLERANCE);
+    }
+
+    @Test
+    void hermitianPathsMatchGaussJordan() {
+        double[] positiveDefinite = TestSystems.hermitian(TestSystems.shiftDiagonal(TestSystems.random(30, 30, true, 9), 30, 200), 30);
+        SystemSolver solver = TestSystems.solver();
+        SystemSolution solution = solve(solver, 30, 30, positiveDefinite);
+        assertEquals("cholesky", solver.getMetrics().getPath());
+        TestSystems.assertMatchesGaussJordan(30, positiveDefinite, solution, TOLERANCE);
+
+        // diagonally dominant with both signs on the diagonal: indefinite, no pivoting needed
+        double[] indefinite = TestSystems.random(30, 30, true, 10);
+        for (int i = 0; i < 30; i++) {
+            indefinite[i * 62 + 2 * i] = i % 2 == 0 ? 200 : -200;
+        }
+        indefinite = TestSystems.hermitian(indefinite, 30);
+        solver = TestSystems.solver();
+        solution = solve(solver, 30, 30, indefinite);
+        assertEquals("ldlh", solver.getMetrics().getPath());
+        TestSystems.assertMatchesGaussJordan(30, indefinite, solution, TOLERANCE);
+    }
+
+    @Test
+    void requestedModesTakePrecedenceOverStructureDetection() {
+        double[] positiveDefinite = TestSystems.hermitian(TestSystems.shiftDiagonal(TestSystems.random(30, 30, true, 11), 30, 200), 30);
+        SystemSolver solver = new SystemSolver(new ParallelEliminator(1), 0, "direct", null, SolveLog.SILENT, null, true);
+        TestSystems.assertMatchesGaussJordan(30, positiveDefinite, solve(solver, 30, 30, positiveDefinite), TOLERANCE);
+        assertEquals("mixedLU", solver.getMetrics().getPath());
+
+        solver = new SystemSolver(new ParallelEliminator(1), 16, "direct", null, SolveLog.SILENT);
+        TestSystems.assertMatchesGaussJordan(30, positiveDefinite, solve(solver, 30, 30, positiveDefinite), TOLERANCE);
+        assertEquals("lu", solver.getMetrics().getPath());
+
+        double[] banded = TestSystems.band(TestSystems.random(40, 40, true, 12), 40, 3, 2);
+        solver = new SystemSolver(new ParallelEliminator(1), 16, "direct", null, SolveLog.SILENT);
+        TestSystems.assertMatchesGaussJordan(40, banded, solve(solver, 40, 40, banded), TOLERANCE);
+        assertEquals("lu", solver.getMetrics().getPath());
+    }
+
+    @Test
+    void threadCountDoesNotChangeThePath() {
+        double[] positiveDefinite = TestSystems.hermitian(TestSystems.shiftDiagonal(TestSystems.random(30, 30, true, 13), 30, 200), 30);
+        ParallelEliminator eliminator = new ParallelEliminator(4);
+        try {
+            SystemSolver solver = new SystemSolver(eliminator, 0, "direct", null, SolveLog.SILENT);
+            TestSystems.assertMatchesGaussJordan(30, positiveDefinite, solve(solver, 30, 30, positiveDefinite), TOLERANCE);
+            assertEquals("cholesky", solver.getMetrics().getPath());
+        } finally {
+            eliminator.shutdown();
+        }
+    }
+
+    @Test
+    void outOfCoreMatchesGaussJordan() throws IOException {
+        double[] data = TestSystems.random(40, 40, true, 11);
+        File input = TestSystems.binaryFile(directory, "system.bin", 40, 40, data);
+        SystemSolver solver = TestSystems.solver();
+        // a budget of a few columns, so the factorization goes through many panels
+        SystemSolution solution = solver.solveOutOfCore(input, 3 * 16 * 40 * 5, directory);
+        assertEquals("outOfCore", solver.getMetrics().getPath());
+        TestSystems.assertMatchesGaussJordan(40, data, solution, TOLERANCE);
+
+        // large constants leave the pivots alone
+        double[] largeConstants = {1, 0, 0, 0, 1e17, 0, 0, 0, 1, 0, 1, 0};
+        input = TestSystems.binaryFile(directory, "large.bin", 2, 2, largeConstants);
+        solution = TestSystems.solver().solveOutOfCore(input, 1 << 20, directory);
+        TestSystems.assertClose(new double[] {1e17, 0, 1, 0}, solution.getSolution(), 0);
+    }
+
+    @Test
+    void iterativeMethodsMatchGaussJordan() {
+        double[] data = TestSystems.shiftDiagonal(TestSystems.random(30, 30, true, 12), 30, 300);
+        for (String method : new String[] {"jacobi", "gauss-seidel", "bicgstab", "gmres"}) {
+            IterativeSolver iterativeSolver = IterativeSolver.create(method, 1e-12, 1000, true, GmresSolver.DEFAULT_RESTART);
+            SystemSolver solver = new SystemSolver(new ParallelEliminator(1), 0, method, iterativeSolver, SolveLog.SILENT);
+            SystemSolution solution = solve(solver, 30, 30, data);
+            assertEquals(method, solver.getMetrics().getPath());
+            TestSystems.assertMatchesGaussJordan(30, data, solution, 1e-8);
+        }
+    }
+
+    @Test
+    void iterativeMethodsReportNoConvergence() {
+        double[] data = TestSystems.random(30, 30, true, 13);
+        IterativeSolver iterativeSolver = IterativeSolver.create("jacobi", 1e-12, 2, false, GmresSolver.DEFAULT_RESTART);
+        SystemSolution solution = new SystemSolver(new ParallelEliminator(1), 0, "jacobi", iterativeSolver, SolveLog.SILENT)
+                .solve(TestSystems.matrix(30, 30, data));
+        assertEquals(Main.SystemResult.noConvergence, solution.getResult());
+    }
+}
@@ -0,0 +1,111 @@
+package solver;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Random;
+
+// Systems the tests solve, and the Gauss-Jordan reference they are checked against.
+final class TestSystems {
+
+    private TestSystems() {
+    }
+
+    // interleaved (re, im) augmented rows with terms in [-5, 5); real when complex is false
+    static double[] random(int numOfEquations, int numOfVariables, boolean complex, long seed) {
+        Random random = new Random(seed);
+        double[] data = new double[2 * (numOfVariables + 1) * numOfEquations];
+        for (int t = 0; t < data.length; t += 2) {
+            data[t] = random.nextDouble() * 10 - 5;
+            data[t + 1] = complex ? random.nextDouble() * 10 - 5 : 0;
+        }
+        return data;
+    }
+
+    // adds shift to every diagonal term of a square system
+    static double[] shiftDiagonal(double[] data, int size, double shift) {
+        int rowStride = 2 * (size + 1);
+        for (int i = 0; i < size; i++) {
+            data[i * rowStride + 2 * i] += shift;
+        }
+        return data;
+    }
+
+    // zeroes every coefficient further than lower below or upper above the diagonal
+    static double[] band(double[] data, int size, int lower, int upper) {
+        int rowStride = 2 * (size + 1);
+        for (int i = 0; i < size; i++) {
+            for (int j = 0; j < size; j++) {
+                if (j < i - lower || j > i + upper) {
+                    data[i * rowStride + 2 * j] = 0;
+                    data[i * rowStride + 2 * j + 1] = 0;
+                }
+            }
+        }
+        return data;
+    }
+
+    // a Hermitian system from the upper triangle of data, with the diagonal made real
+    static double[] hermitian(double[] data, int size) {
+        int rowStride = 2 * (size + 1);
+        for (int i = 0; i < size; i++) {
+            data[i * rowStride + 2 * i + 1] = 0;
+            for (int j = 0; j < i; j++) {
+                data[i * rowStride + 2 * j] = data[j * rowStride + 2 * i];
+                data[i * rowStride + 2 * j + 1] = -data[j * rowStride + 2 * i + 1];
+            }
+        }
+        return data;
+    }
+
+    static Matrix matrix(int numOfEquations, int numOfVariables, double[] data) {
+        return new Matrix(numOfVariables, numOfEquations, data.clone());
+    }
+
+    static SystemSolver solver() {
+        return new SystemSolver(new ParallelEliminator(1), 0, "direct", null, SolveLog.SILENT);
+    }
+
+    static SystemSolution gaussJordan(int numOfEquations, int numOfVariables, double[] data) {
+        return solver().solveByGaussJordan(matrix(numOfEquations, numOfVariables, data));
+    }
+
+    // both solved, every variable within tolerance of the Gauss-Jordan solution (relative to its largest term)
+    static void assertMatchesGaussJordan(int size, double[] data, SystemSolution solution, double tolerance) {
+        SystemSolution reference = gaussJordan(size, size, data);
+        assertEquals(Main.SystemResult.solved, reference.getResult());
+        assertEquals(Main.SystemResult.solved, solution.getResult());
+        assertClose(reference.getSolution(), solution.getSolution(), tolerance);
+    }
+
+    static void assertClose(double[] expected, double[] actual, double tolerance) {
+        assertNotNull(actual);
+        assertEquals(expected.length, actual.length);
+        double scale = 1;
+        for (double term : expected) {
+            scale = Math.max(scale, Math.abs(term));
+        }
+        for (int t = 0; t < expected.length; t++) {
+            assertEquals(expected[t], actual[t], tolerance * scale, "term " + t);
+        }
+    }
+
+    // the system in the binary format, for the paths that read files
+    static File binaryFile(File directory, String name, int numOfEquations, int numOfVariables, double[] data)
+            throws IOException {
+        File file = new File(directory, name);
+        BinaryMatrixFile.writeSystem(file, matrix(numOfEquations, numOfVariables, data));
+        return file;
+    }
+
+    // the system in the text format, written losslessly
+    static File textFile(File directory, String name, int numOfEquations, int numOfVariables, double[] data)
+            throws IOException {
+        File binary = binaryFile(directory, name + ".bin", numOfEquations, numOfVariables, data);
+        File text = new File(directory, name);
+        BinaryMatrixFile.convertToText(binary, text);
+        return text;
+    }
+}